@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+    /**
+    * <h1>The entry point of the benchmark jar</h1>
+    * Runs the benchmarks with the GC profiler, so that the allocation rate per operation is reported next to each time,
+    * and writes the results as JSON to jmh-result.json, or to the file given by -rff, so that runs before and after a
+    * change to the models can be compared.  Any of the usual JMH command line options can be given, for example a regular
+    * expression selecting the benchmarks, or -p crossings=8 to fix a parameter, and -l lists the benchmarks.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class BenchmarkRunner
+{
+    /**
+    * The main method.
+    * @param args JMH command line options
+    * @throws RunnerException if a benchmark fails
+    * @throws CommandLineOptionException if the options can't be parsed
+    * @throws IOException if the help can't be printed
+    */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException
+    {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+
+        // the options which only print something, as JMH's own main handles them
+        if (cmd.shouldHelp())
+        {
+            cmd.showHelp();
+            return;
+        }
+        if (cmd.shouldList())
+        {
+            new Runner(cmd).list();
+            return;
+        }
+        if (cmd.shouldListWithParams())
+        {
+            new Runner(cmd).listWithParams(cmd);
+            return;
+        }
+        if (cmd.shouldListProfilers())
+        {
+            cmd.listProfilers();
+            return;
+        }
+        if (cmd.shouldListResultFormats())
+        {
+            cmd.listResultFormats();
+            return;
+        }
+
+        Options opt = new OptionsBuilder()
+            .parent(cmd)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+            .result(cmd.getResult().orElse("jmh-result.json"))
+            .build();
+
+        new Runner(opt).run();
+    }
+}
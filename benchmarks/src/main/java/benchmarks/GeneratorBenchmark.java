@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import gaussCodeGenerator.*;
+
+    /**
+    * <h1>End to end benchmarks of the two constraint programming models</h1>
+    * Each invocation builds a NaiveShadowGaussGenerator or BinaryModelShadowGaussGenerator, which reads its model into a
+    * fresh solver and runs the whole search, and passes every code found to a Blackhole.  A single run at 10 crossings
+    * takes long enough that each invocation is timed on its own rather than in a loop.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark
+{
+    @Param({"4", "5", "6", "7", "8", "9", "10"})
+    public int crossings;
+
+    @Param({"0", "1", "2", "3"})
+    public int option;
+
+    @Param({"false", "true"})
+    public boolean propagate;
+
+    @Benchmark
+    public void naiveModel(Blackhole bh)
+    {
+        BlackholeSink sink = new BlackholeSink(bh);
+        new NaiveShadowGaussGenerator(crossings, option, false, new int[0], sink, propagate);
+        bh.consume(sink.count);
+    }
+
+    @Benchmark
+    public void binaryModel(Blackhole bh)
+    {
+        BlackholeSink sink = new BlackholeSink(bh);
+        new BinaryModelShadowGaussGenerator(crossings, option, false, new int[0], sink, propagate);
+        bh.consume(sink.count);
+    }
+
+    // hands every code to the Blackhole so that the search can't be optimised away
+    static class BlackholeSink implements GaussCodeSink
+    {
+        private Blackhole bh;
+        private long count = 0;
+
+        BlackholeSink(Blackhole bh)
+        {
+            this.bh = bh;
+        }
+
+        public void accept(int[] gaussCode)
+        {
+            bh.consume(gaussCode);
+            count++;
+        }
+
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import gaussCodeGenerator.*;
+
+    /**
+    * <h1>Microbenchmarks of the checks run on every complete code</h1>
+    * Each benchmark runs one of the checks the generators make on each solution over a fixed set of random prime codes,
+    * drawn once with a fixed seed by RandomShadowSampler so that every run sees the same codes.  The time reported is
+    * per code.  The generator used for lexMinInClass, isPrime and lexRenumber is given one of the codes as its prefix, so
+    * building it costs a single trivial search.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark
+{
+    private static final int CODES = 256;
+
+    @Param({"8", "12", "16", "24"})
+    public int crossings;
+
+    private int[][] codes;
+    private int next = 0;
+
+    private NaiveShadowGaussGenerator generator;
+    private DuallyPairedTest dp;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        RandomShadowSampler sampler = new RandomShadowSampler(crossings, 2, false, 2015);
+        codes = new int[CODES][];
+
+        for (int i = 0; i < CODES; i++)
+        {
+            codes[i] = sampler.next();
+        }
+
+        generator = new NaiveShadowGaussGenerator(crossings, 0, false, codes[0]);
+        dp = new DuallyPairedTest(crossings);
+    }
+
+    private int[] nextCode()
+    {
+        int[] code = codes[next];
+        next = (next + 1) % CODES;
+        return code;
+    }
+
+    @Benchmark
+    public Object lexMinInClass()
+    {
+        return generator.lexMinInClass(nextCode(), crossings);
+    }
+
+    @Benchmark
+    public boolean isPrime()
+    {
+        return generator.isPrime(nextCode());
+    }
+
+    @Benchmark
+    public int[] lexRenumber()
+    {
+        return generator.lexRenumber(nextCode(), crossings);
+    }
+
+    @Benchmark
+    public boolean duallyPaired()
+    {
+        return dp.isDuallyPaired(nextCode());
+    }
+
+    @Benchmark
+    public boolean duallyPairedNewTest()
+    {
+        // the original use, one test built for each code
+        return new DuallyPairedTest(nextCode()).isDuallyPaired();
+    }
+}
@@ -3,20 +3,15 @@ package org.katlas.JavaKh;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.katlas.JavaKh.interfaces.CannedCobordism;
 import org.katlas.JavaKh.utils.ArrayCache;
 import org.katlas.JavaKh.utils.Cache;
+import org.katlas.JavaKh.utils.CompositionCache;
 import org.katlas.JavaKh.utils.DoubleArrayCache;
 import org.katlas.JavaKh.utils.HashCodeCache;
-import org.katlas.JavaKh.utils.SoftHashMap;
 import org.katlas.JavaKh.utils.TrivialCache;
 
-import com.mallardsoft.tuple.Triple;
-import com.mallardsoft.tuple.Tuple;
-
 // CannedCobordisms should be treated as immutable
 // don't touch them except just after calling the constructor
 public class CannedCobordismImpl implements Comparable<CannedCobordismImpl>,
@@ -62,11 +57,17 @@ public class CannedCobordismImpl implements Comparable<CannedCobordismImpl>,
 	public transient byte edges[][]; // which edges are part of each mixed
 										// boundary component
 	private transient int hashcode;
-//	static private CompositionCache compositionCache = new CompositionCache();
+	// set once this is the copy kept by cobordismCache, so it won't change again
+	private transient boolean interned;
+	public static final int DEFAULT_COMPOSITION_CACHE_MB = 64;
 
 	static Cache<CannedCobordism> cobordismCache = new CannedCobordismCache();
   static Cache<byte[]> byteArrayCache = new ArrayCache();
   static Cache<byte[][]> byteDoubleArrayCache = new DoubleArrayCache();
+	// not flushed with the caches above, so it lasts from crossing to crossing;
+	// only interned cobordisms are remembered, the others may be reused and changed
+	static CompositionCache<CannedCobordism> compositionCache = new CompositionCache<CannedCobordism>(
+			DEFAULT_COMPOSITION_CACHE_MB, new CompositionWeigher());
 
 	public static void disableCache() {
 		cobordismCache = new TrivialCache<CannedCobordism>();
@@ -86,6 +87,14 @@ public class CannedCobordismImpl implements Comparable<CannedCobordismImpl>,
 		byteDoubleArrayCache.clear();
 	}
 
+	public static void setCompositionCacheSize(int megabytes) {
+		compositionCache = new CompositionCache<CannedCobordism>(megabytes, new CompositionWeigher());
+	}
+
+	public static CompositionCache<CannedCobordism> getCompositionCache() {
+		return compositionCache;
+	}
+
 	// public static void main(String args[]) {
 	// int n = 8;
 	// if (checkAssociativity(n))
@@ -335,10 +344,17 @@ public class CannedCobordismImpl implements Comparable<CannedCobordismImpl>,
 
 	// new vertical composition
 	public CannedCobordism compose(CannedCobordism icc) {
-//		return compositionCache.compose(this, cc);
-		
 		if(icc instanceof CannedCobordismImpl) {
-			return composeWithoutCache((CannedCobordismImpl)icc);
+			CompositionCache<CannedCobordism> cache = compositionCache;
+			if (!cache.isEnabled() || !interned || !((CannedCobordismImpl)icc).interned) {
+				return composeWithoutCache((CannedCobordismImpl)icc);
+			}
+			CannedCobordism result = cache.get(this, icc, -1, -1, -1);
+			if (result == null) {
+				result = composeWithoutCache((CannedCobordismImpl)icc);
+				cache.put(this, icc, -1, -1, -1, result);
+			}
+			return result;
 		} else {
 			throw new UnsupportedOperationException();
 		}
@@ -713,8 +729,20 @@ public class CannedCobordismImpl implements Comparable<CannedCobordismImpl>,
 		if(!(icc instanceof CannedCobordismImpl)) {
 			throw new UnsupportedOperationException();
 		}
-		CannedCobordismImpl cc = (CannedCobordismImpl)icc;
-		
+		CompositionCache<CannedCobordism> cache = compositionCache;
+		if (!cache.isEnabled() || !interned || !((CannedCobordismImpl)icc).interned) {
+			return composeWithoutCache(start, (CannedCobordismImpl)icc, cstart, nc);
+		}
+		CannedCobordism result = cache.get(this, icc, start, cstart, nc);
+		if (result == null) {
+			result = composeWithoutCache(start, (CannedCobordismImpl)icc, cstart, nc);
+			cache.put(this, icc, start, cstart, nc, result);
+		}
+		return result;
+	}
+
+	private CannedCobordism composeWithoutCache(int start, CannedCobordismImpl cc,
+			int cstart, int nc) {
 		assert check() && cc.check();
 		/*
 		 * if (!check() || !cc.check()) throw new AssertionError();
@@ -1370,61 +1398,60 @@ public class CannedCobordismImpl implements Comparable<CannedCobordismImpl>,
 	// return hcache.size();
 	// }
 
+	// an estimate of a composition's bytes on a 64 bit VM, counting its arrays
+	// and caps even though they may be shared with other cobordisms
+	static class CompositionWeigher implements CompositionCache.Weigher<CannedCobordism> {
+
+		public int bytes(CannedCobordism _cc) {
+			if(!(_cc instanceof CannedCobordismImpl)) {
+				return 0;
+			}
+			CannedCobordismImpl cc = (CannedCobordismImpl)_cc;
+			return 72 + capBytes(cc.top) + capBytes(cc.bottom) + arrayBytes(cc.component)
+					+ arrayBytes(cc.connectedComponent) + arrayBytes(cc.dots) + arrayBytes(cc.genus)
+					+ arrayBytes(cc.boundaryComponents) + arrayBytes(cc.edges);
+		}
+
+		private static int capBytes(Cap cap) {
+			return cap == null ? 0 : 24 + align(16 + 4 * cap.pairings.length);
+		}
+
+		private static int arrayBytes(byte array[]) {
+			return array == null ? 0 : align(16 + array.length);
+		}
+
+		private static int arrayBytes(byte array[][]) {
+			if (array == null) {
+				return 0;
+			}
+			int bytes = align(16 + 4 * array.length);
+			for (byte row[] : array) {
+				bytes += arrayBytes(row);
+			}
+			return bytes;
+		}
+
+		private static int align(int bytes) {
+			return (bytes + 7) & ~7;
+		}
+
+	}
+
 	static class CannedCobordismCache extends HashCodeCache<CannedCobordism> {
 
+		// only the cobordisms which are kept have their arrays interned
 		@Override
-		public synchronized CannedCobordism cache(CannedCobordism _cc) {
+		protected CannedCobordism prepare(CannedCobordism _cc) {
 			if(_cc instanceof CannedCobordismImpl) {
 				CannedCobordismImpl cc = (CannedCobordismImpl)_cc;
 				cc.dots = byteArrayCache.cache(cc.dots);
 				cc.genus = byteArrayCache.cache(cc.genus);
-				cc.component = byteArrayCache.cache(cc.component);				
+				cc.component = byteArrayCache.cache(cc.component);
+				cc.interned = true;
 			}
-			return super.cache(_cc);
+			return _cc;
 		}
 		
 	}
-	
-	static class CompositionCache {
-		Map<Integer, Map<Integer, Triple<CannedCobordismImpl, CannedCobordismImpl, CannedCobordism>>> map = new SoftHashMap<Integer, Map<Integer, Triple<CannedCobordismImpl, CannedCobordismImpl, CannedCobordism>>>();
-
-		public CannedCobordism compose(CannedCobordismImpl cc1, CannedCobordismImpl cc2) {
-			Map<Integer, Triple<CannedCobordismImpl, CannedCobordismImpl, CannedCobordism>> map2 = map
-					.get(cc1.hashCode());
-			if (map2 != null) {
-				Triple<CannedCobordismImpl, CannedCobordismImpl, CannedCobordism> triple = map2
-						.get(cc2.hashCode());
-				if (triple == null) {
-					CannedCobordism composition = cc1.composeWithoutCache(cc2);
-					map2.put(cc2.hashCode(), Tuple.from(cc1, cc2, composition));
-					return composition;
-				} else {
-					CannedCobordism result = Tuple.get3(triple);
-					if (Tuple.get1(triple) != cc1 || Tuple.get2(triple) != cc2) {
-						assert false;
-						return cc1.composeWithoutCache(cc2);
-					} else {
-						if (result != null) {
-							assert result == cc1.composeWithoutCache(cc2);
-							return result;							
-						}
-						else {
-							CannedCobordism composition = cc1
-									.composeWithoutCache(cc2);
-							map2.put(cc2.hashCode(), Tuple.from(cc1, cc2,
-									composition));
-							return composition;
-						}
-					}
-				}
-			} else {
-				CannedCobordism composition = cc1.composeWithoutCache(cc2);
-				map2 = new HashMap<Integer, Triple<CannedCobordismImpl, CannedCobordismImpl, CannedCobordism>>();
-				map2.put(cc2.hashCode(), Tuple.from(cc1, cc2, composition));
-				map.put(cc1.hashCode(), map2);
-				return composition;
-			}
-		}
-	}
 
 }
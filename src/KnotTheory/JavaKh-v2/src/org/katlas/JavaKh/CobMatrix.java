@@ -12,6 +12,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -172,44 +174,136 @@ public class CobMatrix<R extends Ring<R>> extends
 		 */
 		CobMatrix<R> ret = new CobMatrix<R>(cm.source, target, false, inMemory);
 
-		for (int i = 0; i < target.n; ++i) {
-			MatrixRow<LCCC<R>> rowEntriesI = entries.get(i);
-			MatrixRow<LCCC<R>> result = ret.newRow();
-			for (int j : rowEntriesI.keys()) {
-				for (int k : cm.entries.get(j).keys()) {
-					// if(entries.size() == 9 && cm.entries.size() == 10 && i >=
-					// 7 && j >= 5) {
-					// System.out.println("foo");
-					// }
-					assert check();
-					assert cm.check();
-					assert source.equals(cm.target);
-					assert rowEntriesI.get(j).source().equals(
-							cm.entries.get(j).get(k).target());
-					LCCC<R> lc = rowEntriesI.get(j).compose(
-							cm.entries.get(j).get(k));
-					if (lc != null && !lc.isZero()) {
-						assert lc.target().equals(rowEntriesI.get(j).target());
-						assert lc.source().equals(
-								cm.entries.get(j).get(k).source());
-						if (result.containsKey(k)) {
-							LCCC<R> sum = result.get(k).add(lc);
-							if (sum == null || sum.isZero()) {
-								result.remove(k);
-							} else {
-								result.put(k, sum);
-							}
+		long work[] = composeWork(cm);
+		ForkJoinPool pool = composePool();
+		if (pool != null && work[target.n] >= PARALLEL_COMPOSE_THRESHOLD) {
+			long grain = work[target.n] / (4 * pool.getParallelism());
+			pool.invoke(new ComposeRows(cm, ret, work, 0, target.n, grain));
+		} else {
+			for (int i = 0; i < target.n; ++i) {
+				ret.entries.set(i, composeRow(i, cm, ret));
+			}
+		}
+
+		return ret;
+	}
+
+	// row i of this * cm
+	private MatrixRow<LCCC<R>> composeRow(int i, CobMatrix<R> cm,
+			CobMatrix<R> ret) {
+		MatrixRow<LCCC<R>> rowEntriesI = entries.get(i);
+		MatrixRow<LCCC<R>> result = ret.newRow();
+		for (int j : rowEntriesI.keys()) {
+			for (int k : cm.entries.get(j).keys()) {
+				// if(entries.size() == 9 && cm.entries.size() == 10 && i >=
+				// 7 && j >= 5) {
+				// System.out.println("foo");
+				// }
+				assert check();
+				assert cm.check();
+				assert source.equals(cm.target);
+				assert rowEntriesI.get(j).source().equals(
+						cm.entries.get(j).get(k).target());
+				LCCC<R> lc = rowEntriesI.get(j).compose(
+						cm.entries.get(j).get(k));
+				if (lc != null && !lc.isZero()) {
+					assert lc.target().equals(rowEntriesI.get(j).target());
+					assert lc.source().equals(
+							cm.entries.get(j).get(k).source());
+					if (result.containsKey(k)) {
+						LCCC<R> sum = result.get(k).add(lc);
+						if (sum == null || sum.isZero()) {
+							result.remove(k);
 						} else {
-							result.put(k, lc); // stopping to think, sadly we
-							// can't use putLast here.
+							result.put(k, sum);
 						}
+					} else {
+						result.put(k, lc); // stopping to think, sadly we
+						// can't use putLast here.
 					}
 				}
 			}
-			ret.entries.set(i, result);
+		}
+		return result;
+	}
+
+	/*
+	 * work[i] is the number of compositions needed for the rows of this * cm
+	 * before row i, so work[target.n] is the number for the whole product.
+	 */
+	private long[] composeWork(CobMatrix<R> cm) {
+		int termsInRow[] = new int[cm.target.n];
+		for (int j = 0; j < cm.target.n; ++j) {
+			for (@SuppressWarnings("unused") int k : cm.entries.get(j).keys()) {
+				termsInRow[j]++;
+			}
+		}
+		long work[] = new long[target.n + 1];
+		for (int i = 0; i < target.n; ++i) {
+			work[i + 1] = work[i];
+			for (int j : entries.get(i).keys()) {
+				work[i + 1] += termsInRow[j];
+			}
+		}
+		return work;
+	}
+
+	/*
+	 * Products needing at least this many compositions have their rows split
+	 * between the threads of a fork/join pool. Each row of the product is
+	 * built by one thread from rows which are only read, so the product is
+	 * the same as the sequential one; the cobordisms the threads make are
+	 * cached through the synchronized caches of CannedCobordismImpl.
+	 */
+	static final int PARALLEL_COMPOSE_THRESHOLD = 256;
+
+	private static ForkJoinPool composePool;
+	private static boolean composePoolCreated = false;
+
+	// null on a single processor
+	private static synchronized ForkJoinPool composePool() {
+		if (!composePoolCreated) {
+			int processors = Runtime.getRuntime().availableProcessors();
+			if (processors > 1) {
+				composePool = new ForkJoinPool(processors);
+			}
+			composePoolCreated = true;
+		}
+		return composePool;
+	}
+
+	private class ComposeRows extends RecursiveAction {
+
+		private static final long serialVersionUID = -2046934212478370112L;
+
+		private final CobMatrix<R> cm, ret;
+		private final long work[];
+		private final int first, last;
+		private final long grain;
+
+		ComposeRows(CobMatrix<R> cm, CobMatrix<R> ret, long work[],
+				int first, int last, long grain) {
+			this.cm = cm;
+			this.ret = ret;
+			this.work = work;
+			this.first = first;
+			this.last = last;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (last - first > 1 && work[last] - work[first] > grain) {
+				int middle = (first + last) >>> 1;
+				invokeAll(new ComposeRows(cm, ret, work, first, middle, grain),
+						new ComposeRows(cm, ret, work, middle, last, grain));
+			} else {
+				for (int i = first; i < last; ++i) {
+					ret.entries.set(i, composeRow(i, cm, ret));
+				}
+			}
 		}
 
-		return ret;
 	}
 
 	public CobMatrix<R> multiply(R n) { // modifies in place
@@ -555,7 +649,7 @@ public class CobMatrix<R extends Ring<R>> extends
 									.readObject();
 							terms.put(cc, coefficient);
 						}
-						LCCC<R> lc = new LCCCMap<R>(terms);
+						LCCC<R> lc = LCCCs.newInstance(terms);
 						entries.get(i).putLast(j, lc);
 					} else {
 						assert false;
@@ -48,7 +48,8 @@ public class JavaKh {
 			options.addOption("C", "caching", false, "cache intermediate steps to the cache/ directory");
 			options.addOption("D", "disk", false, "store large lists on disk, rather than in memory (slow!)");
 			options.addOption("N", "nocobordisms", false, "disable the cobordism cache");
-			options.addOption("P", "parallel", false, "simplify complexes using parallel threads (experimental)");
+			options.addOption("M", "memo", true, "megabytes for remembering compositions of cobordisms (default " + CannedCobordismImpl.DEFAULT_COMPOSITION_CACHE_MB + ", 0 to turn off)");
+			options.addOption("P", "parallel", false, "simplify complexes using parallel threads, one for each processor");
 			options.addOption("G", "garbage", false, "perform intense garbage collection");
 			
 			CommandLine line = parser.parse(options, args);
@@ -89,6 +90,7 @@ public class JavaKh {
 				inMemory = false;
 			}
 			if(line.hasOption("N")) CannedCobordismImpl.disableCache();
+			if(line.hasOption("M")) CannedCobordismImpl.setCompositionCacheSize(Integer.parseInt(line.getOptionValue("M")));
 			if(line.hasOption("P")) Komplex.parallel = true;
 			if(line.hasOption("G")) Komplex.intenseGarbage = true;
 			
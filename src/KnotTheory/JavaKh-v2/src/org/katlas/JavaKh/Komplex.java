@@ -23,11 +23,8 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.io.IOUtils;
@@ -70,7 +67,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 	private transient int startnum;
 	private transient boolean inMemory;
 
-	transient static boolean parallel;
+	public transient static boolean parallel;
 	transient static boolean intenseGarbage = false;
 
 	private CobMatrix<R> getMatrix(int i) {
@@ -502,9 +499,6 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 	}
 
 	public void reduce() {
-		/*
-		 * Can this be safely parallelised?
-		 */
 		if (parallel) {
 			parallelReduce();
 		} else {
@@ -529,84 +523,160 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 		}
 	}
 
+	/*
+	 * One pool, with a thread for each processor, is shared by every parallel
+	 * reduction, so generateFast doesn't start new threads at each crossing.
+	 */
+	private static ExecutorService reductionPool;
+
+	private static synchronized ExecutorService reductionPool() {
+		if (reductionPool == null) {
+			reductionPool = Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors(), new ThreadFactory() {
+				ThreadFactory tf = Executors.defaultThreadFactory();
+
+				public Thread newThread(Runnable arg0) {
+					Thread t = tf.newThread(arg0);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return reductionPool;
+	}
+
 	private void parallelReduce() {
-		ExecutorService executor = Executors
-				.newCachedThreadPool(new ThreadFactory() {
-					ThreadFactory tf = Executors.defaultThreadFactory();
-
-					public Thread newThread(Runnable arg0) {
-						Thread t = tf.newThread(arg0);
-						t.setDaemon(true);
-						return t;
-					}
-				});
-
-		// ExecutorService executor = new ThreadPoolExecutor(1, 10, 10,
-		// TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
-		int p = 4;
-		for (int j = 0; j < p; ++j) {
-			// prepare the tasks.
-			List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
-			for (int i = j; i < ncolumns; i += p) {
-				tasks.add(new reduceTask(i));
-			}
-			// submit them.
-			List<Future<Boolean>> futures = null;
+		new ParallelReduction().run();
+	}
+
+	/*
+	 * Delooping column c changes matrices c - 1 and c, and reducing matrix i
+	 * changes matrices i - 1, i and i + 1, so no two tasks which share a matrix
+	 * are run at once. The matrices are reduced one after another, as in the
+	 * sequential order, each once both of its columns are delooped, while the
+	 * other threads deloop the columns ahead of them. A reduction only removes
+	 * rows and columns of its neighbours, and delooping works entry by entry,
+	 * so the two give the same matrix in either order, and the reduced complex
+	 * is the same as the sequential one.
+	 */
+	private class ParallelReduction {
+
+		private final int threads = Runtime.getRuntime().availableProcessors();
+		private final boolean started[] = new boolean[ncolumns];
+		private final boolean delooped[] = new boolean[ncolumns];
+		// busy[i + 1] is set while a task is changing matrix i
+		private final boolean busy[] = new boolean[ncolumns + 1];
+		private int reduced = 0;
+		private boolean reducing = false;
+		private int running = 0;
+		private Throwable failure;
+
+		synchronized void run() {
 			try {
-				futures = executor.invokeAll(tasks);
+				while (failure == null && !finished()) {
+					if (!schedule()) {
+						wait();
+					}
+				}
+				while (running > 0) {
+					wait();
+				}
 			} catch (InterruptedException e) {
-				log
-						.warn(
-								"Maybe parallel reduction wasn't such a good idea.",
-								e);
+				failure = e;
+			}
+			if (failure != null) {
+				log.warn("Maybe parallel reduction wasn't such a good idea.",
+						failure);
 				System.exit(1);
 			}
-			// block until they're all done.
-			if (futures != null) {
-				for (Future<Boolean> future : futures) {
-					try {
-						future.get();
-					} catch (InterruptedException e) {
-						log
-								.warn(
-										"Maybe parallel reduction wasn't such a good idea.",
-										e);
-						System.exit(1);
-					} catch (ExecutionException e) {
-						log
-								.warn(
-										"Maybe parallel reduction wasn't such a good idea.",
-										e);
-						System.exit(1);
+		}
+
+		private boolean finished() {
+			return reduced >= ncolumns - 1 && running == 0
+					&& (ncolumns == 0 || delooped[ncolumns - 1]);
+		}
+
+		// starts every task which can be started, returning false if none
+		// could
+		private boolean schedule() {
+			boolean scheduled = false;
+			final int i = reduced;
+			if (!reducing && i < ncolumns - 1 && delooped[i] && delooped[i + 1]
+					&& free(i - 1, i + 1)) {
+				reducing = true;
+				start(i - 1, i + 1, new Runnable() {
+					public void run() {
+						debug("applying reduce " + (i + 2) + "/" + ncolumns);
+						CobMatrix<R> m = getMatrix(i);
+						m.reduce();
+						setMatrix(i, m);
+						debug("applying reduction lemma " + (i + 2) + "/"
+								+ ncolumns);
+						blockReductionLemma(i);
+						invokeGC();
 					}
+				}, -1);
+				scheduled = true;
+			}
+			for (int c = 0; c < ncolumns && c <= reduced + 1 + threads
+					&& running < threads; c++) {
+				if (!started[c] && free(c - 1, c)) {
+					final int colnum = c;
+					started[c] = true;
+					start(c - 1, c, new Runnable() {
+						public void run() {
+							debug("delooping " + (colnum + 1) + "/" + ncolumns);
+							deLoop(colnum);
+							invokeGC();
+						}
+					}, c);
+					scheduled = true;
 				}
 			}
+			return scheduled;
 		}
-		executor.shutdownNow();
-	}
-
-	private class reduceTask implements Callable<Boolean> {
 
-		private final int i;
-
-		reduceTask(int i) {
-			this.i = i;
+		private boolean free(int first, int last) {
+			for (int j = first; j <= last; j++) {
+				if (busy[j + 1]) {
+					return false;
+				}
+			}
+			return true;
 		}
 
-		public Boolean call() throws Exception {
-			debug("delooping " + (i + 1) + "/" + ncolumns);
-			deLoop(i);
-			if (i > 0) {
-				deLoop(i - 1);
-				debug("applying reduce " + (i + 1) + "/" + ncolumns);
-				CobMatrix<R> m = getMatrix(i - 1);
-				m.reduce();
-				setMatrix(i - 1, m);
-				debug("applying reduction lemma " + (i + 1) + "/" + ncolumns);
-				blockReductionLemma(i - 1);
-				debug("done " + (i + 1) + "/" + ncolumns);
+		private void start(final int first, final int last,
+				final Runnable task, final int colnum) {
+			for (int j = first; j <= last; j++) {
+				busy[j + 1] = true;
 			}
-			return true;
+			running++;
+			reductionPool().execute(new Runnable() {
+				public void run() {
+					Throwable t = null;
+					try {
+						task.run();
+					} catch (Throwable e) {
+						t = e;
+					}
+					synchronized (ParallelReduction.this) {
+						for (int j = first; j <= last; j++) {
+							busy[j + 1] = false;
+						}
+						if (colnum >= 0) {
+							delooped[colnum] = true;
+						} else {
+							reducing = false;
+							reduced++;
+						}
+						if (t != null && failure == null) {
+							failure = t;
+						}
+						running--;
+						ParallelReduction.this.notifyAll();
+					}
+				}
+			});
 		}
 
 	}
@@ -709,7 +779,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 					// prev.rowsizes[newn] = prevMatrix.rowsizes[i];
 					// prev.indices[newn] = prevMatrix.indices[i];
 					if (oldsm.ncycles != 0) {
-						LCCC<R> lc = new LCCCMap<R>(prevcc, ring.ONE);
+						LCCC<R> lc = LCCCs.newInstance(prevcc, ring.ONE);
 						// prev.values[newn] = new LCCCMap[prev.rowsizes[newn]];
 						MatrixRow<LCCC<R>> prevMatrixEntriesI = prevMatrix.entries
 								.get(i);
@@ -736,7 +806,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 				}
 				if (next != null) {
 					if (oldsm.ncycles != 0) {
-						LCCC<R> lc = new LCCCMap<R>(nextcc, ring.ONE);
+						LCCC<R> lc = LCCCs.newInstance(nextcc, ring.ONE);
 
 						for (int k = 0; k < nextMatrix.entries.size(); ++k) {
 							MatrixRow<LCCC<R>> rowEntries = nextMatrix.entries
@@ -867,7 +937,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 						newprev.dots = prevdots;
 						newprev.hpower = prevhpow;
 
-						prevlc = (prevlc == null ? new LCCCMap<R>(newprev,
+						prevlc = (prevlc == null ? LCCCs.newInstance(newprev,
 								coeff) : prevlc.add(newprev, coeff));
 					}
 				}
@@ -909,7 +979,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 				}
 				if (next != null) {
 					if (oldsm.ncycles != 0) {
-						LCCC<R> lc = new LCCCMap<R>(nextcc, ring.ONE);
+						LCCC<R> lc = LCCCs.newInstance(nextcc, ring.ONE);
 
 						for (int k = 0; k < nextMatrix.entries.size(); ++k) {
 							MatrixRow<LCCC<R>> rowEntries = nextMatrix.entries
@@ -1289,7 +1359,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 		phicc.ncc = phicc.nbc;
 		phicc.dots = new byte[phicc.ncc];
 		phicc.genus = new byte[phicc.ncc];
-		LCCC<R> philc = new LCCCMap<R>(phicc, n.inverse().multiply(-1));
+		LCCC<R> philc = LCCCs.newInstance(phicc, n.inverse().multiply(-1));
 		phiinv.putEntry(0, 0, philc);
 
 		CobMatrix<R> gpd = gamma.compose(phiinv).compose(delta);
@@ -1350,7 +1420,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 			phicc.ncc = phicc.nbc;
 			phicc.dots = new byte[phicc.ncc];
 			phicc.genus = new byte[phicc.ncc];
-			LCCC<R> philc = new LCCCMap<R>(phicc, coefficients.get(k).inverse()
+			LCCC<R> philc = LCCCs.newInstance(phicc, coefficients.get(k).inverse()
 					.multiply(-1));
 			// SingleTermLCCC<R> philc = new SingleTermLCCC<R>(phicc,
 			// coefficients.get(k).inverse().multiply(-1));
@@ -1789,6 +1859,8 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 
 		log.info("Peak memory usage: "
 				+ memoryFormatter.format(peakMemoryInUse));
+		log.info("Composition cache: "
+				+ CannedCobordismImpl.getCompositionCache());
 
 		return kom;
 	}
@@ -2226,7 +2298,7 @@ public class Komplex<R extends Ring<R>> implements Serializable {
 							}
 						}
 
-						LCCC<R> lc = new LCCCMap<R>(
+						LCCC<R> lc = LCCCs.newInstance(
 								CannedCobordismImpl.cobordismCache.cache(cc),
 								ring.createInstance(num));
 
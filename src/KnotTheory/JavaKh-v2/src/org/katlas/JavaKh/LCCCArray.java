@@ -0,0 +1,481 @@
+package org.katlas.JavaKh;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.katlas.JavaKh.algebra.Ring;
+import org.katlas.JavaKh.algebra.implementations.AbstractLinearCombo;
+import org.katlas.JavaKh.algebra.rings.Int;
+import org.katlas.JavaKh.algebra.rings.ModP;
+import org.katlas.JavaKh.algebra.rings.Rings;
+import org.katlas.JavaKh.interfaces.CannedCobordism;
+import org.katlas.JavaKh.interfaces.LCCC;
+
+/*
+ * A linear combination of cobordisms over ModP, or over Int while every
+ * coefficient fits in a long. The terms and their coefficients are kept in
+ * parallel arrays, sorted as the TreeMap of an LCCCMap would sort them, so
+ * adding to a term which is already there changes a long in place and makes
+ * nothing. Interned cobordisms are the same object whenever they are equal,
+ * so the search for a term usually ends on an identity test.
+ *
+ * An Int coefficient which would overflow turns the combination into an
+ * LCCCMap, which is returned instead; like LCCCMap, callers must use what
+ * add and multiply return.
+ */
+public class LCCCArray<R extends Ring<R>> extends
+		AbstractLinearCombo<R, Cap, CannedCobordism, LCCC<R>> implements
+		LCCC<R>, Serializable {
+	private static final long serialVersionUID = -3346218794537263707L;
+	private static final Log log = LogFactory.getLog(LCCCArray.class);
+
+	private boolean modP; // otherwise Int
+	private CannedCobordism terms[];
+	private long coefficients[];
+	private int size;
+
+	transient boolean alreadyReduced = false;
+
+	LCCCArray(boolean modP, int capacity) {
+		this.modP = modP;
+		terms = new CannedCobordism[capacity];
+		coefficients = new long[capacity];
+	}
+
+	public LCCCArray() {
+		this(isModP(Rings.current()), 1);
+	}
+
+	// whether the coefficients of the ring can be kept in longs
+	static boolean supports(Rings<?> ring) {
+		return isModP(ring) || ring.name.equals("Int");
+	}
+
+	private static boolean isModP(Rings<?> ring) {
+		return ring.name.equals("ModP");
+	}
+
+	// whether r can be kept in a long
+	static boolean fits(Ring<?> r) {
+		return r instanceof ModP || ((Int) r).getN().bitLength() < 64;
+	}
+
+	private long toLong(R r) {
+		if (modP) {
+			return ((ModP) r).getN();
+		} else {
+			return ((Int) r).getN().longValue();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private R toRing(long n) {
+		if (modP) {
+			return (R) ModP.valueOf((int) n);
+		} else {
+			return (R) new Int(BigInteger.valueOf(n));
+		}
+	}
+
+	// throws ArithmeticException if an Int sum overflows
+	private long sum(long a, long b) {
+		if (modP) {
+			long sum = a + b;
+			return sum >= ModP.getP() ? sum - ModP.getP() : sum;
+		} else {
+			return Math.addExact(a, b);
+		}
+	}
+
+	// throws ArithmeticException if an Int product overflows
+	private long product(long a, long b) {
+		if (modP) {
+			return (a * b) % ModP.getP();
+		} else {
+			return Math.multiplyExact(a, b);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private int indexOf(CannedCobordism cc) {
+		int low = 0, high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (terms[mid] == cc) {
+				return mid;
+			}
+			int c = ((Comparable<CannedCobordism>) terms[mid]).compareTo(cc);
+			if (c < 0) {
+				low = mid + 1;
+			} else if (c > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	public LCCC<R> add(CannedCobordism cc, int num) {
+		Rings<R> ring = Rings.current();
+		return add(cc, ring.createInstance(num));
+	}
+
+	public LCCC<R> add(CannedCobordism cc, R num) {
+		if (!fits(num)) {
+			return toMap().add(cc, num);
+		}
+		return add(cc, toLong(num));
+	}
+
+	LCCC<R> add(CannedCobordism cc, long num) {
+		alreadyReduced = false;
+		if (num == 0) {
+			return this;
+		}
+		int i = indexOf(cc);
+		if (i >= 0) {
+			long sum;
+			try {
+				sum = sum(coefficients[i], num);
+			} catch (ArithmeticException e) {
+				return toMap().add(cc, toRing(num));
+			}
+			if (sum == 0) {
+				--size;
+				System.arraycopy(terms, i + 1, terms, i, size - i);
+				System.arraycopy(coefficients, i + 1, coefficients, i, size - i);
+				terms[size] = null;
+				return compact();
+			}
+			coefficients[i] = sum;
+		} else {
+			i = -(i + 1);
+			if (size == terms.length) {
+				terms = Arrays.copyOf(terms, Math.max(2 * size, 1));
+				coefficients = Arrays.copyOf(coefficients, terms.length);
+			}
+			System.arraycopy(terms, i, terms, i + 1, size - i);
+			System.arraycopy(coefficients, i, coefficients, i + 1, size - i);
+			terms[i] = cc;
+			coefficients[i] = num;
+			++size;
+		}
+		return this;
+	}
+
+	// adds to ret, without boxing the coefficient while ret is an LCCCArray
+	@SuppressWarnings("unchecked")
+	private LCCC<R> addTo(LCCC<R> ret, CannedCobordism cc, long num) {
+		if (ret instanceof LCCCArray) {
+			return ((LCCCArray<R>) ret).add(cc, num);
+		}
+		return ret.add(cc, toRing(num));
+	}
+
+	@SuppressWarnings("unchecked")
+	public LCCC<R> add(LCCC<R> other) {
+		alreadyReduced = false;
+		LCCC<R> ret = this;
+		if (other instanceof LCCCArray) {
+			LCCCArray<R> array = (LCCCArray<R>) other;
+			for (int j = 0; j < array.size; ++j) {
+				ret = addTo(ret, array.terms[j], array.coefficients[j]);
+			}
+		} else if (other != null) {
+			for (CannedCobordism cc : other.terms()) {
+				ret = ret.add(cc, other.getCoefficient(cc));
+			}
+		}
+		return ret.compact();
+	}
+
+	public LCCC<R> multiply(R num) {
+		alreadyReduced = false;
+		if (num.isZero()) {
+			Arrays.fill(terms, 0, size, null);
+			size = 0;
+			return null;
+		}
+		if (!fits(num)) {
+			return toMap().multiply(num);
+		}
+		long n = toLong(num);
+		try {
+			if (!modP) {
+				// check first, so nothing has changed if one overflows
+				for (int i = 0; i < size; ++i) {
+					product(coefficients[i], n);
+				}
+			}
+		} catch (ArithmeticException e) {
+			return toMap().multiply(num);
+		}
+		for (int i = 0; i < size; ++i) {
+			coefficients[i] = product(coefficients[i], n);
+		}
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public LCCC<R> compose(LCCC<R> other) { // vertical composition
+		if (other == null || isZero() || other.isZero()) {
+			return null;
+		}
+
+		assert source().equals(other.target());
+		alreadyReduced = false;
+		LCCC<R> ret = new LCCCArray<R>(modP, size * other.numberOfTerms());
+
+		if (other instanceof LCCCArray) {
+			LCCCArray<R> array = (LCCCArray<R>) other;
+			for (int i = 0; i < size; ++i) {
+				for (int j = 0; j < array.size; ++j) {
+					CannedCobordism composition = terms[i].compose(array.terms[j]);
+					try {
+						ret = addTo(ret, composition, product(coefficients[i], array.coefficients[j]));
+					} catch (ArithmeticException e) {
+						ret = ret.add(composition, toRing(coefficients[i]).multiply(
+								toRing(array.coefficients[j])));
+					}
+				}
+			}
+		} else {
+			for (int i = 0; i < size; ++i) {
+				for (CannedCobordism occ : other.terms()) {
+					ret = ret.add(terms[i].compose(occ), toRing(coefficients[i])
+							.multiply(other.getCoefficient(occ)));
+				}
+			}
+		}
+
+		return ret == null ? null : ret.compact();
+	}
+
+	public LCCC<R> compose(int start, CannedCobordism cc, int cstart, int nc,
+			boolean reverse) {
+
+		if (size == 0) {
+			assert false;
+			return null;
+		}
+
+		LCCC<R> ret = new LCCCArray<R>(modP, size);
+
+		for (int i = 0; i < size; ++i) {
+			CannedCobordism composition;
+			if (reverse) {
+				composition = cc.compose(cstart, terms[i], start, nc);
+			} else {
+				composition = terms[i].compose(start, cc, cstart, nc);
+			}
+			ret = addTo(ret, composition, coefficients[i]);
+		}
+
+		return ret.compact();
+	}
+
+	@SuppressWarnings("unchecked")
+	public LCCC<R> reduce() {
+		if (JavaKh.using_h)
+			return reduceWithH();
+		if (size == 0)
+			return compact();
+
+		if (alreadyReduced) {
+			return this;
+		}
+
+		LCCC<R> ret = LCCCMap.reduce(this, new LCCCArray<R>(modP, size));
+		if (ret instanceof LCCCArray) {
+			((LCCCArray<R>) ret).alreadyReduced = true;
+		}
+		return ret;
+	}
+
+	@SuppressWarnings("unchecked")
+	public LCCC<R> reduceWithH() {
+		if (size == 0)
+			return compact();
+
+		if (alreadyReduced) {
+			return this;
+		}
+
+		LCCC<R> ret = LCCCMap.reduceWithH(this, new LCCCArray<R>(modP, size));
+		if (ret instanceof LCCCArray) {
+			((LCCCArray<R>) ret).alreadyReduced = true;
+		}
+		return ret;
+	}
+
+	public LCCC<R> finalizeH() {
+		if (size == 0)
+			return null;
+		return LCCCMap.finalizeH(this, new LCCCArray<R>(modP, 1));
+	}
+
+	// the same terms with boxed coefficients, for when they outgrow a long
+	private LCCCMap<R> toMap() {
+		LCCCMap<R> map = new LCCCMap<R>();
+		for (int i = 0; i < size; ++i) {
+			map.coefficients.put(terms[i], toRing(coefficients[i]));
+		}
+		return map;
+	}
+
+	public CannedCobordism firstTerm() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return terms[0];
+	}
+
+	public R firstCoefficient() {
+		return toRing(coefficients[0]);
+	}
+
+	public R getCoefficient(CannedCobordism term) {
+		int i = indexOf(term);
+		return i < 0 ? null : toRing(coefficients[i]);
+	}
+
+	public int numberOfTerms() {
+		return size;
+	}
+
+	public boolean isZero() {
+		return size == 0;
+	}
+
+	public Set<CannedCobordism> terms() {
+		return new AbstractSet<CannedCobordism>() {
+
+			@Override
+			public Iterator<CannedCobordism> iterator() {
+				return new Iterator<CannedCobordism>() {
+					int i = 0;
+
+					public boolean hasNext() {
+						return i < size;
+					}
+
+					public CannedCobordism next() {
+						if (i >= size) {
+							throw new NoSuchElementException();
+						}
+						return terms[i++];
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return o instanceof CannedCobordism && indexOf((CannedCobordism) o) >= 0;
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	public Cap source() {
+		return firstTerm().source();
+	}
+
+	public Cap target() {
+		return firstTerm().target();
+	}
+
+	@SuppressWarnings("unchecked")
+	public boolean equals(Object o) {
+		if (o == null && size == 0)
+			return true;
+		if (!(o instanceof LCCC))
+			return false;
+		LCCC<R> other = (LCCC<R>) o;
+		if (other.numberOfTerms() != size)
+			return false;
+		for (int i = 0; i < size; ++i) {
+			if (!toRing(coefficients[i]).equals(other.getCoefficient(terms[i])))
+				return false;
+		}
+		return true;
+	}
+
+	// summed over the terms, as equals doesn't depend on their order; each
+	// coefficient is kept reduced, so equal combinations have equal longs
+	public int hashCode() {
+		int hash = 0;
+		for (int i = 0; i < size; ++i) {
+			hash += terms[i].hashCode() ^ Long.hashCode(coefficients[i]);
+		}
+		return hash;
+	}
+
+	public LCCC<R> singleTermLinearCombo(CannedCobordism mor, R r) {
+		return LCCCs.newInstance(mor, r);
+	}
+
+	public LCCC<R> fixedZeroLinearCombo() {
+		return new ZeroLCCC<R>();
+	}
+
+	public LCCC<R> flexibleZeroLinearCombo() {
+		return new LCCCArray<R>(modP, 1);
+	}
+
+	public LCCC<R> compact() {
+		if (size == 0)
+			return fixedZeroLinearCombo();
+		else
+			return this;
+	}
+
+	// the same format as LCCCMap
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		int serializationVersion = s.readInt();
+		if (serializationVersion == 1) {
+			int numberOfTerms = s.readInt();
+			terms = new CannedCobordism[Math.max(numberOfTerms, 1)];
+			coefficients = new long[terms.length];
+			for (int k = 0; k < numberOfTerms; ++k) {
+				R coefficient = (R) s.readObject();
+				CannedCobordism cc = (CannedCobordism) s.readObject();
+				modP = coefficient instanceof ModP;
+				add(cc, toLong(coefficient));
+			}
+		} else {
+			log.warn("Serialization version looks wrong...");
+			assert false;
+		}
+	}
+
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.writeInt(1); // serialization version
+		s.writeInt(size);
+		for (int i = 0; i < size; ++i) {
+			s.writeObject(toRing(coefficients[i]));
+			s.writeObject(terms[i]);
+		}
+	}
+
+}
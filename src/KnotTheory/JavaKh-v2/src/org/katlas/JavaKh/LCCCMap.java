@@ -174,15 +174,26 @@ public class LCCCMap<R extends Ring<R>> extends LinearComboMap<R, Cap, CannedCob
       return this;
     }
 
-    LCCC<R> ret = new LCCCMap<R>();
-    for (CannedCobordism icc : coefficients.keySet()) {
+    LCCC<R> ret = reduce(this, new LCCCMap<R>());
+    if (ret instanceof LCCCMap) {
+      ((LCCCMap<R>) ret).alreadyReduced = true;
+    }
+    //		else if (ret instanceof SingleTermLCCC) {
+    //			((SingleTermLCCC<R>) ret).alreadyReduced = true;
+    //		}
+    return ret;
+  }
+
+  // adds the reduction of each term of lc to ret; LCCCArray shares this
+  static <R extends Ring<R>> LCCC<R> reduce(LCCC<R> lc, LCCC<R> ret) {
+    for (CannedCobordism icc : lc.terms()) {
 
       if (!(icc instanceof CannedCobordismImpl)) {
         throw new UnsupportedOperationException();
       }
       CannedCobordismImpl cc = (CannedCobordismImpl) icc;
 
-      R num = coefficients.get(cc);
+      R num = lc.getCoefficient(cc);
       cc.reverseMaps();
       byte dots[] = new byte[cc.nbc];
       byte genus[] = CannedCobordismImpl.zeros[cc.nbc];
@@ -240,7 +251,7 @@ public class LCCCMap<R extends Ring<R>> extends LinearComboMap<R, Cap, CannedCob
       }
       byte connectedComponent[] = CannedCobordismImpl.counting[cc.nbc];
       for (int i = 0; i < neckCutting.length; i++) {
-        CannedCobordismImpl newcc = new CannedCobordismImpl(source(), target());
+        CannedCobordismImpl newcc = new CannedCobordismImpl(lc.source(), lc.target());
         // IMPORTANT!!! in order for them to safely share arrays
         // CannedCobordisms must be treated as immutable
         newcc.connectedComponent = connectedComponent;
@@ -251,14 +262,7 @@ public class LCCCMap<R extends Ring<R>> extends LinearComboMap<R, Cap, CannedCob
       }
     }
 
-    ret = ret == null ? null : ret.compact();
-    if (ret instanceof LCCCMap) {
-      ((LCCCMap<R>) ret).alreadyReduced = true;
-    }
-    //		else if (ret instanceof SingleTermLCCC) {
-    //			((SingleTermLCCC<R>) ret).alreadyReduced = true;
-    //		}
-    return ret;
+    return ret == null ? null : ret.compact();
   }
 
   public LCCC<R> reduceWithH() {
@@ -269,17 +273,27 @@ public class LCCCMap<R extends Ring<R>> extends LinearComboMap<R, Cap, CannedCob
       return this;
     }
 
+    LCCC<R> ret = reduceWithH(this, new LCCCMap<R>());
+    if (ret instanceof LCCCMap) {
+      ((LCCCMap<R>) ret).alreadyReduced = true;
+    }
+    //		else if (ret instanceof SingleTermLCCC) {
+    //			((SingleTermLCCC<R>) ret).alreadyReduced = true;
+    //		}
+    return ret;
+  }
+
+  static <R extends Ring<R>> LCCC<R> reduceWithH(LCCC<R> lc, LCCC<R> ret) {
     Rings<R> ring = Rings.current();
 
-    LCCC<R> ret = new LCCCMap<R>();
-    for (CannedCobordism icc : terms()) {
+    for (CannedCobordism icc : lc.terms()) {
 
       if (!(icc instanceof CannedCobordismImpl)) {
         throw new UnsupportedOperationException();
       }
       CannedCobordismImpl cc = (CannedCobordismImpl) icc;
 
-      R num = coefficients.get(cc);
+      R num = lc.getCoefficient(cc);
       cc.reverseMaps();
       byte dots[] = new byte[cc.nbc];
       int hpow = cc.hpower;
@@ -390,7 +404,7 @@ public class LCCCMap<R extends Ring<R>> extends LinearComboMap<R, Cap, CannedCob
         nCnum = newnum;
       }
       for (int i = 0; i < nCdots.length; i++) {
-        CannedCobordismImpl newcc = new CannedCobordismImpl(source(), target());
+        CannedCobordismImpl newcc = new CannedCobordismImpl(lc.source(), lc.target());
         newcc.connectedComponent = CannedCobordismImpl.counting[newcc.nbc];
         newcc.ncc = newcc.nbc;
         newcc.genus = CannedCobordismImpl.zeros[cc.nbc];
@@ -400,35 +414,31 @@ public class LCCCMap<R extends Ring<R>> extends LinearComboMap<R, Cap, CannedCob
       }
     }
 
-    ret = ret.compact();
-    if (ret instanceof LCCCMap) {
-      ((LCCCMap<R>) ret).alreadyReduced = true;
-    }
-    //		else if (ret instanceof SingleTermLCCC) {
-    //			((SingleTermLCCC<R>) ret).alreadyReduced = true;
-    //		}
-    return ret;
+    return ret.compact();
   }
 
   public LCCC<R> finalizeH() {
     if (numberOfTerms() == 0)
       return null;
-    assert source().n == 2 && source().ncycles == 0 && target().n == 2 && target().ncycles == 0;
-    LCCC<R> ret = new LCCCMap<R>();
-    CannedCobordismImpl cc = (CannedCobordismImpl) CannedCobordismImpl.isomorphism(source());
+    return finalizeH(this, new LCCCMap<R>());
+  }
+
+  static <R extends Ring<R>> LCCC<R> finalizeH(LCCC<R> lc, LCCC<R> ret) {
+    assert lc.source().n == 2 && lc.source().ncycles == 0 && lc.target().n == 2 && lc.target().ncycles == 0;
+    CannedCobordismImpl cc = (CannedCobordismImpl) CannedCobordismImpl.isomorphism(lc.source());
     boolean hset = false;
-    for (CannedCobordism iocc : coefficients.keySet()) {
+    for (CannedCobordism iocc : lc.terms()) {
       if (!(iocc instanceof CannedCobordismImpl)) {
         throw new UnsupportedOperationException();
       }
       CannedCobordismImpl occ = (CannedCobordismImpl) iocc;
 
-      if (!coefficients.get(occ).isZero()) {
+      if (!lc.getCoefficient(occ).isZero()) {
         if (!hset)
           cc.hpower = occ.hpower + occ.dots[0] + occ.genus[0];
         else if (cc.hpower != occ.hpower + occ.dots[0] + occ.genus[0])
           throw new AssertionError();
-        ret = ret.add(cc, coefficients.get(occ));
+        ret = ret.add(cc, lc.getCoefficient(occ));
       }
     }
     return ret.compact();
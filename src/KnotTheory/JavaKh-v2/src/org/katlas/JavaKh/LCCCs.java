@@ -0,0 +1,48 @@
+package org.katlas.JavaKh;
+
+import java.util.Map;
+
+import org.katlas.JavaKh.algebra.Ring;
+import org.katlas.JavaKh.algebra.rings.Rings;
+import org.katlas.JavaKh.interfaces.CannedCobordism;
+import org.katlas.JavaKh.interfaces.LCCC;
+
+/*
+ * Makes the linear combinations of cobordisms for the current ring: an
+ * LCCCArray over ModP and Int, whose coefficients fit in longs, and an
+ * LCCCMap over anything else.
+ */
+public class LCCCs {
+
+	private LCCCs() {
+	}
+
+	public static <R extends Ring<R>> LCCC<R> newInstance() {
+		if (LCCCArray.supports(Rings.current())) {
+			return new LCCCArray<R>();
+		} else {
+			return new LCCCMap<R>();
+		}
+	}
+
+	public static <R extends Ring<R>> LCCC<R> newInstance(CannedCobordism cc, R r) {
+		if (LCCCArray.supports(Rings.current()) && LCCCArray.fits(r)) {
+			return new LCCCArray<R>().add(cc, r);
+		} else {
+			return new LCCCMap<R>(cc, r);
+		}
+	}
+
+	public static <R extends Ring<R>> LCCC<R> newInstance(Map<CannedCobordism, R> terms) {
+		if (LCCCArray.supports(Rings.current())) {
+			LCCC<R> lc = new LCCCArray<R>();
+			for (Map.Entry<CannedCobordism, R> entry : terms.entrySet()) {
+				lc = lc.add(entry.getKey(), entry.getValue());
+			}
+			return lc;
+		} else {
+			return new LCCCMap<R>(terms);
+		}
+	}
+
+}
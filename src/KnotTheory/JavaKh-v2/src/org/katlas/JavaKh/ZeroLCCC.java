@@ -3,7 +3,6 @@ package org.katlas.JavaKh;
 import java.io.Serializable;
 
 import org.katlas.JavaKh.Cap;
-import org.katlas.JavaKh.LCCCMap;
 import org.katlas.JavaKh.algebra.Ring;
 import org.katlas.JavaKh.algebra.implementations.ZeroLinearCombo;
 import org.katlas.JavaKh.interfaces.CannedCobordism;
@@ -48,7 +47,7 @@ public class ZeroLCCC<R extends Ring<R>> extends
 
 	@Override
 	public LCCC<R> flexibleZeroLinearCombo() {
-		return new LCCCMap<R>();
+		return LCCCs.newInstance();
 	}
 
 	@Override
@@ -60,8 +59,7 @@ public class ZeroLCCC<R extends Ring<R>> extends
 		 */
 
 //		return new SingleTermLCCC<R>(mor, r);
-		LCCCMap<R> result = new LCCCMap<R>(mor, r);
-		return result;
+		return LCCCs.newInstance(mor, r);
 	}
 
 }
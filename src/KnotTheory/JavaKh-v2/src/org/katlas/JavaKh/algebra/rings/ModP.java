@@ -30,11 +30,24 @@ public class ModP implements Ring<ModP>, Serializable {
 		}
 	}
 
+	public static int getP() {
+		return p;
+	}
+
+	// the shared instance, so no ModP is made
+	public static ModP valueOf(int i) {
+		return values[mod(i)];
+	}
+
 	public ModP(int i) {
 		n = mod(i);
 	}
 
-	private int mod(int i) {
+	public int getN() {
+		return n;
+	}
+
+	private static int mod(int i) {
 		assert p != 0;
 		i = i % p;
 		if(i < 0) i+= p;
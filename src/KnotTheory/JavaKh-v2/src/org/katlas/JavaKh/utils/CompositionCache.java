@@ -0,0 +1,350 @@
+package org.katlas.JavaKh.utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.text.DecimalFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Remembers the results of compositions, keyed on the identities of the two
+ * things composed and, for horizontal compositions, on where they are joined.
+ * Since equal cobordisms are interned, the same pairs come round again and
+ * again, and a hit saves recomputing and reinterning the composition. The
+ * things composed must not change once they are in the cache.
+ *
+ * The things composed are only held weakly, so the cache doesn't keep them
+ * alive once they are flushed from the intern cache, and an entry is dropped
+ * as soon as either of them has been collected. The compositions are held
+ * strongly, so the cache is bounded by an estimate, in megabytes, of its keys
+ * and of the compositions as measured by a Weigher.
+ *
+ * It evicts by segmented LRU: a new entry starts on probation, and moves to
+ * the protected part when it is used again, so pairs which are only composed
+ * once don't push out the ones which keep coming back. The entries are spread
+ * over a number of segments, each with its own lock, as in HashCodeCache.
+ */
+public class CompositionCache<V> {
+
+  // a stored key with its two weak references, its map entry and a share of
+  // the table, on a 64 bit VM
+  static final int          KEY_BYTES       = 224;
+  private static final int  SEGMENT_BITS    = 4;
+  // the fraction, in eighths, of each segment which is protected
+  private static final int  PROTECTED_EIGHTHS = 6;
+
+  public interface Weigher<V> {
+    // an estimate of the bytes the cache keeps alive by holding value
+    int bytes(V value);
+  }
+
+  private final int         megabytes;
+  private final Weigher<? super V> weigher;
+  private final Segment<V>  segments[];
+  // the references to things composed which have been collected
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+
+  private final LongAdder   hits      = new LongAdder();
+  private final LongAdder   misses    = new LongAdder();
+  private final LongAdder   evictions = new LongAdder();
+
+  @SuppressWarnings("unchecked")
+  public CompositionCache(int megabytes, Weigher<? super V> weigher) {
+    this.megabytes = megabytes;
+    this.weigher = weigher;
+    segments = (Segment<V>[]) new Segment<?>[1 << SEGMENT_BITS];
+    long capacity = ((long) megabytes << 20) >> SEGMENT_BITS;
+    for (int i = 0; i < segments.length; ++i) {
+      segments[i] = new Segment<V>(capacity);
+    }
+  }
+
+  public boolean isEnabled() {
+    return megabytes > 0;
+  }
+
+  // the composition of first and second, or null if it isn't in the cache
+  public V get(Object first, Object second, int start, int cstart, int nc) {
+    Key key = new Probe(first, second, start, cstart, nc);
+    V result = segment(key).get(key);
+    if (result == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return result;
+  }
+
+  public void put(Object first, Object second, int start, int cstart, int nc, V composition) {
+    purge();
+    StoredKey key = new StoredKey(first, second, start, cstart, nc, collected);
+    int evicted = segment(key).put(key, composition, KEY_BYTES + weigher.bytes(composition));
+    if (evicted > 0) {
+      evictions.add(evicted);
+    }
+  }
+
+  // drops the entries whose cobordisms have been collected
+  private void purge() {
+    Reference<?> ref;
+    while ((ref = collected.poll()) != null) {
+      StoredKey key = ((Operand) ref).key;
+      segment(key).remove(key);
+    }
+  }
+
+  private Segment<V> segment(Key key) {
+    return segments[(key.hash * 0x9E3779B9) >>> (32 - SEGMENT_BITS)];
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<V> segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  // an estimate of the bytes held by the cache
+  public long bytes() {
+    long bytes = 0;
+    for (Segment<V> segment : segments) {
+      bytes += segment.bytes();
+    }
+    return bytes;
+  }
+
+  public void clear() {
+    for (Segment<V> segment : segments) {
+      segment.clear();
+    }
+    while (collected.poll() != null) {
+    }
+  }
+
+  public long getNumberOfChecks() {
+    return hits.sum() + misses.sum();
+  }
+
+  public long getNumberOfHits() {
+    return hits.sum();
+  }
+
+  public long getNumberOfEvictions() {
+    return evictions.sum();
+  }
+
+  public double getHitRate() {
+    long checks = getNumberOfChecks();
+    return checks == 0 ? 0 : (double) getNumberOfHits() / checks;
+  }
+
+  @Override
+  public String toString() {
+    DecimalFormat format = new DecimalFormat("###,###,###,###");
+    return format.format(getNumberOfHits()) + " hits in " + format.format(getNumberOfChecks()) + " lookups ("
+        + new DecimalFormat("0.0%").format(getHitRate()) + "), " + format.format(size()) + " entries of about "
+        + format.format(bytes() >> 10) + "KB, " + format.format(getNumberOfEvictions()) + " evicted, limit "
+        + megabytes + "MB";
+  }
+
+  private static abstract class Key {
+
+    private final int start, cstart, nc;
+    final int         hash;
+
+    Key(Object first, Object second, int start, int cstart, int nc) {
+      this.start = start;
+      this.cstart = cstart;
+      this.nc = nc;
+      hash = ((System.identityHashCode(first) * 31 + System.identityHashCode(second)) * 31 + start) * 961 + cstart * 31 + nc;
+    }
+
+    // null once it has been collected
+    abstract Object first();
+
+    abstract Object second();
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    // a key whose cobordisms have been collected is only equal to itself
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      Object first = first(), second = second();
+      return first != null && second != null && first == k.first() && second == k.second() && start == k.start
+          && cstart == k.cstart && nc == k.nc;
+    }
+
+  }
+
+  // the key a lookup is made with, which isn't kept
+  private static final class Probe extends Key {
+
+    private final Object first, second;
+
+    Probe(Object first, Object second, int start, int cstart, int nc) {
+      super(first, second, start, cstart, nc);
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    Object first() {
+      return first;
+    }
+
+    @Override
+    Object second() {
+      return second;
+    }
+
+  }
+
+  private static final class StoredKey extends Key {
+
+    private final Operand first, second;
+
+    StoredKey(Object first, Object second, int start, int cstart, int nc, ReferenceQueue<Object> collected) {
+      super(first, second, start, cstart, nc);
+      this.first = new Operand(first, this, collected);
+      this.second = new Operand(second, this, collected);
+    }
+
+    @Override
+    Object first() {
+      return first.get();
+    }
+
+    @Override
+    Object second() {
+      return second.get();
+    }
+
+  }
+
+  private static final class Operand extends WeakReference<Object> {
+
+    final StoredKey key;
+
+    Operand(Object operand, StoredKey key, ReferenceQueue<Object> collected) {
+      super(operand, collected);
+      this.key = key;
+    }
+
+  }
+
+  private static final class Entry<V> {
+
+    final StoredKey key;
+    final V         value;
+    final int       bytes;
+
+    Entry(StoredKey key, V value, int bytes) {
+      this.key = key;
+      this.value = value;
+      this.bytes = bytes;
+    }
+
+  }
+
+  private static final class Segment<V> {
+
+    private final long capacity, protectedCapacity;
+    private long       bytes, protectedBytes;
+    // both in order of last use, least recent first
+    private final LinkedHashMap<Key, Entry<V>> probation = new LinkedHashMap<Key, Entry<V>>(16, 0.75f, true);
+    private final LinkedHashMap<Key, Entry<V>> protectedEntries = new LinkedHashMap<Key, Entry<V>>(16, 0.75f, true);
+
+    Segment(long capacity) {
+      this.capacity = capacity;
+      this.protectedCapacity = capacity / 8 * PROTECTED_EIGHTHS;
+    }
+
+    synchronized V get(Key key) {
+      Entry<V> entry = protectedEntries.get(key);
+      if (entry != null) {
+        return entry.value;
+      }
+      entry = probation.remove(key);
+      if (entry == null) {
+        return null;
+      }
+      // used again, so it is protected, and the least recently used
+      // protected entries go back on probation
+      protectedEntries.put(entry.key, entry);
+      protectedBytes += entry.bytes;
+      while (protectedBytes > protectedCapacity) {
+        Iterator<Entry<V>> eldest = protectedEntries.values().iterator();
+        Entry<V> demoted = eldest.next();
+        eldest.remove();
+        protectedBytes -= demoted.bytes;
+        probation.put(demoted.key, demoted);
+      }
+      return entry.value;
+    }
+
+    // returns the number of entries which had to be evicted
+    synchronized int put(StoredKey key, V value, int size) {
+      if (size > capacity || protectedEntries.containsKey(key) || probation.containsKey(key)) {
+        return 0;
+      }
+      probation.put(key, new Entry<V>(key, value, size));
+      bytes += size;
+      int evicted = 0;
+      while (bytes > capacity) {
+        Map<Key, Entry<V>> from = probation.isEmpty() ? protectedEntries : probation;
+        Iterator<Entry<V>> eldest = from.values().iterator();
+        Entry<V> entry = eldest.next();
+        eldest.remove();
+        bytes -= entry.bytes;
+        if (from == protectedEntries) {
+          protectedBytes -= entry.bytes;
+        }
+        ++evicted;
+      }
+      return evicted;
+    }
+
+    synchronized void remove(StoredKey key) {
+      Entry<V> entry = probation.remove(key);
+      if (entry == null) {
+        entry = protectedEntries.remove(key);
+        if (entry == null) {
+          return;
+        }
+        protectedBytes -= entry.bytes;
+      }
+      bytes -= entry.bytes;
+    }
+
+    synchronized int size() {
+      return probation.size() + protectedEntries.size();
+    }
+
+    synchronized long bytes() {
+      return bytes;
+    }
+
+    synchronized void clear() {
+      probation.clear();
+      protectedEntries.clear();
+      bytes = 0;
+      protectedBytes = 0;
+    }
+
+  }
+
+}
@@ -1,56 +1,146 @@
 package org.katlas.JavaKh.utils;
 
-import gnu.trove.THashSet;
 import gnu.trove.TObjectHashingStrategy;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 
-public class HashCodeCache<E> extends THashSet<E> implements Cache<E> {
+/*
+ * Interns objects, so that equal objects are shared. The objects are spread
+ * by hash code over a number of segments, each an open addressing table with
+ * its own lock, so threads which cache at the same time rarely wait for each
+ * other. The tables keep the hash code of each object, so an object is
+ * hashed once per lookup and only compared with objects of the same hash.
+ */
+public class HashCodeCache<E> implements Cache<E> {
 
-  private static final Log  log    = LogFactory.getLog(HashCodeCache.class);
+  private static final int  SEGMENT_BITS = segmentBits();
+  private static final int  INITIAL_CAPACITY = 16;
 
-  private transient long    hits   = 0;
-  private transient long    checks = 0;
+  private final TObjectHashingStrategy<E> strategy;
+  private final Segment     segments[] = new Segment[1 << SEGMENT_BITS];
+
+  private final LongAdder   hits   = new LongAdder();
+  private final LongAdder   misses = new LongAdder();
   
   public HashCodeCache() {
-    super();
+    this(null);
   }
   
   public HashCodeCache(TObjectHashingStrategy<E> strategy) {
-    super(strategy);
+    this.strategy = strategy;
+    for (int i = 0; i < segments.length; ++i) {
+      segments[i] = new Segment();
+    }
   }
   
+  // enough segments for four times the number of processors, and at least 16
+  private static int segmentBits() {
+    int bits = 4;
+    while ((1 << bits) < 4 * Runtime.getRuntime().availableProcessors()) {
+      ++bits;
+    }
+    return bits;
+  }
+
   @SuppressWarnings("unchecked")
-  public synchronized E cache(E e) {
-    ++checks;
-    
-    int i = index(e);
-    if(i == -1) {
-      add(e);
-      return e;
-    } else {
-      E result = (E) _set[i];
-      if(e != result && !_hashingStrategy.equals(e, result)) {
-        if (_hashingStrategy.computeHashCode(result) != _hashingStrategy.computeHashCode(e)) {
-          log.info("Hashcode has mysteriously changed?");
+  public E cache(E e) {
+    int hash = (strategy == null) ? e.hashCode() : strategy.computeHashCode(e);
+    // the top bits of the mixed hash pick the segment, the next ones the slot
+    int mixed = hash * 0x9E3779B9;
+    Segment segment = segments[mixed >>> (32 - SEGMENT_BITS)];
+    mixed <<= SEGMENT_BITS;
+
+    synchronized (segment) {
+      Object elements[] = segment.elements;
+      int hashes[] = segment.hashes;
+      int mask = elements.length - 1;
+      int i = mixed >>> segment.shift;
+      for (Object element = elements[i]; element != null; element = elements[i]) {
+        if (hashes[i] == hash && (element == e || equal(e, (E) element))) {
+          hits.increment();
+          return (E) element;
         }
-        // hash collision...
-      } else {
-        ++hits;
-        return result;
+        i = (i + 1) & mask;
+      }
+
+      misses.increment();
+      e = prepare(e);
+      elements[i] = e;
+      hashes[i] = hash;
+      if (++segment.size > (elements.length >> 1) + (elements.length >> 2)) {
+        segment.grow();
       }
-      add(e);
       return e;
     }
   }
 
+  /*
+   * Called on an object which isn't in the cache yet, just before it is
+   * added, under the lock of its segment. The result must be equal to e.
+   */
+  protected E prepare(E e) {
+    return e;
+  }
+
+  private boolean equal(E e, E element) {
+    return (strategy == null) ? e.equals(element) : strategy.equals(e, element);
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        Arrays.fill(segment.elements, null);
+        segment.size = 0;
+      }
+    }
+  }
+
   public long getNumberOfChecks() {
-    return checks;
+    return hits.sum() + misses.sum();
   }
 
   public long getNumberOfHits() {
-    return hits;
+    return hits.sum();
+  }
+
+  private static class Segment {
+
+    Object elements[] = new Object[INITIAL_CAPACITY];
+    int    hashes[]   = new int[INITIAL_CAPACITY];
+    // slots are numbered by the top bits of the hash left after the segment bits
+    int    shift      = 32 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+    int    size;
+
+    void grow() {
+      Object oldElements[] = elements;
+      int oldHashes[] = hashes;
+      elements = new Object[oldElements.length << 1];
+      hashes = new int[elements.length];
+      --shift;
+      int mask = elements.length - 1;
+      for (int j = 0; j < oldElements.length; ++j) {
+        if (oldElements[j] != null) {
+          int i = ((oldHashes[j] * 0x9E3779B9) << SEGMENT_BITS) >>> shift;
+          while (elements[i] != null) {
+            i = (i + 1) & mask;
+          }
+          elements[i] = oldElements[j];
+          hashes[i] = oldHashes[j];
+        }
+      }
+    }
+
   }
 
 }
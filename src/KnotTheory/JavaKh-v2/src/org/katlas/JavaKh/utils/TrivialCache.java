@@ -1,11 +1,13 @@
 package org.katlas.JavaKh.utils;
 
+import java.util.concurrent.atomic.LongAdder;
+
 public class TrivialCache<E> implements Cache<E> {
 
-	private transient long checks = 0;
+	private final LongAdder checks = new LongAdder();
 	
 	public E cache(E e) {
-		++checks;
+		checks.increment();
 		return e;
 	}
 
@@ -21,7 +23,7 @@ public class TrivialCache<E> implements Cache<E> {
 	}
 
 	public long getNumberOfChecks() {
-		return checks;
+		return checks.sum();
 	}
 
 	
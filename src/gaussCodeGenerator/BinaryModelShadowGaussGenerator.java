@@ -1,6 +1,7 @@
 package gaussCodeGenerator;
 
 import java.util.*;
+import java.io.*;
 import static choco.Choco.*;
 import choco.cp.model.CPModel;
 import choco.kernel.model.Model;
@@ -39,7 +40,12 @@ public class BinaryModelShadowGaussGenerator
     private IntegerVariable[][] evenLetterTranspose;
 
     private String output = "";
-    private Set<List<Integer>> codes = null;
+    private PackedCodeSet codes = null;
+    private GaussCodeSink sink;
+    private GenerationProgress progress;
+    private GaussCodeCanonicalizer canonicalizer;
+    private PrimeDecomposition primes;
+    private DuallyPairedTest dp;
 
     private final int RANDOM = 0;
     private final int ALL = 1;
@@ -53,6 +59,70 @@ public class BinaryModelShadowGaussGenerator
     * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
     */
     public BinaryModelShadowGaussGenerator(int numOfCrossings, int option, boolean verbose)
+    {
+        this(numOfCrossings, option, verbose, new int[0]);
+    }
+
+    /**
+    * The constructor for BinaryModelShadowGaussGenerator objects which only searches codes starting with a given prefix.
+    * This is used to split the search between threads, see ParallelShadowGaussGenerator.
+    * @param numOfCrossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    */
+    public BinaryModelShadowGaussGenerator(int numOfCrossings, int option, boolean verbose, int[] prefix)
+    {
+        this(numOfCrossings, option, verbose, prefix, new SortedGaussCodeSink());
+
+        // the codes are kept in lexicographic order and reported before the solver information
+        output = sink.toString() + output;
+    }
+
+    /**
+    * The constructor for BinaryModelShadowGaussGenerator objects which passes each lex min code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  Duplicate codes are removed before they reach the sink.
+    * @param numOfCrossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    */
+    public BinaryModelShadowGaussGenerator(int numOfCrossings, int option, boolean verbose, int[] prefix, GaussCodeSink sink)
+    {
+        this(numOfCrossings, option, verbose, prefix, sink, false);
+    }
+
+    /**
+    * The constructor for BinaryModelShadowGaussGenerator objects which passes each lex min code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  Duplicate codes are removed before they reach the sink.
+    * The dually paired condition can also be checked during the search, rather than just on the complete codes.
+    * @param numOfCrossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    * @param propagate true to post a DuallyPairedConstraint, so that partial codes which cannot be dually paired are pruned during the search
+    */
+    public BinaryModelShadowGaussGenerator(int numOfCrossings, int option, boolean verbose, int[] prefix, GaussCodeSink sink, boolean propagate)
+    {
+        this(numOfCrossings, option, verbose, prefix, sink, propagate, null);
+    }
+
+    /**
+    * The constructor for BinaryModelShadowGaussGenerator objects which passes each lex min code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  Duplicate codes are removed before they reach the sink.
+    * The dually paired condition can also be checked during the search, rather than just on the complete codes.  The search stops
+    * early if the thread running it is interrupted.
+    * @param numOfCrossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    * @param propagate true to post a DuallyPairedConstraint, so that partial codes which cannot be dually paired are pruned during the search
+    * @param progress the listener which is told of the progress of the search after each solution, or null
+    */
+    public BinaryModelShadowGaussGenerator(int numOfCrossings, int option, boolean verbose, int[] prefix, GaussCodeSink sink, boolean propagate, GenerationProgress progress)
     {
     	crossings = numOfCrossings;
     	twiceCrossings = crossings * 2;
@@ -142,8 +212,20 @@ public class BinaryModelShadowGaussGenerator
             model.addConstraint(neq(letterTranspose[0][i], 1));
         }
 
+        // fix the first letters of the code, used when the search is split by prefix
+        for (int i = 0; i < prefix.length; i++)
+        {
+            model.addConstraint(eq(letter[i][prefix[i] - 1], 1));
+        }
+
     	solver.read(model);
 
+        // check the dually paired condition on partial codes as well as complete ones
+        if (propagate)
+        {
+            solver.post(new DuallyPairedConstraint(solver.getVar(flatLetter), crossings, true, solver.getEnvironment()));
+        }
+
         if (option == RANDOM || option == RANDOM_PRIME)
         {
             solver.setValIntSelector(new RandomIntValSelector());
@@ -152,26 +234,13 @@ public class BinaryModelShadowGaussGenerator
         // set flattLetter as the decision variables
         solver.setVarIntSelector(new StaticVarOrder(solver, solver.getVar(flatLetter)));
 
-        codes = new TreeSet<List<Integer>>(new Comparator<List<Integer>>() 
-        {
-            public int compare(List<Integer> l1, List<Integer> l2) 
-            {
-                int sz = l1.size();
-                for (int i=0; i<sz; i++) 
-                {
-                    if (l1.get(i) < l2.get(i)) 
-                    {
-                        return -1;
-                    }
-                    if (l1.get(i) > l2.get(i)) 
-                    {
-                        return 1;
-                    }
-                }
-                return 0;
-
-            }
-        });
+        // set up a compact set for removing duplicate lexicographically minimum Gauss codes
+        this.sink = sink;
+        this.progress = progress;
+        codes = new PackedCodeSet(numOfCrossings);
+        canonicalizer = new GaussCodeCanonicalizer(numOfCrossings);
+        primes = new PrimeDecomposition(numOfCrossings);
+        dp = new DuallyPairedTest(numOfCrossings);
 
         // print all solutions
 		if (solver.solve().booleanValue())
@@ -194,17 +263,14 @@ public class BinaryModelShadowGaussGenerator
 			    	}
     			}
 
-                gaussCode = lexRenumber(gaussCode, numOfCrossings);
 
-                DuallyPairedTest dp = new DuallyPairedTest(gaussCode);
-
-                if(dp.isDuallyPaired())
+                if(dp.isDuallyPaired(gaussCode))
                 {
                     if (option == RANDOM_PRIME || option == ALL_PRIME)
                     {
                         if (isPrime(gaussCode))
                         {
-                            codes.add(lexMinInClass(gaussCode, numOfCrossings));
+                            found(canonicalizer.canonicalForm(gaussCode));
 
                             // if we're generating just one random code we want to break after one if found
                             if (option == RANDOM_PRIME)
@@ -215,28 +281,35 @@ public class BinaryModelShadowGaussGenerator
                     }
                     else
                     {
-                        codes.add(lexMinInClass(gaussCode, numOfCrossings));
+                        found(canonicalizer.canonicalForm(gaussCode));
                         if (option == RANDOM)
                         {
                             break;
                         }
                     }
                 }
+
+                if (progress != null)
+                {
+                    progress.progress(numberOfSolutions(), solver.getNodeCount());
+                }
+
+                // stop if the generation has been cancelled
+                if (Thread.currentThread().isInterrupted())
+                {
+                    break;
+                }
             }
             while (solver.nextSolution().booleanValue());
         }
 
-        for (List<Integer> c : codes) 
-        {
-            output = output + codeToString(c) + "\n";
-        }
 
         if (verbose) 
         {   
             output = output + "feasible: " + solver.isFeasible() + "\n";
             output = output + "nbSol: " + solver.getNbSolutions() + "\n";
             output = output + "nodes: "+ solver.getNodeCount() +"   cpu: "+ solver.getTimeCount() + "\n";
-            output = output + "Solution count: " + codes.size() + "\n";
+            output = output + "Solution count: " + numberOfSolutions() + "\n";
         }
     }
 
@@ -251,40 +324,13 @@ public class BinaryModelShadowGaussGenerator
 
 
     /**
-    * Checks if a shadow Gauss code is prime.
+    * Checks if a shadow Gauss code is prime, that is no proper subword of it contains both occurrences of each of its letters.
     * @param gaussCode the shadow Gauss code expressed as an array of integers
     * @return boolean true if prime, false otherwise
     */
     public boolean isPrime(int[] gaussCode)
     {
-        //for each even subset, check that it contains more entries than half its length
-        //if a subset which contains the same number
-        for (int i = 0; i < gaussCode.length; i++)
-        {
-            for (int j = i; j < gaussCode.length; j++)
-            {
-                int gap = j - i;
-                // otherwise everything is false
-                if (!(gap == gaussCode.length) && (gap % 2 == 0) && (gap > 0))
-                {
-                    int[] temp = Arrays.copyOfRange(gaussCode, i, j);
-
-                    Set<Integer> tempSet = new TreeSet<Integer>();
-
-                    for (int k = 0; k < temp.length; k++)
-                    {
-                        tempSet.add(temp[k]);
-                    } 
-
-                    if (tempSet.size() == (temp.length / 2))
-                    {
-                        return false;
-                    }
-                }
-            }
-        }
-
-        return true;
+        return primes.isPrime(gaussCode);
     }
 
     /**
@@ -319,29 +365,8 @@ public class BinaryModelShadowGaussGenerator
     */
     public List<Integer> lexMinInClass(int[] gaussCode, int n) 
     {
-        int[] minInClass = gaussCode;
-        int[] reversedCode = reversed(gaussCode);
-    
-        if (lexLt(lexRenumber(reversedCode, n), gaussCode))
-        {
-            minInClass = lexRenumber(reversedCode, n);
-        }
-
-        for (int i=1; i<n*2; i++) 
-        {
-            int[] rotatedCode = lexRenumber(rotated(gaussCode, i), n); 
-            int[] rotatedReversedCode = lexRenumber(rotated(reversedCode, i), n);
-
-            if (lexLt(rotatedCode, minInClass)) 
-            {
-                minInClass = rotatedCode;
-            }
-
-            if (lexLt(rotatedReversedCode, minInClass)) 
-            {   
-                minInClass = rotatedReversedCode;
-            }
-        }
+        GaussCodeCanonicalizer c = (n == crossings) ? canonicalizer : new GaussCodeCanonicalizer(n);
+        int[] minInClass = c.canonicalForm(gaussCode);
 
         List<Integer> retval = new ArrayList<Integer>();
 
@@ -455,6 +480,27 @@ public class BinaryModelShadowGaussGenerator
         return codes.size();
     }
 
+    /**
+    * Passes a lex min Gauss code to the sink, unless it has been found before
+    * @param lexMin the lex min shadow Gauss code
+    */
+    private void found(int[] lexMin)
+    {
+        if (codes.add(lexMin))
+        {
+            sink.accept(lexMin);
+        }
+    }
+
+    /**
+    * Getter method for the solver, from which the search statistics can be read
+    * @return Solver the solver used for the search
+    */
+    public Solver getSolver()
+    {
+        return solver;
+    }
+
     /**
     * Prints a shadow Gauss code expressed as a list of integers
     * @param list a shadow Gauss code expressed as a list of integers
@@ -491,7 +537,11 @@ public class BinaryModelShadowGaussGenerator
                 + "\n   1 to generate all codes,"
                 + "\n   2 to generate a random prime codes,"
                 + "\n   3 to generate all prime codes."
-                + "\n \n<option2> is given as 'verbose' to include information about the solver, or omitted to leave this information out by defult \n");
+                + "\n \n<option2> is given as 'verbose' to include information about the solver, or omitted to leave this information out by defult"
+                + "\n \n'parallel' may also be given to split the generation of all codes between all available processors"
+                + "\n \n'propagate' may also be given to prune partial codes which cannot be dually paired during the search"
+                + "\n \n'checkpoint <file>' may also be given to write all codes to a file with periodic checkpoints,"
+                + "\n and '--resume' with it to carry on from the last checkpoint of that file \n");
         }
         else
         {
@@ -510,14 +560,67 @@ public class BinaryModelShadowGaussGenerator
                 opt = 3;
             }
 
-            if (args.length > 2)
+            boolean parallel = false;
+            boolean propagate = false;
+            boolean resume = false;
+            File checkpoint = null;
+
+            for (int i = 2; i < args.length; i++)
             {
-                v = true;
+                if (args[i].equals("parallel"))
+                {
+                    parallel = true;
+                }
+                else if (args[i].equals("checkpoint") && i + 1 < args.length)
+                {
+                    checkpoint = new File(args[++i]);
+                }
+                else if (args[i].equals("--resume"))
+                {
+                    resume = true;
+                }
+                else if (args[i].equals("propagate"))
+                {
+                    propagate = true;
+                }
+                else
+                {
+                    v = true;
+                }
+            }
+
+            // a long run of all codes writes them to a file, and can be carried on from its last checkpoint
+            if (checkpoint != null && (opt == 1 || opt == 3))
+            {
+                try
+                {
+                    System.out.println(new CheckpointedShadowGaussGenerator(crossings, opt, v, ParallelShadowGaussGenerator.BINARY_MODEL, propagate, checkpoint, resume).solutionToString());
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Unable to write the codes to " + checkpoint + ": " + e.getMessage());
+                    System.exit(1);
+                }
+                return;
             }
 
+            // each code is written out as soon as it is found, and the solver information after all of them
+            GaussCodeSink out = WriterGaussCodeSink.toStandardOut();
+            String info;
+
+            // only the generation of all codes is split between threads
+            if (parallel && (opt == 1 || opt == 3))
+            {
+                int threads = Runtime.getRuntime().availableProcessors();
+                info = new ParallelShadowGaussGenerator(crossings, opt, v, ParallelShadowGaussGenerator.BINARY_MODEL, threads, out, propagate).solutionToString();
+            }
+            else
+            {
+                info = new BinaryModelShadowGaussGenerator(crossings, opt, v, new int[0], out, propagate).solutionToString();
+            }
 
-            BinaryModelShadowGaussGenerator sGG = new BinaryModelShadowGaussGenerator(crossings, opt, v);
-            System.out.println(sGG.solutionToString());
+            out.close();
+            System.out.println(info);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,350 @@
+package gaussCodeGenerator;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import choco.kernel.solver.Solver;
+
+    /**
+    * <h1>A resumable driver for the constraint programming models for Gauss code generation</h1>
+    * The CheckpointedShadowGaussGenerator class generates all (prime) codes into a file in a way that can be stopped and
+    * carried on later, for runs at 13 or 14 crossings which take many hours.  The search space is split by fixing the
+    * first few letters of the code, as in ParallelShadowGaussGenerator, and the prefixes are solved one after another in
+    * lexicographic order, each by its own NaiveShadowGaussGenerator or BinaryModelShadowGaussGenerator.  Each new lex min
+    * code is appended to the output file as soon as it is found.
+    * <p>
+    * Every so often, between two prefixes, the output file is flushed to disk and a checkpoint is written next to it,
+    * recording the index of the next prefix to solve and the length of the output file at that point.  The checkpoint is
+    * written to a temporary file which is then moved over the old one, so a crash never leaves a half written checkpoint.
+    * On resuming, anything written to the output file after the last checkpoint is cut off, the codes already in the file
+    * are read back into the set used to remove duplicates, and the search carries on from the next prefix, so no code is
+    * written twice and none is lost.
+    * <p>
+    * It is used by the main methods of both generators when 'checkpoint' and a file are given on the command line, and
+    * '--resume' carries on from the last checkpoint of the same file.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class CheckpointedShadowGaussGenerator
+{
+    // the number of prefixes the search is split into, many more than the parallel driver so that little is lost in a crash
+    public static final int PREFIXES = 4096;
+
+    // the least time between two checkpoints, in milliseconds
+    public static final long CHECKPOINT_INTERVAL = 60000;
+
+    private int numOfCrossings;
+    private int option;
+    private int modelType;
+    private boolean propagate;
+    private String output = "";
+
+    private File outputFile;
+    private File checkpointFile;
+    private FileOutputStream stream;
+    private WriterGaussCodeSink writer;
+    private PackedCodeSet codes;
+
+    private int nextPrefix = 0;
+    private long nbSolutions = 0;
+    private long nodes = 0;
+    private long time = 0;
+
+    /**
+    * The constructor for CheckpointedShadowGaussGenerator objects, which checkpoints at most once a minute.
+    * @param crossings The number of crossings
+    * @param option option = 1 generates all codes, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports the search statistics summed over all prefixes as well
+    * @param modelType ParallelShadowGaussGenerator.NAIVE_MODEL or ParallelShadowGaussGenerator.BINARY_MODEL
+    * @param propagate true to post a DuallyPairedConstraint in the model of each prefix
+    * @param file the file the codes are written to, the checkpoint is kept in the same directory with '.checkpoint' added to its name
+    * @param resume true to carry on from the last checkpoint of the file, false to start again and replace the file
+    * @throws IOException if the output file or checkpoint can't be read or written
+    */
+    public CheckpointedShadowGaussGenerator(int crossings, int option, boolean verbose, int modelType, boolean propagate,
+        File file, boolean resume) throws IOException
+    {
+        this(crossings, option, verbose, modelType, propagate, file, resume, CHECKPOINT_INTERVAL);
+    }
+
+    /**
+    * The constructor for CheckpointedShadowGaussGenerator objects.
+    * @param crossings The number of crossings
+    * @param option option = 1 generates all codes, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports the search statistics summed over all prefixes as well
+    * @param modelType ParallelShadowGaussGenerator.NAIVE_MODEL or ParallelShadowGaussGenerator.BINARY_MODEL
+    * @param propagate true to post a DuallyPairedConstraint in the model of each prefix
+    * @param file the file the codes are written to, the checkpoint is kept in the same directory with '.checkpoint' added to its name
+    * @param resume true to carry on from the last checkpoint of the file, false to start again and replace the file
+    * @param interval the least time between two checkpoints in milliseconds, 0 to checkpoint after every prefix
+    * @throws IOException if the output file or checkpoint can't be read or written
+    */
+    public CheckpointedShadowGaussGenerator(int crossings, int option, boolean verbose, int modelType, boolean propagate,
+        File file, boolean resume, long interval) throws IOException
+    {
+        numOfCrossings = crossings;
+        this.option = option;
+        this.modelType = modelType;
+        this.propagate = propagate;
+
+        outputFile = file;
+        checkpointFile = new File(file.getPath() + ".checkpoint");
+        codes = new PackedCodeSet(numOfCrossings);
+
+        long resumedAt = 0;
+        boolean restored = resume && checkpointFile.exists();
+
+        if (restored)
+        {
+            resumedAt = restore();
+        }
+
+        stream = new FileOutputStream(outputFile, restored);
+        writer = new WriterGaussCodeSink(new OutputStreamWriter(stream), true);
+
+        List<int[]> prefixes = ParallelShadowGaussGenerator.prefixes(numOfCrossings, PREFIXES);
+        GaussCodeSink newCodes = new NewCodeSink();
+
+        long start = System.currentTimeMillis();
+        long lastCheckpoint = start;
+
+        boolean finished = false;
+
+        try
+        {
+            while (nextPrefix < prefixes.size())
+            {
+                Solver solver;
+
+                if (modelType == ParallelShadowGaussGenerator.BINARY_MODEL)
+                {
+                    solver = new BinaryModelShadowGaussGenerator(numOfCrossings, option, false, prefixes.get(nextPrefix), newCodes, propagate).getSolver();
+                }
+                else
+                {
+                    solver = new NaiveShadowGaussGenerator(numOfCrossings, option, false, prefixes.get(nextPrefix), newCodes, propagate).getSolver();
+                }
+
+                nbSolutions += solver.getNbSolutions();
+                nodes += solver.getNodeCount();
+                nextPrefix++;
+
+                long now = System.currentTimeMillis();
+                if (now - lastCheckpoint >= interval || nextPrefix == prefixes.size())
+                {
+                    time += now - start;
+                    start = now;
+                    checkpoint();
+                    lastCheckpoint = now;
+                }
+            }
+
+            finished = true;
+        }
+        finally
+        {
+            try
+            {
+                writer.close();
+            }
+            catch (UncheckedIOException e)
+            {
+                // a failure while solving is the one reported, the close failing with it is expected
+                if (finished)
+                {
+                    throw new IOException("the codes couldn't be written to " + outputFile, e.getCause());
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        if (verbose)
+        {
+            if (resumedAt > 0)
+            {
+                sb.append("resumed at prefix: " + resumedAt + "\n");
+            }
+
+            sb.append("feasible: " + (codes.size() > 0) + "\n");
+            sb.append("nbSol: " + nbSolutions + "\n");
+            sb.append("nodes: " + nodes + "   cpu: " + time + "\n");
+            sb.append("prefixes: " + prefixes.size() + "\n");
+            sb.append("Solution count: " + codes.size() + "\n");
+        }
+
+        output = sb.toString();
+    }
+
+    /**
+    * Getter method for the solution string.
+    * @return String the search statistics, the codes themselves are in the output file
+    */
+    public String solutionToString()
+    {
+        return output;
+    }
+
+    /**
+    * Returns the number of codes in the output file
+    * @return int the number of solutions found
+    */
+    public int numberOfSolutions()
+    {
+        return codes.size();
+    }
+
+    /**
+    * Flushes the codes written so far to disk, and then records the next prefix and the length of the output file.
+    * @throws IOException if the codes or the checkpoint can't be written
+    */
+    private void checkpoint() throws IOException
+    {
+        // the sink's PrintWriter hides write errors, so they're looked for before the offset is recorded
+        try
+        {
+            writer.flush();
+        }
+        catch (UncheckedIOException e)
+        {
+            throw new IOException("the codes couldn't be written to " + outputFile + ", no checkpoint was made", e.getCause());
+        }
+        stream.getFD().sync();
+
+        Properties p = new Properties();
+        p.setProperty("crossings", String.valueOf(numOfCrossings));
+        p.setProperty("option", String.valueOf(option));
+        p.setProperty("model", String.valueOf(modelType));
+        p.setProperty("propagate", String.valueOf(propagate));
+        p.setProperty("prefixes", String.valueOf(PREFIXES));
+        p.setProperty("next", String.valueOf(nextPrefix));
+        p.setProperty("offset", String.valueOf(outputFile.length()));
+        p.setProperty("codes", String.valueOf(codes.size()));
+        p.setProperty("nbSol", String.valueOf(nbSolutions));
+        p.setProperty("nodes", String.valueOf(nodes));
+        p.setProperty("cpu", String.valueOf(time));
+
+        File temp = new File(checkpointFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+
+        try
+        {
+            p.store(out, "CheckpointedShadowGaussGenerator");
+            out.getFD().sync();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        Files.move(temp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+    * Reads the checkpoint, cuts the output file back to its length at the checkpoint, and reads the codes in it back into
+    * the set of codes found.
+    * @return long the index of the prefix the search carries on from
+    * @throws IOException if the checkpoint or output file can't be read, or the checkpoint is for a different run
+    */
+    private long restore() throws IOException
+    {
+        Properties p = new Properties();
+        InputStream in = new FileInputStream(checkpointFile);
+
+        try
+        {
+            p.load(in);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        if (Integer.parseInt(p.getProperty("crossings")) != numOfCrossings
+            || Integer.parseInt(p.getProperty("option")) != option
+            || Integer.parseInt(p.getProperty("model")) != modelType
+            || Integer.parseInt(p.getProperty("prefixes")) != PREFIXES)
+        {
+            throw new IOException("the checkpoint " + checkpointFile + " is for a different run: " + p);
+        }
+
+        nextPrefix = Integer.parseInt(p.getProperty("next"));
+        nbSolutions = Long.parseLong(p.getProperty("nbSol"));
+        nodes = Long.parseLong(p.getProperty("nodes"));
+        time = Long.parseLong(p.getProperty("cpu"));
+        long offset = Long.parseLong(p.getProperty("offset"));
+
+        // anything written after the checkpoint belongs to a prefix which is solved again
+        RandomAccessFile raf = new RandomAccessFile(outputFile, "rw");
+
+        try
+        {
+            if (raf.length() < offset)
+            {
+                throw new IOException("the output file " + outputFile + " is shorter than its checkpoint");
+            }
+
+            raf.setLength(offset);
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        BufferedReader reader = new BufferedReader(new FileReader(outputFile));
+        int[] gaussCode = new int[2 * numOfCrossings];
+
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] letters = line.split(",");
+                int k = 0;
+
+                for (String s : letters)
+                {
+                    s = s.trim();
+                    if (!s.isEmpty())
+                    {
+                        gaussCode[k++] = Integer.parseInt(s);
+                    }
+                }
+
+                if (k == gaussCode.length)
+                {
+                    codes.add(gaussCode);
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        if (codes.size() != Integer.parseInt(p.getProperty("codes")))
+        {
+            throw new IOException("the output file " + outputFile + " does not hold the " + p.getProperty("codes") + " codes of its checkpoint");
+        }
+
+        return nextPrefix;
+    }
+
+    // passes on each code which has not been found for an earlier prefix, as different prefixes can give the same lex min code
+    private class NewCodeSink implements GaussCodeSink
+    {
+        public void accept(int[] gaussCode)
+        {
+            if (codes.add(gaussCode))
+            {
+                writer.accept(gaussCode);
+            }
+        }
+
+        public void close()
+        {
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package gaussCodeGenerator;
 
 import java.util.*;
-    
+
     /**
     * <h1>An implementation of Kauffman's dually paired condition on shadow Gauss codes</h1>
     * The DuallyPairTest class contains methods to create w* for a Gauss code w and the conflicts graph fo w*.
     * It then uses an implemention of a bipartite graph checking algorithm to determine is the conflicts graph
     * of w* is bipartite.  If the conflicts graph ic bipartite then w* is dually paired.
+    * <p>
+    * The positions of the letters are found in one pass and kept up to date as w* is built, the conflicts graph is kept
+    * as one bitset of neighbours per letter, and it is 2-coloured with a union-find structure which keeps the parity of
+    * each letter relative to its root.  A test created with the number of crossings can be reused for any number of
+    * codes through isDuallyPaired(int[]) without allocating.
     *
     * @author  Craig Reilly
     * @version 0.1
@@ -15,7 +20,17 @@ import java.util.*;
 
 public class DuallyPairedTest
 {
-	private int[] gCode;
+	private int size; // the number of letters
+	private int words; // the number of longs in each bitset
+
+	private int[] gCode; // the w* construction of the code
+	private int[] first; // first[k] is the position of the first occurrence of letter k in gCode
+	private int[] second; // second[k] is the position of the second occurrence of letter k in gCode
+	private long[][] graph; // graph[k] is the set of letters in conflict with letter k, as a bitset
+	private long[] between; // the letters which appear once between the occurrences of a letter, as a bitset
+	private int[] parent; // union-find with parity over the letters
+	private int[] parity; // parity[k] is the colour of letter k relative to parent[k]
+	private int rootParity; // the parity found by the last call to find
 
 	/**
     * The constructor for DuallyPairedTest objects.  Thw w* construction is applied withing the constructor
@@ -23,18 +38,36 @@ public class DuallyPairedTest
     */
 	public DuallyPairedTest(int[] g)
 	{
-		gCode = new int[g.length];
+		this(g.length / 2);
 
 		for (int i = 0; i < gCode.length; i++)
 		{
 			gCode[i] = g[i];
 		}
 
-		gCode = gcStar(gCode);
+		gcStar(gCode);
 	}
 
 	/**
-    * Takes a Gauss code w and returns its w* construction
+    * The constructor for reusable DuallyPairedTest objects, which test codes passed to isDuallyPaired(int[]).
+    * @param crossings the number of crossings of the codes to be tested
+    */
+	public DuallyPairedTest(int crossings)
+	{
+		size = crossings;
+		words = (size + 64) / 64;
+
+		gCode = new int[2 * size];
+		first = new int[size + 1];
+		second = new int[size + 1];
+		graph = new long[size + 1][words];
+		between = new long[words];
+		parent = new int[size + 1];
+		parity = new int[size + 1];
+	}
+
+	/**
+    * Takes a Gauss code w and returns its w* construction.  The construction is done in place, so the array returned is gc.
     * @param gc a gaussCode expressed as an array of integers
     * @return the w* construction for the input Gauss code
     */
@@ -43,46 +76,33 @@ public class DuallyPairedTest
 		int[] star = gc;
 
 		// for each letter in gc, change the order of all other letters inbetween its occurences
-		// for example, 1, 2, 3, 1, 4, 3, 2, 4 becomes 1, 3, 2, 1, 4, 3, 2, 4 becomes 
+		// for example, 1, 2, 3, 1, 4, 3, 2, 4 becomes 1, 3, 2, 1, 4, 3, 2, 4 becomes
 		// 1, 3, 2, 3, 4, 1, 2, 4 becomes 1, 3, 4, 1, 2, 3, 2, 4 becomes 1, 3, 4, 2, 3, 2, 1, 4
 
-		int first = -1;
-		int second = -1;
-		Stack<Integer> stack = new Stack<Integer>();
+		findPositions(star);
 
 		// for each letter
 		for (int i = 1; i < star.length/2 + 1 ; i++)
-		{	
-			first = -1;
-			second = -1;
-			for (int j = 0; j < star.length; j++)
-			{
-				if (star[j] == i && first == -1)
-				{
-					first = j;
-				}
-				else if (star[j] == i && first != -1)
-				{
-					second = j;
-				}
-			}
-		
-			if (!(second - first == 1))
+		{
+			int start = first[i] + 1;
+			int end = second[i] - 1;
+
+			// reverse the letters between the occurrences of i, moving their positions with them
+			while (start < end)
 			{
-				int start = first + 1;
-				for (int j = start; j < second; j++)
-				{
-					stack.push(star[j]);
-				}
+				int a = star[start];
+				int b = star[end];
 
-				for (int j = start; j < second; j++)
-				{
-					star[j] = stack.pop();
-				}
-			}
+				star[start] = b;
+				star[end] = a;
+				move(a, start, end);
+				move(b, end, start);
 
-			stack.clear();
+				start++;
+				end--;
+			}
 		}
+
 		return star;
 	}
 
@@ -93,135 +113,173 @@ public class DuallyPairedTest
 	public boolean isDuallyPaired()
 	{
 		int[] star = this.gCode;
-		// set up the adj matrix
-		int size = star.length/2;
-		// if there's an arc between nodes i and j then graph[i][j] = 1, 0 otherwise
-		int[][] graph = new int[size][size];
-
-		int PINK = 1;
-		int BLUE = 0;
-		// colour[i] = 0 means blue, colour[i] = 1 means pink
-		int[] colour = new int[size];
-
-		//add the nodes of the graph to a list of not yet visited nodes, to be popped when visited
-		ArrayDeque<Integer> notVisited = new ArrayDeque<Integer>(size);
-		for (int i = 0 ; i < size; i++ ) 
-		{
-			//add i to the ith index, since we can't remove an int from an array list because java thinks we're giving it an index 
-			notVisited.push((Integer) i);
-		}
 
-		int first;
-		int second;
-		// clear all the colours
-		for (int i = 0; i < size; i++)
+		findPositions(star);
+
+		for (int i = 1; i < size + 1; i++)
 		{
-			colour[i] = -1;
+			parent[i] = i;
+			parity[i] = 0;
+
+			for (int w = 0; w < words; w++)
+			{
+				graph[i][w] = 0;
+			}
 		}
 
-		// set up the conflicts graph
+		// set up the conflicts graph, letter j is in conflict with letter i if it appears once between the occurrences of i
 		for (int i = 1; i < size + 1 ; i++)
-		{	
-			first = -1;
-			second = -1;
+		{
+			for (int w = 0; w < words; w++)
+			{
+				between[w] = 0;
+			}
 
-			// find the positions fo the first and second arrays
-			for (int j = 0; j < size*2; j++)
+			for (int j = first[i] + 1; j < second[i]; j++)
 			{
-				if (star[j] == i && first == -1)
-				{
-					first = j;
-				}
-				else if (star[j] == i && first != -1) //star[j] = i after we've set first
+				between[star[j] >>> 6] ^= 1L << (star[j] & 63);
+			}
+
+			for (int w = 0; w < words; w++)
+			{
+				graph[i][w] |= between[w];
+
+				long bits = between[w];
+				while (bits != 0)
 				{
-					second = j;
+					int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+					graph[j][i >>> 6] |= 1L << (i & 63);
+					bits &= bits - 1;
 				}
 			}
-			
-			if (!(second - first == 1))
+		}
+
+		// the graph is bipartite if every conflict can be given ends of different colours
+		for (int i = 1; i < size + 1; i++)
+		{
+			for (int w = (i + 1) >>> 6; w < words; w++)
 			{
-				int start = first + 1;
-				int appearancesBetweenLetter[] = new int[size];
+				long bits = graph[i][w];
 
-				// count the number of times each letter appears between first and second
-				for (int j = start; j < second; j++)
+				// only the neighbours greater than i, so each conflict is looked at once
+				if (w == (i + 1) >>> 6)
 				{
-					appearancesBetweenLetter[star[j] -1]++;
+					bits &= -1L << ((i + 1) & 63);
 				}
 
-				// finally we get round to setting up the adj matrix
-				for (int j = 0; j < size; j++)
+				while (bits != 0)
 				{
-					if (appearancesBetweenLetter[j] == 1)
+					int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+
+					if (!differentColours(i, j))
 					{
-						graph[i-1][j] = 1;
-						graph[j][i-1] = 1;
+						return false;
 					}
+
+					bits &= bits - 1;
 				}
 			}
 		}
 
-		//  uncomment to print the graph
-			// for (int i = 0; i < size; i++)
-			// {
-			// 	for (int j = 0; j < size; j++)
-			// 	{
-			// 		System.out.print(graph[i][j] + " ");
-			// 	}
-			// 	System.out.println();
-			// }
-
-		// just start from [0][0]
-		colour[0] = 0;
-
-		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		return true;
+	}
 
-		queue.add(0);
+	/**
+    * Determines if a Gauss code is dually paired, reusing the space of this test.  The code is not changed.
+    * @param g a gaussCode expressed as an array of integers, with as many crossings as this test was created for
+    * @return true if the w* construction of the code is dually paired, false if not
+    */
+	public boolean isDuallyPaired(int[] g)
+	{
+		System.arraycopy(g, 0, gCode, 0, gCode.length);
+		gcStar(gCode);
+		return isDuallyPaired();
+	}
 
-		int index = 0;
+	// finds the positions of both occurrences of each letter in one pass
+	private void findPositions(int[] star)
+	{
+		for (int i = 1; i < size + 1; i++)
+		{
+			first[i] = -1;
+		}
 
-		//while the queue isn't empty and all nodes haven't been visited
-		while (queue.peek() != null || !notVisited.isEmpty())
+		for (int j = 0; j < star.length; j++)
 		{
-			//take things from notVisited if the queue becomes empty before all nodes have been visited
-			if (queue.peek() == null)
+			if (first[star[j]] == -1)
+			{
+				first[star[j]] = j;
+			}
+			else
 			{
-				queue.add(notVisited.removeFirst());
+				second[star[j]] = j;
 			}
-			Integer u = queue.removeFirst();
+		}
+	}
 
-			notVisited.remove(u);
+	// records that the occurrence of letter at position from is now at position to
+	private void move(int letter, int from, int to)
+	{
+		if (first[letter] == from)
+		{
+			first[letter] = to;
+		}
+		else
+		{
+			second[letter] = to;
+		}
+
+		// keep the occurrences in order
+		if (first[letter] > second[letter])
+		{
+			int temp = first[letter];
+			first[letter] = second[letter];
+			second[letter] = temp;
+		}
+	}
 
+	// requires i and j to have different colours, returning false if they are already known to have the same colour
+	private boolean differentColours(int i, int j)
+	{
+		int ri = find(i);
+		int pi = rootParity;
+		int rj = find(j);
+		int pj = rootParity;
 
-			for (int j = 0; j < size; j++)
-			{
-				// if u is in conflict with j and j is uncoloured
-				if (graph[u][j] == 1 && colour[j] == -1)
-				{
-					// give j the opposite colour to u
-					if (colour[u] == 0)
-					{
-						colour[j] = 1;
-						queue.add(j);
-					}
-					else if (colour[u] == 1)
-					{
-						colour[j] = 0;
-						queue.add(j);
-					}
-					else //we get in here if the opening choice isn't connected
-					{
-						colour[j] = 0;
-					}
-				} // if u and j have the same colour
-				else if (graph[u][j] == 1 && colour[j] == colour[u])
-				{
-					return false;
-				}
-			}
+		if (ri == rj)
+		{
+			return pi != pj;
 		}
 
+		parent[ri] = rj;
+		parity[ri] = pi ^ pj ^ 1;
 		return true;
+	}
+
+	// finds the root of k and leaves the parity of k relative to it in rootParity, pointing every letter on the way at the root
+	private int find(int k)
+	{
+		int root = k;
+		int p = 0;
+		while (parent[root] != root)
+		{
+			p ^= parity[root];
+			root = parent[root];
+		}
+
+		int node = k;
+		int pNode = p;
+		while (parent[node] != node)
+		{
+			int next = parent[node];
+			int pNext = pNode ^ parity[node];
+			parent[node] = root;
+			parity[node] = pNode;
+			node = next;
+			pNode = pNext;
+		}
 
+		rootParity = p;
+		return root;
 	}
 }
@@ -0,0 +1,34 @@
+package gaussCodeGenerator;
+
+import java.io.*;
+
+    /**
+    * <h1>A GaussCodeSink which writes each code to a file</h1>
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class FileGaussCodeSink extends WriterGaussCodeSink
+{
+    /**
+    * The constructor for FileGaussCodeSink objects.  Any existing contents of the file are replaced.
+    * @param file the file the codes are written to
+    * @throws IOException if the file can't be opened for writing
+    */
+    public FileGaussCodeSink(File file) throws IOException
+    {
+        this(file, false);
+    }
+
+    /**
+    * The constructor for FileGaussCodeSink objects.
+    * @param file the file the codes are written to
+    * @param append true if the codes are added to the end of the file, false if the file is replaced
+    * @throws IOException if the file can't be opened for writing
+    */
+    public FileGaussCodeSink(File file, boolean append) throws IOException
+    {
+        super(new FileWriter(file, append), true);
+    }
+}
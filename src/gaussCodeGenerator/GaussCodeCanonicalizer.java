@@ -0,0 +1,282 @@
+package gaussCodeGenerator;
+
+import java.util.Arrays;
+
+    /**
+    * <h1>Canonical forms of shadow Gauss codes</h1>
+    * The GaussCodeCanonicalizer class finds the lexicographically minimum representative of the equivalence class of a
+    * shadow Gauss code, that is the least renumbered code over every rotation and reflection of the code.  This is the
+    * same code as lexMinInClass in the generators, but no rotated or reversed copies of the code are made.  Each reading
+    * of the code is renumbered as it is compared against the least reading so far, and the comparison stops at the first
+    * letter which is greater.  All the scratch space is allocated once, so a canonicalizer should be kept and reused for
+    * every code of a run.
+    * <p>
+    * A canonicalizer is not thread safe, each thread should have its own.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class GaussCodeCanonicalizer
+{
+    private int numOfCrossings;
+    private int length;
+
+    private int[] best; // the least renumbered reading found so far
+    private int[] renumbered; // renumbered[k] is the new number of letter k in the current reading
+    private int[] stamp; // renumbered[k] is only valid if stamp[k] == currentStamp
+    private int currentStamp = 0;
+
+    /**
+    * The constructor for GaussCodeCanonicalizer objects.
+    * @param crossings the number of crossings of the codes, each code has length 2 * crossings and letters in [1, crossings]
+    */
+    public GaussCodeCanonicalizer(int crossings)
+    {
+        numOfCrossings = crossings;
+        length = 2 * crossings;
+        best = new int[length];
+        renumbered = new int[numOfCrossings + 1];
+        stamp = new int[numOfCrossings + 1];
+    }
+
+    /**
+    * Finds the lexicographically minimum representative of the class of a shadow Gauss code.  The array returned is
+    * reused by the next call, so it should be copied if it is to be kept.
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return int[] the lex min shadow Gauss code
+    */
+    public int[] canonicalForm(int[] gaussCode)
+    {
+        // the code itself, renumbered, is the first candidate
+        nextStamp();
+        int next = 0;
+
+        for (int i = 0; i < length; i++)
+        {
+            int letter = gaussCode[i];
+
+            if (stamp[letter] != currentStamp)
+            {
+                stamp[letter] = currentStamp;
+                renumbered[letter] = ++next;
+            }
+
+            best[i] = renumbered[letter];
+        }
+
+        for (int s = 0; s < length; s++)
+        {
+            if (s > 0)
+            {
+                improve(gaussCode, s, 1);
+            }
+
+            improve(gaussCode, s, -1);
+        }
+
+        return best;
+    }
+
+    /**
+    * Finds the lexicographically minimum representative of the class of a shadow Gauss code, in a new array.
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return int[] the lex min shadow Gauss code
+    */
+    public int[] canonicalCopy(int[] gaussCode)
+    {
+        return canonicalForm(gaussCode).clone();
+    }
+
+    /**
+    * Counts the readings of a shadow Gauss code, over every starting position and both directions, which renumber to its
+    * lex min representative.  This is the order of the symmetry group of the code, between 1 and 2 * length.
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return int the number of readings of the code which give its lex min representative
+    */
+    public int symmetryCount(int[] gaussCode)
+    {
+        canonicalForm(gaussCode);
+        int count = 0;
+
+        for (int s = 0; s < length; s++)
+        {
+            if (matchesBest(gaussCode, s, 1))
+            {
+                count++;
+            }
+
+            if (matchesBest(gaussCode, s, -1))
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+    * Checks if a shadow Gauss code is already the lexicographically minimum representative of its class.
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return boolean true if no rotation or reflection of the code is less than it, false otherwise
+    */
+    public boolean isCanonical(int[] gaussCode)
+    {
+        for (int s = 0; s < length; s++)
+        {
+            if (s > 0 && compareReading(gaussCode, s, 1, length) < 0)
+            {
+                return false;
+            }
+
+            if (compareReading(gaussCode, s, -1, length) < 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+    * Compares the renumbered reading of a code from a given position against the code itself, letter by letter, stopping
+    * at the first difference.  The reading wraps around the end of the code.  The code itself is not renumbered, so for
+    * a meaningful result it should already be renumbered, or be a prefix of a renumbered code.
+    * @param gaussCode a shadow Gauss code, or the first letters of one, expressed as an array of integers
+    * @param start the position at which the reading starts
+    * @param step 1 to read forwards, -1 to read backwards
+    * @param span the number of letters to compare
+    * @return int negative if the reading is lexicographically less, zero if equal, positive if greater
+    */
+    public int compareReading(int[] gaussCode, int start, int step, int span)
+    {
+        nextStamp();
+        int next = 0;
+        int pos = start;
+
+        for (int i = 0; i < span; i++)
+        {
+            int letter = gaussCode[pos];
+
+            if (stamp[letter] != currentStamp)
+            {
+                stamp[letter] = currentStamp;
+                renumbered[letter] = ++next;
+            }
+
+            int diff = renumbered[letter] - gaussCode[i];
+
+            if (diff != 0)
+            {
+                return diff;
+            }
+
+            pos = advance(pos, step);
+        }
+
+        return 0;
+    }
+
+    /**
+    * Renumbers the reading of the code from the given position, and replaces the least reading so far with it if it is less.
+    * The reading is abandoned as soon as one of its letters is greater than that of the least reading.
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @param start the position at which the reading starts
+    * @param step 1 to read forwards, -1 to read backwards
+    */
+    private void improve(int[] gaussCode, int start, int step)
+    {
+        nextStamp();
+        int next = 0;
+        int pos = start;
+        boolean less = false;
+
+        for (int i = 0; i < length; i++)
+        {
+            int letter = gaussCode[pos];
+
+            if (stamp[letter] != currentStamp)
+            {
+                stamp[letter] = currentStamp;
+                renumbered[letter] = ++next;
+            }
+
+            int r = renumbered[letter];
+
+            if (!less)
+            {
+                if (r > best[i])
+                {
+                    return;
+                }
+
+                less = (r < best[i]);
+            }
+
+            // once the reading is known to be less the rest of it is copied over the least reading
+            if (less)
+            {
+                best[i] = r;
+            }
+
+            pos = advance(pos, step);
+        }
+    }
+
+    // checks if the renumbered reading of the code from the given position is the least reading found
+    private boolean matchesBest(int[] gaussCode, int start, int step)
+    {
+        nextStamp();
+        int next = 0;
+        int pos = start;
+
+        for (int i = 0; i < length; i++)
+        {
+            int letter = gaussCode[pos];
+
+            if (stamp[letter] != currentStamp)
+            {
+                stamp[letter] = currentStamp;
+                renumbered[letter] = ++next;
+            }
+
+            if (renumbered[letter] != best[i])
+            {
+                return false;
+            }
+
+            pos = advance(pos, step);
+        }
+
+        return true;
+    }
+
+    private int advance(int pos, int step)
+    {
+        pos += step;
+
+        if (pos == length)
+        {
+            return 0;
+        }
+
+        if (pos < 0)
+        {
+            return length - 1;
+        }
+
+        return pos;
+    }
+
+    // moves on to a fresh stamp, so that every letter of the next reading is renumbered again
+    private void nextStamp()
+    {
+        if (currentStamp == Integer.MAX_VALUE)
+        {
+            Arrays.fill(stamp, 0);
+            currentStamp = 0;
+        }
+
+        currentStamp++;
+    }
+}
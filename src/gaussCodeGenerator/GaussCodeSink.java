@@ -0,0 +1,21 @@
+package gaussCodeGenerator;
+
+    /**
+    * <h1>An interface setting the contract for a consumer of generated Gauss codes</h1>
+    *
+    * The generators pass each lex min shadow Gauss code to a GaussCodeSink as soon as it is found, rather than collecting
+    * all of them before reporting them.  Each code is passed once, and is not changed after it has been passed, but
+    * the array passed may be reused by the generator, so a sink which keeps codes must copy them.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public interface GaussCodeSink
+{
+	public void accept(int[] gaussCode);
+	// Receive one lex min shadow Gauss code
+
+	public void close();
+	// Called once the generation is finished, no more codes will be received
+}
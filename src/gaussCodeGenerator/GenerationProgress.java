@@ -0,0 +1,22 @@
+package gaussCodeGenerator;
+
+    /**
+    * <h1>An interface setting the contract for a listener to the progress of a generator</h1>
+    *
+    * The Choco generators report their progress after each solution of the search, before the search continues, so a
+    * long generation can be followed as it runs.  A generator running on a thread which has been interrupted stops
+    * after the next solution, so the listener is also the point at which a generation can be cancelled.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public interface GenerationProgress
+{
+	/**
+	* Receives the progress of the search after each solution
+	* @param codes the number of lex min codes passed to the sink so far
+	* @param nodes the number of nodes the search has explored
+	*/
+	public void progress(int codes, int nodes);
+}
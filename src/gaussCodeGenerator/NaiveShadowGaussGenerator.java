@@ -38,7 +38,12 @@ public class NaiveShadowGaussGenerator
     private final int RANDOM_PRIME = 2;  
     private final int ALL_PRIME = 3;
     private String output = "";
-    private Set<List<Integer>> codes;
+    private PackedCodeSet codes;
+    private GaussCodeSink sink;
+    private GenerationProgress progress;
+    private GaussCodeCanonicalizer canonicalizer;
+    private PrimeDecomposition primes;
+    private DuallyPairedTest dp;
 
     /**
     * The constructor for NaiveShadowGaussGenerator objects.
@@ -47,6 +52,70 @@ public class NaiveShadowGaussGenerator
     * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
     */
     public NaiveShadowGaussGenerator(int crossings, int option, boolean verbose)
+    {
+        this(crossings, option, verbose, new int[0]);
+    }
+
+    /**
+    * The constructor for NaiveShadowGaussGenerator objects which only searches codes starting with a given prefix.
+    * This is used to split the search between threads, see ParallelShadowGaussGenerator.
+    * @param crossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    */
+    public NaiveShadowGaussGenerator(int crossings, int option, boolean verbose, int[] prefix)
+    {
+        this(crossings, option, verbose, prefix, new SortedGaussCodeSink());
+
+        // the codes are kept in lexicographic order and reported before the solver information
+        output = sink.toString() + output;
+    }
+
+    /**
+    * The constructor for NaiveShadowGaussGenerator objects which passes each lex min code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  Duplicate codes are removed before they reach the sink.
+    * @param crossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    */
+    public NaiveShadowGaussGenerator(int crossings, int option, boolean verbose, int[] prefix, GaussCodeSink sink)
+    {
+        this(crossings, option, verbose, prefix, sink, false);
+    }
+
+    /**
+    * The constructor for NaiveShadowGaussGenerator objects which passes each lex min code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  Duplicate codes are removed before they reach the sink.
+    * The dually paired condition can also be checked during the search, rather than just on the complete codes.
+    * @param crossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    * @param propagate true to post a DuallyPairedConstraint, so that partial codes which cannot be dually paired are pruned during the search
+    */
+    public NaiveShadowGaussGenerator(int crossings, int option, boolean verbose, int[] prefix, GaussCodeSink sink, boolean propagate)
+    {
+        this(crossings, option, verbose, prefix, sink, propagate, null);
+    }
+
+    /**
+    * The constructor for NaiveShadowGaussGenerator objects which passes each lex min code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  Duplicate codes are removed before they reach the sink.
+    * The dually paired condition can also be checked during the search, rather than just on the complete codes.  The search stops
+    * early if the thread running it is interrupted.
+    * @param crossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes 
+    * @param verbose verbose = false reports success, nodes and run time in milliseconds, verbose = true reports this as well as the full solution
+    * @param prefix the first letters of every code searched
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    * @param propagate true to post a DuallyPairedConstraint, so that partial codes which cannot be dually paired are pruned during the search
+    * @param progress the listener which is told of the progress of the search after each solution, or null
+    */
+    public NaiveShadowGaussGenerator(int crossings, int option, boolean verbose, int[] prefix, GaussCodeSink sink, boolean propagate, GenerationProgress progress)
     {
         model = new CPModel();
         solver = new CPSolver();
@@ -119,8 +188,20 @@ public class NaiveShadowGaussGenerator
             model.addConstraint(leq(letter[i], plus(maxSoFar[i], constant(1))));
         }
 
+        // fix the first letters of the code, used when the search is split by prefix
+        for (int i = 0; i < prefix.length; i++)
+        {
+            model.addConstraint(eq(letter[i], prefix[i]));
+        }
+
         solver.read(model);
 
+        // check the dually paired condition on partial codes as well as complete ones
+        if (propagate)
+        {
+            solver.post(new DuallyPairedConstraint(solver.getVar(letter), numOfCrossings, false, solver.getEnvironment()));
+        }
+
         if (option == RANDOM || option == RANDOM_PRIME)
         {
             solver.setValIntSelector(new RandomIntValSelector());
@@ -129,27 +210,13 @@ public class NaiveShadowGaussGenerator
         solver.setVarIntSelector(new StaticVarOrder(solver, solver.getVar(letter)));
 
 
-        // set up a set into which we'll add the lexicographically minimum Gauss codes
-        codes = new TreeSet<List<Integer>>(new Comparator<List<Integer>>() 
-        {
-            public int compare(List<Integer> l1, List<Integer> l2) 
-            {
-                int sz = l1.size();
-                for (int i=0; i<sz; i++) 
-                {
-                    if (l1.get(i) < l2.get(i)) 
-                    {
-                        return -1;
-                    }
-                    if (l1.get(i) > l2.get(i)) 
-                    {
-                        return 1;
-                    }
-                }
-                return 0;
-
-            }
-        });
+        // set up a compact set for removing duplicate lexicographically minimum Gauss codes
+        this.sink = sink;
+        this.progress = progress;
+        codes = new PackedCodeSet(numOfCrossings);
+        canonicalizer = new GaussCodeCanonicalizer(numOfCrossings);
+        primes = new PrimeDecomposition(numOfCrossings);
+        dp = new DuallyPairedTest(numOfCrossings);
 
         // actually solve stuff!
 
@@ -167,18 +234,14 @@ public class NaiveShadowGaussGenerator
                 }
 
                 // submit the gauss code to the dually paired testing class
-                DuallyPairedTest dp = new DuallyPairedTest(gaussCode);
 
-                // only consider the lexmin reordering of each code
-                gaussCode = lexRenumber(gaussCode, numOfCrossings);
-
-                if(dp.isDuallyPaired())
+                if(dp.isDuallyPaired(gaussCode))
                 {
                     if (option == RANDOM_PRIME || option == ALL_PRIME)
                     {
                         if (isPrime(gaussCode))
                         {
-                            codes.add(lexMinInClass(gaussCode, numOfCrossings));
+                            found(canonicalizer.canonicalForm(gaussCode));
 
                             // if we're generating just one random code we want to break after one if found
                             if (option == RANDOM_PRIME)
@@ -189,22 +252,28 @@ public class NaiveShadowGaussGenerator
                     }
                     else
                     {
-                        codes.add(lexMinInClass(gaussCode, numOfCrossings));
+                        found(canonicalizer.canonicalForm(gaussCode));
                         if (option == RANDOM)
                         {
                             break;
                         }
                     }
                 }
+
+                if (progress != null)
+                {
+                    progress.progress(numberOfSolutions(), solver.getNodeCount());
+                }
+
+                // stop if the generation has been cancelled
+                if (Thread.currentThread().isInterrupted())
+                {
+                    break;
+                }
             }
             while (solver.nextSolution().booleanValue());
         }
 
-        // add each Gauss code to the output string, on its own line
-        for (List<Integer> c : codes) 
-        {
-            output = output + codeToString(c) + "\n";
-        }
 
 
         if (verbose) 
@@ -227,40 +296,13 @@ public class NaiveShadowGaussGenerator
 
 
     /**
-    * Checks if a shadow Gauss code is prime.
+    * Checks if a shadow Gauss code is prime, that is no proper subword of it contains both occurrences of each of its letters.
     * @param gaussCode the shadow Gauss code expressed as an array of integers
     * @return boolean true if prime, false otherwise
     */
     public boolean isPrime(int[] gaussCode)
     {
-        //for each even subset, check that it contains more entries than half its length
-        //if a subset which contains the same number
-        for (int i = 0; i < gaussCode.length; i++)
-        {
-            for (int j = i; j < gaussCode.length; j++)
-            {
-                int gap = j - i;
-                // otherwise everything is false
-                if (!(gap == gaussCode.length) && (gap % 2 == 0) && (gap > 0))
-                {
-                    int[] temp = Arrays.copyOfRange(gaussCode, i, j);
-
-                    Set<Integer> tempSet = new TreeSet<Integer>();
-
-                    for (int k = 0; k < temp.length; k++)
-                    {
-                        tempSet.add(temp[k]);
-                    } 
-
-                    if (tempSet.size() == (temp.length / 2))
-                    {
-                        return false;
-                    }
-                }
-            }
-        }
-
-        return true;
+        return primes.isPrime(gaussCode);
     }
 
     /**
@@ -295,29 +337,8 @@ public class NaiveShadowGaussGenerator
     */
     public List<Integer> lexMinInClass(int[] gaussCode, int n) 
     {
-        int[] minInClass = gaussCode;
-        int[] reversedCode = reversed(gaussCode);
-    
-        if (lexLt(lexRenumber(reversedCode, n), gaussCode))
-        {
-            minInClass = lexRenumber(reversedCode, n);
-        }
-
-        for (int i=1; i<n*2; i++) 
-        {
-            int[] rotatedCode = lexRenumber(rotated(gaussCode, i), n); 
-            int[] rotatedReversedCode = lexRenumber(rotated(reversedCode, i), n);
-
-            if (lexLt(rotatedCode, minInClass)) 
-            {
-                minInClass = rotatedCode;
-            }
-
-            if (lexLt(rotatedReversedCode, minInClass)) 
-            {   
-                minInClass = rotatedReversedCode;
-            }
-        }
+        GaussCodeCanonicalizer c = (n == numOfCrossings) ? canonicalizer : new GaussCodeCanonicalizer(n);
+        int[] minInClass = c.canonicalForm(gaussCode);
 
         List<Integer> retval = new ArrayList<Integer>();
 
@@ -431,6 +452,27 @@ public class NaiveShadowGaussGenerator
         return codes.size();
     }
 
+    /**
+    * Passes a lex min Gauss code to the sink, unless it has been found before
+    * @param lexMin the lex min shadow Gauss code
+    */
+    private void found(int[] lexMin)
+    {
+        if (codes.add(lexMin))
+        {
+            sink.accept(lexMin);
+        }
+    }
+
+    /**
+    * Getter method for the solver, from which the search statistics can be read
+    * @return Solver the solver used for the search
+    */
+    public Solver getSolver()
+    {
+        return solver;
+    }
+
     /**
     * Prints a shadow Gauss code expressed as a list of integers
     * @param list a shadow Gauss code expressed as a list of integers
@@ -467,7 +509,11 @@ public class NaiveShadowGaussGenerator
                 + "\n   1 to generate all codes,"
                 + "\n   2 to generate a random prime codes,"
                 + "\n   3 to generate all prime codes."
-                + "\n \n<option2> is given as 'verbose' to include information about the solver, or omitted to leave this information out by defult \n");
+                + "\n \n<option2> is given as 'verbose' to include information about the solver, or omitted to leave this information out by defult"
+                + "\n \n'parallel' may also be given to split the generation of all codes between all available processors"
+                + "\n \n'propagate' may also be given to prune partial codes which cannot be dually paired during the search"
+                + "\n \n'checkpoint <file>' may also be given to write all codes to a file with periodic checkpoints,"
+                + "\n and '--resume' with it to carry on from the last checkpoint of that file \n");
         }
         else
         {
@@ -486,14 +532,67 @@ public class NaiveShadowGaussGenerator
                 opt = 3;
             }
 
-            if (args.length > 2)
+            boolean parallel = false;
+            boolean propagate = false;
+            boolean resume = false;
+            File checkpoint = null;
+
+            for (int i = 2; i < args.length; i++)
             {
-                v = true;
+                if (args[i].equals("parallel"))
+                {
+                    parallel = true;
+                }
+                else if (args[i].equals("checkpoint") && i + 1 < args.length)
+                {
+                    checkpoint = new File(args[++i]);
+                }
+                else if (args[i].equals("--resume"))
+                {
+                    resume = true;
+                }
+                else if (args[i].equals("propagate"))
+                {
+                    propagate = true;
+                }
+                else
+                {
+                    v = true;
+                }
+            }
+
+            // a long run of all codes writes them to a file, and can be carried on from its last checkpoint
+            if (checkpoint != null && (opt == 1 || opt == 3))
+            {
+                try
+                {
+                    System.out.println(new CheckpointedShadowGaussGenerator(crossings, opt, v, ParallelShadowGaussGenerator.NAIVE_MODEL, propagate, checkpoint, resume).solutionToString());
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Unable to write the codes to " + checkpoint + ": " + e.getMessage());
+                    System.exit(1);
+                }
+                return;
             }
 
+            // each code is written out as soon as it is found, and the solver information after all of them
+            GaussCodeSink out = WriterGaussCodeSink.toStandardOut();
+            String info;
+
+            // only the generation of all codes is split between threads
+            if (parallel && (opt == 1 || opt == 3))
+            {
+                int threads = Runtime.getRuntime().availableProcessors();
+                info = new ParallelShadowGaussGenerator(crossings, opt, v, ParallelShadowGaussGenerator.NAIVE_MODEL, threads, out, propagate).solutionToString();
+            }
+            else
+            {
+                info = new NaiveShadowGaussGenerator(crossings, opt, v, new int[0], out, propagate).solutionToString();
+            }
 
-            NaiveShadowGaussGenerator sGG = new NaiveShadowGaussGenerator(crossings, opt, v);
-            System.out.println(sGG.solutionToString());
+            out.close();
+            System.out.println(info);
         }
     }
 }
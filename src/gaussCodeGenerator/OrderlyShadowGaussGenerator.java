@@ -0,0 +1,359 @@
+package gaussCodeGenerator;
+
+import java.util.*;
+
+    /**
+    * <h1>An orderly (canonical augmentation) generator for shadow Gauss codes</h1>
+    * The OrderlyShadowGaussGenerator class builds shadow Gauss codes letter by letter, without the Choco toolkit.
+    * Each partial code is tested against every rotation and reflection of the letters placed so far, and is
+    * abandoned as soon as some rotation or reflection is already lexicographically smaller.  This means that
+    * only the lexicographically minimum representative of each equivalence class of Gauss codes is ever completed,
+    * so no post search filtering of duplicates is needed.
+    * <p>
+    * The output of options 1 and 3 is identical to that of NaiveShadowGaussGenerator and BinaryModelShadowGaussGenerator.
+    * <p>
+    * It can be used as a command line tool by calling the main method as follows:
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class OrderlyShadowGaussGenerator
+{
+    private int numOfCrossings;
+    private int length;
+    private int option;
+    private final int RANDOM = 0;
+    private final int ALL = 1;
+    private final int RANDOM_PRIME = 2;
+    private final int ALL_PRIME = 3;
+
+    private int[] code; // code[i] is the ith letter of the partial Gauss code
+    private int[] firstPosition; // firstPosition[k] is the position of the first occurrence of letter k, or -1
+    private int[] occurrences; // occurrences[k] is the number of times letter k has been placed
+    private int maxSoFar;
+
+    // compares the rotations and reflections of the partial code against it
+    private GaussCodeCanonicalizer canonicalizer;
+    private PrimeDecomposition primes;
+    private DuallyPairedTest dp;
+
+    private Random random;
+    private boolean finished;
+    private long nodes;
+    private int solutionCount;
+    private String output = "";
+    private GaussCodeSink sink;
+
+    /**
+    * The constructor for OrderlyShadowGaussGenerator objects.
+    * @param crossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports this as well as the search nodes and run time in milliseconds
+    */
+    public OrderlyShadowGaussGenerator(int crossings, int option, boolean verbose)
+    {
+        this(crossings, option, verbose, new SortedGaussCodeSink());
+
+        // the codes are reported before the search information
+        output = sink.toString() + output;
+    }
+
+    /**
+    * The constructor for OrderlyShadowGaussGenerator objects which passes each code to a sink as soon as it is found,
+    * instead of adding it to the solution string.  The codes are found in lexicographic order.
+    * @param crossings The number of crossings
+    * @param option option = 0 generates a random code, option = 1 generates all codes, option = 2 generates a random prime code, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports this as well as the search nodes and run time in milliseconds
+    * @param sink the sink which receives the codes, it is not closed by the generator
+    */
+    public OrderlyShadowGaussGenerator(int crossings, int option, boolean verbose, GaussCodeSink sink)
+    {
+        this.sink = sink;
+        numOfCrossings = crossings;
+        length = 2 * crossings;
+        this.option = option;
+
+        code = new int[length];
+        firstPosition = new int[numOfCrossings + 1];
+        occurrences = new int[numOfCrossings + 1];
+        canonicalizer = new GaussCodeCanonicalizer(numOfCrossings);
+        primes = new PrimeDecomposition(numOfCrossings);
+        dp = new DuallyPairedTest(numOfCrossings);
+        Arrays.fill(firstPosition, -1);
+
+        if (option == RANDOM || option == RANDOM_PRIME)
+        {
+            random = new Random();
+        }
+
+        long start = System.currentTimeMillis();
+
+        if (numOfCrossings > 0)
+        {
+            extend(0);
+        }
+
+        long time = System.currentTimeMillis() - start;
+
+        if (verbose)
+        {
+            output = "feasible: " + (solutionCount > 0) + "\n"
+                + "nodes: " + nodes + "   cpu: " + time + "\n"
+                + "Solution count: " + solutionCount + "\n";
+        }
+    }
+
+    /**
+    * Places every admissible letter at position k of the code, and recurses on the position after it.
+    * @param k the position in the code to be filled
+    */
+    private void extend(int k)
+    {
+        if (k == length)
+        {
+            nodes++;
+            visitLeaf();
+            return;
+        }
+
+        // the next letter is either one with a single occurrence so far or the least of those not yet used
+        int largest = Math.min(maxSoFar + 1, numOfCrossings);
+        int[] candidates = new int[largest];
+        for (int v = 1; v <= largest; v++)
+        {
+            candidates[v - 1] = v;
+        }
+
+        if (random != null)
+        {
+            for (int i = candidates.length - 1; i > 0; i--)
+            {
+                int j = random.nextInt(i + 1);
+                int temp = candidates[i];
+                candidates[i] = candidates[j];
+                candidates[j] = temp;
+            }
+        }
+
+        for (int c = 0; c < candidates.length && !finished; c++)
+        {
+            int v = candidates[c];
+
+            if (occurrences[v] == 2)
+            {
+                continue;
+            }
+
+            // evenly spaced: the two occurrences of a letter must be an odd distance apart
+            if (occurrences[v] == 1 && (k - firstPosition[v]) % 2 == 0)
+            {
+                continue;
+            }
+
+            place(k, v);
+            nodes++;
+
+            if (parityFeasible(k + 1) && isMinimalPrefix(k + 1))
+            {
+                extend(k + 1);
+            }
+
+            unplace(k, v);
+        }
+    }
+
+    /**
+    * Tests a complete code against the filters, and adds it to the output if it passes them
+    */
+    private void visitLeaf()
+    {
+        if (!dp.isDuallyPaired(code))
+        {
+            return;
+        }
+
+        if ((option == RANDOM_PRIME || option == ALL_PRIME) && !isPrime(code))
+        {
+            return;
+        }
+
+        sink.accept(code);
+        solutionCount++;
+
+        // if we're generating just one random code we want to stop after one is found
+        if (option == RANDOM || option == RANDOM_PRIME)
+        {
+            finished = true;
+        }
+    }
+
+    private void place(int k, int v)
+    {
+        code[k] = v;
+
+        if (occurrences[v] == 0)
+        {
+            firstPosition[v] = k;
+            maxSoFar = v;
+        }
+
+        occurrences[v]++;
+    }
+
+    private void unplace(int k, int v)
+    {
+        occurrences[v]--;
+
+        if (occurrences[v] == 0)
+        {
+            firstPosition[v] = -1;
+            maxSoFar = v - 1;
+        }
+    }
+
+    /**
+    * Checks that the letters still to be placed can fill the remaining positions of the code.  Each letter
+    * placed once so far needs a position of the opposite parity to its first, and each unused letter needs
+    * one odd and one even position.
+    * @param k the number of letters placed so far
+    * @return boolean true if the remaining positions can still be filled, false otherwise
+    */
+    private boolean parityFeasible(int k)
+    {
+        int needOdd = 0;
+        int needEven = 0;
+
+        for (int v = 1; v <= maxSoFar; v++)
+        {
+            if (occurrences[v] == 1)
+            {
+                if (firstPosition[v] % 2 == 0)
+                {
+                    needOdd++;
+                }
+                else
+                {
+                    needEven++;
+                }
+            }
+        }
+
+        int unused = numOfCrossings - maxSoFar;
+        int remainingEven = (length - k + (k % 2 == 0 ? 1 : 0)) / 2;
+        int remainingOdd = (length - k) - remainingEven;
+
+        return (needOdd + unused == remainingOdd) && (needEven + unused == remainingEven);
+    }
+
+    /**
+    * Checks that no rotation or reflection of the first k letters of the code is lexicographically less than the code.
+    * When k is less than the length of the code each rotation or reflection is compared only on the letters already
+    * known; when the code is complete the rotations and reflections wrap around the end of the code.
+    * @param k the number of letters placed so far
+    * @return boolean true if the code may still be the lex min representative of its class, false otherwise
+    */
+    private boolean isMinimalPrefix(int k)
+    {
+        boolean complete = (k == length);
+
+        for (int s = 0; s < k; s++)
+        {
+            // the rotation reading forwards from s
+            if (s > 0 && canonicalizer.compareReading(code, s, 1, complete ? length : k - s) < 0)
+            {
+                return false;
+            }
+
+            // the reflection reading backwards from s
+            if (canonicalizer.compareReading(code, s, -1, complete ? length : s + 1) < 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+    * Getter method for the solution string.
+    * @return String the output of the generator
+    */
+    public String solutionToString()
+    {
+        return output;
+    }
+
+    /**
+    * Returns the number of codes generated
+    * @return int the number of codes generated
+    */
+    public int numberOfSolutions()
+    {
+        return solutionCount;
+    }
+
+    /**
+    * Checks if a shadow Gauss code is prime, that is no proper subword of it contains both occurrences of each of its letters.
+    * @param gaussCode the shadow Gauss code expressed as an array of integers
+    * @return boolean true if prime, false otherwise
+    */
+    public boolean isPrime(int[] gaussCode)
+    {
+        return primes.isPrime(gaussCode);
+    }
+
+   /**
+    * The main method.  This method allows the generation to be run though a command line interface.
+    * @param args command line arguements
+    */
+    public static void main(String[] args)
+    {
+        // the option, choose random, probably not prime by default
+        int opt = 0;
+        int crossings = 0;
+
+        // boolean flag for verbose output
+        boolean v = false;
+
+        if (args.length < 2)
+        {
+            System.out.println("\nInput to this program is of the form 'java OrderlyShadowGaussGenerator <number> <option1> <option2>'"
+                + "\n \nwhere <number> is the crossing number for the Gauss code(s)"
+                + "\n \nwhere <option1> is given as either:"
+                + "\n   0 to generate a random code,"
+                + "\n   1 to generate all codes,"
+                + "\n   2 to generate a random prime codes,"
+                + "\n   3 to generate all prime codes."
+                + "\n \n<option2> is given as 'verbose' to include information about the search, or omitted to leave this information out by defult \n");
+        }
+        else
+        {
+            crossings = Integer.parseInt(args[0]);
+
+            if (args[1].equals("1"))
+            {
+                opt = 1;
+            }
+            else if (args[1].equals("2"))
+            {
+                opt = 2;
+            }
+            else if (args[1].equals("3"))
+            {
+                opt = 3;
+            }
+
+            if (args.length > 2)
+            {
+                v = true;
+            }
+
+            // each code is written out as soon as it is found, and the search information after all of them
+            GaussCodeSink out = WriterGaussCodeSink.toStandardOut();
+            OrderlyShadowGaussGenerator sGG = new OrderlyShadowGaussGenerator(crossings, opt, v, out);
+            out.close();
+            System.out.println(sGG.solutionToString());
+        }
+    }
+}
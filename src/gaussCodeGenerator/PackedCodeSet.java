@@ -0,0 +1,184 @@
+package gaussCodeGenerator;
+
+    /**
+    * <h1>A compact set of shadow Gauss codes</h1>
+    * The PackedCodeSet class removes duplicate codes during generation.  Each letter of a code takes only as many bits as
+    * the largest letter needs, the letters are packed into longs, and the packed codes are stored in a single open
+    * addressing hash table.  This takes a small fraction of the memory of a set of lists of boxed integers.
+    * <p>
+    * All the codes in a set must have the same length, and their letters must be in [1, crossings].
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class PackedCodeSet
+{
+    private int length;
+    private int bitsPerLetter;
+    private int wordsPerCode;
+    private long[] table; // slot i occupies table[i * wordsPerCode ... (i + 1) * wordsPerCode - 1]
+    private int capacity;
+    private int size = 0;
+    private long[] key;
+
+    /**
+    * The constructor for PackedCodeSet objects.
+    * @param crossings the number of crossings of the codes to be kept, each code has length 2 * crossings
+    */
+    public PackedCodeSet(int crossings)
+    {
+        length = 2 * crossings;
+        bitsPerLetter = Math.max(1, 32 - Integer.numberOfLeadingZeros(crossings));
+        wordsPerCode = Math.max(1, (length * bitsPerLetter + 63) / 64);
+        capacity = 1024;
+        table = new long[capacity * wordsPerCode];
+        key = new long[wordsPerCode];
+    }
+
+    /**
+    * Adds a code to the set
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return boolean true if the code was not already in the set, false otherwise
+    */
+    public boolean add(int[] gaussCode)
+    {
+        pack(gaussCode);
+
+        if (findSlot(table, capacity, key, false))
+        {
+            return false;
+        }
+
+        if (2 * (size + 1) > capacity)
+        {
+            grow();
+        }
+
+        findSlot(table, capacity, key, true);
+        size++;
+        return true;
+    }
+
+    /**
+    * Checks if a code is in the set
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return boolean true if the code is in the set, false otherwise
+    */
+    public boolean contains(int[] gaussCode)
+    {
+        pack(gaussCode);
+        return findSlot(table, capacity, key, false);
+    }
+
+    /**
+    * Returns the number of codes in the set
+    * @return int the number of codes in the set
+    */
+    public int size()
+    {
+        return size;
+    }
+
+    // packs a code into key, since every letter is at least 1 a packed code is never all zeros, which marks an empty slot
+    private void pack(int[] gaussCode)
+    {
+        for (int w = 0; w < wordsPerCode; w++)
+        {
+            key[w] = 0;
+        }
+
+        int bit = 0;
+        for (int i = 0; i < length; i++)
+        {
+            long v = gaussCode[i];
+            int w = bit >>> 6;
+            int offset = bit & 63;
+
+            key[w] |= v << offset;
+            if (offset + bitsPerLetter > 64)
+            {
+                key[w + 1] |= v >>> (64 - offset);
+            }
+
+            bit += bitsPerLetter;
+        }
+    }
+
+    // looks for k in t using linear probing, if insert is true then k is stored in the first empty slot found
+    private boolean findSlot(long[] t, int cap, long[] k, boolean insert)
+    {
+        int slot = hash(k) & (cap - 1);
+
+        while (true)
+        {
+            int base = slot * wordsPerCode;
+
+            if (isEmpty(t, base))
+            {
+                if (insert)
+                {
+                    System.arraycopy(k, 0, t, base, wordsPerCode);
+                }
+                return false;
+            }
+
+            boolean equal = true;
+            for (int w = 0; w < wordsPerCode && equal; w++)
+            {
+                equal = (t[base + w] == k[w]);
+            }
+
+            if (equal)
+            {
+                return true;
+            }
+
+            slot = (slot + 1) & (cap - 1);
+        }
+    }
+
+    private boolean isEmpty(long[] t, int base)
+    {
+        for (int w = 0; w < wordsPerCode; w++)
+        {
+            if (t[base + w] != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(long[] k)
+    {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int w = 0; w < wordsPerCode; w++)
+        {
+            h = (h ^ k[w]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // doubles the capacity of the table, and re-inserts every code
+    private void grow()
+    {
+        int newCapacity = capacity * 2;
+        long[] newTable = new long[newCapacity * wordsPerCode];
+        long[] k = new long[wordsPerCode];
+
+        for (int slot = 0; slot < capacity; slot++)
+        {
+            int base = slot * wordsPerCode;
+            if (!isEmpty(table, base))
+            {
+                System.arraycopy(table, base, k, 0, wordsPerCode);
+                findSlot(newTable, newCapacity, k, true);
+            }
+        }
+
+        table = newTable;
+        capacity = newCapacity;
+    }
+}
@@ -0,0 +1,287 @@
+package gaussCodeGenerator;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import choco.kernel.solver.Solver;
+
+    /**
+    * <h1>A parallel driver for the constraint programming models for Gauss code generation</h1>
+    * The ParallelShadowGaussGenerator class splits the generation of all (prime) codes between the workers of a ForkJoinPool.
+    * The search space is split by fixing the first few letters of the code.  Each prefix is solved by its own
+    * NaiveShadowGaussGenerator or BinaryModelShadowGaussGenerator, with its own model and solver, and the lex min codes
+    * found for each prefix are merged into one sorted set.  The output is the same as that of the sequential generator.
+    * <p>
+    * It is used by the main methods of both generators when 'parallel' is given on the command line.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class ParallelShadowGaussGenerator
+{
+    public static final int NAIVE_MODEL = 0;
+    public static final int BINARY_MODEL = 1;
+
+    // aim for this many prefixes per worker, so that the workers are kept busy when the prefixes are uneven
+    private static final int PREFIXES_PER_WORKER = 8;
+
+    private int numOfCrossings;
+    private int option;
+    private int modelType;
+    private boolean propagate;
+    private String output = "";
+    private SortedGaussCodeSink codes;
+    private long nbSolutions = 0;
+    private long nodes = 0;
+
+    /**
+    * The constructor for ParallelShadowGaussGenerator objects, using one worker per available processor.
+    * @param crossings The number of crossings
+    * @param option option = 1 generates all codes, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports the search statistics summed over all prefixes as well
+    * @param modelType NAIVE_MODEL or BINARY_MODEL
+    */
+    public ParallelShadowGaussGenerator(int crossings, int option, boolean verbose, int modelType)
+    {
+        this(crossings, option, verbose, modelType, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+    * The constructor for ParallelShadowGaussGenerator objects.
+    * @param crossings The number of crossings
+    * @param option option = 1 generates all codes, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports the search statistics summed over all prefixes as well
+    * @param modelType NAIVE_MODEL or BINARY_MODEL
+    * @param threads the number of workers in the ForkJoinPool
+    */
+    public ParallelShadowGaussGenerator(int crossings, int option, boolean verbose, int modelType, int threads)
+    {
+        this(crossings, option, verbose, modelType, threads, null);
+
+        // the codes are reported before the solver information
+        output = codes.toString() + output;
+    }
+
+    /**
+    * The constructor for ParallelShadowGaussGenerator objects which passes the merged codes, in lexicographic order, to a sink.
+    * The codes found for every prefix are held until all of the prefixes have been solved.
+    * @param crossings The number of crossings
+    * @param option option = 1 generates all codes, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports the search statistics summed over all prefixes as well
+    * @param modelType NAIVE_MODEL or BINARY_MODEL
+    * @param threads the number of workers in the ForkJoinPool
+    * @param sink the sink which receives the codes, or null to keep them for the solution string, it is not closed by the generator
+    */
+    public ParallelShadowGaussGenerator(int crossings, int option, boolean verbose, int modelType, int threads, GaussCodeSink sink)
+    {
+        this(crossings, option, verbose, modelType, threads, sink, false);
+    }
+
+    /**
+    * The constructor for ParallelShadowGaussGenerator objects which passes the merged codes, in lexicographic order, to a sink,
+    * and can check the dually paired condition on partial codes during the search of each prefix.
+    * @param crossings The number of crossings
+    * @param option option = 1 generates all codes, option = 3 generates all prime codes
+    * @param verbose verbose = false reports just the codes, verbose = true reports the search statistics summed over all prefixes as well
+    * @param modelType NAIVE_MODEL or BINARY_MODEL
+    * @param threads the number of workers in the ForkJoinPool
+    * @param sink the sink which receives the codes, or null to keep them for the solution string, it is not closed by the generator
+    * @param propagate true to post a DuallyPairedConstraint in the model of each prefix
+    */
+    public ParallelShadowGaussGenerator(int crossings, int option, boolean verbose, int modelType, int threads, GaussCodeSink sink, boolean propagate)
+    {
+        numOfCrossings = crossings;
+        this.propagate = propagate;
+        this.option = option;
+        this.modelType = modelType;
+
+        codes = new SortedGaussCodeSink();
+
+        long start = System.currentTimeMillis();
+
+        List<int[]> prefixes = prefixes(numOfCrossings, threads * PREFIXES_PER_WORKER);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<PrefixResult> results = pool.invoke(new PrefixTask(prefixes, 0, prefixes.size()));
+        pool.shutdown();
+
+        for (PrefixResult r : results)
+        {
+            codes.addAll(r.codes);
+            nbSolutions += r.nbSolutions;
+            nodes += r.nodes;
+        }
+
+        long time = System.currentTimeMillis() - start;
+
+        if (sink != null)
+        {
+            codes.writeTo(sink);
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        if (verbose)
+        {
+            sb.append("feasible: " + (codes.size() > 0) + "\n");
+            sb.append("nbSol: " + nbSolutions + "\n");
+            sb.append("nodes: " + nodes + "   cpu: " + time + "\n");
+            sb.append("prefixes: " + prefixes.size() + "   threads: " + threads + "\n");
+            sb.append("Solution count: " + codes.size() + "\n");
+        }
+
+        output = sb.toString();
+    }
+
+    /**
+    * Getter method for the solution string.
+    * @return String the output of the solvers
+    */
+    public String solutionToString()
+    {
+        return output;
+    }
+
+    /**
+    * Returns the number of solutions found after the post search filtering
+    * @return int the number of solutions found
+    */
+    public int numberOfSolutions()
+    {
+        return codes.size();
+    }
+
+    /**
+    * Lists the prefixes which split the search space, in lexicographic order.  The prefixes are lengthened one letter at a
+    * time until there are at least as many as wanted, or they are complete codes.  Each prefix respects the constraints
+    * shared by both models on the leading letters: the code starts with 1, each letter is one already used or the least
+    * not yet used, no letter appears more than twice, the two occurrences of a letter are an odd distance apart and
+    * the second 1 is no later than the nth position.
+    * @param n the number of crossings
+    * @param wanted the number of prefixes wanted
+    * @return List the prefixes
+    */
+    public static List<int[]> prefixes(int n, int wanted)
+    {
+        List<int[]> current = new ArrayList<int[]>();
+        current.add(new int[]{1});
+
+        while (current.size() < wanted && current.get(0).length < 2 * n)
+        {
+            List<int[]> next = new ArrayList<int[]>();
+
+            for (int[] p : current)
+            {
+                int k = p.length;
+                int max = 0;
+                int[] first = new int[n + 1];
+                int[] count = new int[n + 1];
+
+                for (int i = 0; i < k; i++)
+                {
+                    if (count[p[i]] == 0)
+                    {
+                        first[p[i]] = i;
+                    }
+                    count[p[i]]++;
+                    max = Math.max(max, p[i]);
+                }
+
+                for (int v = 1; v <= Math.min(max + 1, n); v++)
+                {
+                    if (count[v] == 2 || (count[v] == 1 && (k - first[v]) % 2 == 0))
+                    {
+                        continue;
+                    }
+
+                    if (v == 1 && k > n)
+                    {
+                        continue;
+                    }
+
+                    int[] q = Arrays.copyOf(p, k + 1);
+                    q[k] = v;
+                    next.add(q);
+                }
+            }
+
+            current = next;
+        }
+
+        return current;
+    }
+
+    /**
+    * Solves the model restricted to one prefix
+    * @param prefix the first letters of the codes to be searched
+    * @return PrefixResult the lex min codes and search statistics for the prefix
+    */
+    private PrefixResult solve(int[] prefix)
+    {
+        PrefixResult r = new PrefixResult();
+        r.codes = new SortedGaussCodeSink();
+        Solver solver;
+
+        if (modelType == BINARY_MODEL)
+        {
+            solver = new BinaryModelShadowGaussGenerator(numOfCrossings, option, false, prefix, r.codes, propagate).getSolver();
+        }
+        else
+        {
+            solver = new NaiveShadowGaussGenerator(numOfCrossings, option, false, prefix, r.codes, propagate).getSolver();
+        }
+
+        r.nbSolutions = solver.getNbSolutions();
+        r.nodes = solver.getNodeCount();
+
+        return r;
+    }
+
+    private class PrefixResult
+    {
+        private SortedGaussCodeSink codes;
+        private long nbSolutions;
+        private long nodes;
+    }
+
+    private class PrefixTask extends RecursiveTask<List<PrefixResult>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        // the task solves the prefixes in [from, to)
+        private List<int[]> prefixes;
+        private int from;
+        private int to;
+
+        private PrefixTask(List<int[]> prefixes, int from, int to)
+        {
+            this.prefixes = prefixes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<PrefixResult> compute()
+        {
+            List<PrefixResult> results = new ArrayList<PrefixResult>();
+
+            if (to - from == 1)
+            {
+                results.add(solve(prefixes.get(from)));
+            }
+            else if (to - from > 1)
+            {
+                int mid = (from + to) / 2;
+                PrefixTask left = new PrefixTask(prefixes, from, mid);
+                PrefixTask right = new PrefixTask(prefixes, mid, to);
+
+                left.fork();
+                results.addAll(right.compute());
+                results.addAll(0, left.join());
+            }
+
+            return results;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package gaussCodeGenerator;
+
+import java.util.*;
+
+    /**
+    * <h1>Prime decomposition of shadow Gauss codes</h1>
+    * The PrimeDecomposition class decides whether a shadow Gauss code is prime, and if not splits it into its prime factors.
+    * A code is composite exactly when some proper subword of it is closed under pairing, that is it contains both
+    * occurrences of each of its letters.  Writing S_k for the set of letters which occur once in the first k letters of the
+    * code, the subword from position i up to position j is closed exactly when S_i = S_j.  So the code is prime exactly when
+    * S_0, ..., S_(2n-1) are all different.
+    * <p>
+    * Each set S_k is represented by the exclusive or of a fixed random 64 bit key for each of its letters, which is a prefix
+    * sum over the positions of the code.  The sets are compared through a hash table of these keys, and two positions with
+    * the same key are confirmed by checking that every letter between them has its partner between them, so the answer is
+    * exact even if two keys collide.  The test takes expected linear time, and all of its scratch space is allocated once.
+    * <p>
+    * A PrimeDecomposition is not thread safe, each thread should have its own.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class PrimeDecomposition
+{
+    private int length;
+
+    private long[] letterKey; // letterKey[k] is the random key of letter k
+    private long[] prefixKey; // prefixKey[k] is the key of S_k
+    private int[] partner; // partner[i] is the position of the other occurrence of the letter at position i
+    private int[] firstSeen; // firstSeen[k] is the first position of letter k, valid only if seenStamp[k] == currentStamp
+    private int[] seenStamp;
+    private int currentStamp = 0;
+
+    private int[] table; // open addressing table of positions, -1 marks an empty slot
+    private int mask;
+
+    // the closed subword found by the last search
+    private int closedFrom;
+    private int closedTo;
+
+    /**
+    * The constructor for PrimeDecomposition objects.
+    * @param crossings the number of crossings of the codes, each code has length 2 * crossings and letters in [1, crossings]
+    */
+    public PrimeDecomposition(int crossings)
+    {
+        length = 2 * crossings;
+
+        letterKey = new long[crossings + 1];
+        for (int k = 1; k <= crossings; k++)
+        {
+            letterKey[k] = mix(k);
+        }
+
+        prefixKey = new long[length + 1];
+        partner = new int[length];
+        firstSeen = new int[crossings + 1];
+        seenStamp = new int[crossings + 1];
+
+        int size = 1;
+        while (size < 2 * length)
+        {
+            size *= 2;
+        }
+        table = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+    * Checks if a shadow Gauss code is prime.  This agrees with the isPrime methods of the generators.
+    * @param gaussCode the shadow Gauss code expressed as an array of integers
+    * @return boolean true if prime, false otherwise
+    */
+    public boolean isPrime(int[] gaussCode)
+    {
+        return !findClosedSubword(gaussCode, gaussCode.length, false);
+    }
+
+    /**
+    * Splits a shadow Gauss code into its prime factors.  The shortest closed subword of a composite code is always prime,
+    * so it is cut out as a factor and the rest of the code is split in the same way.  Each factor is renumbered so that
+    * its letters are numbered in order of first appearance, as lexRenumber does.  This allocates, and is meant for reporting
+    * composite codes rather than for the search itself.
+    * @param gaussCode the shadow Gauss code expressed as an array of integers
+    * @return List the prime factors of the code, a prime code is its own only factor
+    */
+    public List<int[]> decompose(int[] gaussCode)
+    {
+        List<int[]> factors = new ArrayList<int[]>();
+        int[] rest = Arrays.copyOf(gaussCode, gaussCode.length);
+        int restLength = rest.length;
+
+        while (restLength > 0)
+        {
+            if (!findClosedSubword(rest, restLength, true))
+            {
+                factors.add(renumber(rest, 0, restLength));
+                break;
+            }
+
+            int from = closedFrom;
+            int to = closedTo;
+            factors.add(renumber(rest, from, to));
+
+            // cut the factor out of the rest of the code
+            System.arraycopy(rest, to, rest, from, restLength - to);
+            restLength -= (to - from);
+        }
+
+        return factors;
+    }
+
+    /**
+    * Expresses the prime factors of a shadow Gauss code as a string, for logging composite codes
+    * @param gaussCode the shadow Gauss code expressed as an array of integers
+    * @return String the factors, separated by ' # '
+    */
+    public String decompositionToString(int[] gaussCode)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (int[] factor : decompose(gaussCode))
+        {
+            if (sb.length() > 0)
+            {
+                sb.append(" # ");
+            }
+
+            for (int i = 0; i < factor.length; i++)
+            {
+                sb.append(i == 0 ? "" : ", ").append(factor[i]);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+    * Finds a proper closed subword of the first len letters of a code, and keeps its start and end (exclusive) in
+    * closedFrom and closedTo.
+    * @param code a shadow Gauss code, with len letters in use
+    * @param len the length of the code
+    * @param shortest true to find the shortest closed subword, false to stop at the first one found
+    * @return boolean true if a closed subword was found, false if the code is prime
+    */
+    private boolean findClosedSubword(int[] code, int len, boolean shortest)
+    {
+        if (len == 0)
+        {
+            return false;
+        }
+
+        // pair up the two occurrences of each letter, and take the prefix keys
+        currentStamp++;
+        if (currentStamp == Integer.MAX_VALUE)
+        {
+            Arrays.fill(seenStamp, 0);
+            currentStamp = 1;
+        }
+
+        prefixKey[0] = 0;
+        for (int i = 0; i < len; i++)
+        {
+            int letter = code[i];
+
+            if (seenStamp[letter] != currentStamp)
+            {
+                seenStamp[letter] = currentStamp;
+                firstSeen[letter] = i;
+            }
+            else
+            {
+                partner[i] = firstSeen[letter];
+                partner[firstSeen[letter]] = i;
+            }
+
+            prefixKey[i + 1] = prefixKey[i] ^ letterKey[letter];
+        }
+
+        // the slot of a key holds the latest position with that set, so each match is the shortest ending there
+        Arrays.fill(table, -1);
+        closedFrom = -1;
+        closedTo = -1;
+
+        // j runs up to len so that a closed subword at the end of the code is seen, but the whole code is not a subword of itself
+        for (int j = 0; j <= len; j++)
+        {
+            long key = prefixKey[j];
+            int slot = hash(key);
+            boolean matched = false;
+
+            while (table[slot] != -1)
+            {
+                int i = table[slot];
+
+                if (prefixKey[i] == key && j - i < len && isClosed(i, j))
+                {
+                    if (closedFrom == -1 || j - i < closedTo - closedFrom)
+                    {
+                        closedFrom = i;
+                        closedTo = j;
+                    }
+
+                    if (!shortest)
+                    {
+                        return true;
+                    }
+
+                    table[slot] = j;
+                    matched = true;
+                    break;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            if (!matched)
+            {
+                table[slot] = j;
+            }
+        }
+
+        return closedFrom != -1;
+    }
+
+    // checks that every letter in positions [from, to) has its partner there as well
+    private boolean isClosed(int from, int to)
+    {
+        for (int p = from; p < to; p++)
+        {
+            if (partner[p] < from || partner[p] >= to)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // renumbers positions [from, to) of a code in order of first appearance
+    private int[] renumber(int[] code, int from, int to)
+    {
+        int[] factor = new int[to - from];
+        int[] newNums = new int[letterKey.length];
+        int maxSoFar = 0;
+
+        for (int i = from; i < to; i++)
+        {
+            if (newNums[code[i]] == 0)
+            {
+                newNums[code[i]] = ++maxSoFar;
+            }
+
+            factor[i - from] = newNums[code[i]];
+        }
+
+        return factor;
+    }
+
+    private int hash(long key)
+    {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    // a fixed pseudo random key for each letter, from the splitmix64 finaliser
+    private static long mix(long k)
+    {
+        long z = k * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+    * The main method.  This method prints the prime factors of a shadow Gauss code given on the command line.
+    * @param args the letters of the code, separated by commas or spaces
+    */
+    public static void main(String[] args)
+    {
+        if (args.length < 1)
+        {
+            System.out.println("\nInput to this program is of the form 'java PrimeDecomposition <code>'"
+                + "\n \nwhere <code> is a shadow Gauss code, for example 1,2,1,2,3,4,3,4 \n");
+            return;
+        }
+
+        String[] letters = String.join(",", args).split("[,\\s]+");
+        List<Integer> code = new ArrayList<Integer>();
+
+        for (String s : letters)
+        {
+            if (!s.isEmpty())
+            {
+                code.add(Integer.parseInt(s));
+            }
+        }
+
+        int[] gaussCode = new int[code.size()];
+        int max = 0;
+
+        for (int i = 0; i < gaussCode.length; i++)
+        {
+            gaussCode[i] = code.get(i);
+            max = Math.max(max, gaussCode[i]);
+        }
+
+        PrimeDecomposition pd = new PrimeDecomposition(Math.max(max, gaussCode.length / 2));
+        System.out.println((pd.isPrime(gaussCode) ? "prime: " : "composite: ") + pd.decompositionToString(gaussCode));
+    }
+}
@@ -0,0 +1,816 @@
+package gaussCodeGenerator;
+
+import java.util.*;
+
+    /**
+    * <h1>A random sampler for shadow Gauss codes at high crossing numbers</h1>
+    * The RandomShadowSampler class draws random shadow Gauss codes without any search, so it can be used at 20 to 50
+    * crossings where the random options of the generators spend most of their time backtracking.
+    * <p>
+    * A shadow is a 4-regular planar map whose straight ahead walk is a single closed curve.  Random rooted 4-regular
+    * planar maps are drawn uniformly with Schaeffer's bijection with blossoming trees: a uniform binary tree with n inner
+    * nodes is grown with Remy's algorithm, each inner node is given a bud in one of its three corners, and then going
+    * round the tree each bud is joined to the next free leaf.  The two leaves left over are joined to give the root edge.
+    * Every vertex then has 4 half edges in planar order, so the straight ahead walk from the root, which always leaves a
+    * vertex by the half edge opposite to the one it came in by, reads off a planar code in linear time.
+    * <p>
+    * A map is rejected if its walk does not visit every vertex twice (more than one curve).  Each accepted code is
+    * reported as its lex min representative.  Since every rooted map is equally likely a class of codes is drawn with
+    * probability proportional to the number of rooted maps whose walk reads a code of the class.  A code is read from
+    * 4n divided by its number of symmetries s different roots, and it is drawn in the plane by 2^c different maps, where
+    * c is the number of connected components of its interlacement graph, since the crossings of each component can be
+    * mirrored on their own.  So a class is drawn in proportion to 4n 2^c / s.  A prime code has a connected interlacement
+    * graph, and almost every prime code at high crossing numbers has no symmetries, but a code with many factors is drawn
+    * far more often than a prime one.  If exact uniformity over classes is wanted each code can also be kept with
+    * probability s / (4n 2^(c - 1)), at the cost of more rejections.  For prime codes this costs a factor of about 4n,
+    * but for all codes the cost also doubles with each component, so exact sampling of all codes is only practical at
+    * low crossing numbers.
+    * <p>
+    * Prime codes are too rare among random curves to be found by rejection at high crossing numbers, so for prime codes a
+    * larger map is drawn and its prime core is taken instead.  The faces of a 4-regular planar map can be coloured black
+    * and white, and the graph on the black faces with an edge through each vertex (the Tait graph) has one block for each
+    * prime factor of the map.  The largest block is found with the Hopcroft-Tarjan algorithm, and each of the other factors
+    * hangs off one edge of it with two ends, so the map of the core is found by walking straight ahead from each half edge
+    * of the core until the walk meets the core again.  Conditioned on its size the core is a uniform prime map, as in the
+    * core extraction of Banderier, Flajolet, Schaeffer and Soria, so a map is kept only if its core has exactly n vertices
+    * and the straight ahead walk of the core, from a random half edge, is a single curve.  The map drawn has about three
+    * times as many vertices as the core wanted, which is where the largest block peaks.
+    * <p>
+    * It can be used as a command line tool by calling the main method as follows:
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class RandomShadowSampler
+{
+    private final int RANDOM = 0;
+    private final int RANDOM_PRIME = 2;
+
+    private int numOfCrossings;
+    private int mapSize; // the number of vertices of the maps drawn
+    private int option;
+    private boolean exact;
+    private Random random;
+
+    // the binary tree, nodes 0 ... 2n, grown by Remy's algorithm
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int treeRoot;
+    private int[] vertexOf; // vertexOf[node] is the vertex of an inner node of the tree, or -1 for a leaf
+
+    // half edge 4 * v + s is the sth half edge round vertex v, in planar order, and mate[h] is the half edge joined to h
+    private int[] mate;
+    private int[] contour; // the buds and leaves met going round the tree, as half edges
+    private boolean[] isBud;
+    private int contourLength;
+    private int[] stack;
+    private int rootHalfEdge; // a half edge of the root edge
+
+    // the faces of the map, and the Tait graph on the faces of colour 0, with one edge for each vertex of the map
+    private int[] face; // face[h] is the face on the left of half edge h
+    private int[] faceRep; // a half edge of each face
+    private int[] colour; // colour[f] is the colour of face f, 0 or 1
+    private int numOfFaces;
+    private int[] endA; // endA[v] and endB[v] are the ends of the Tait graph edge through vertex v
+    private int[] endB;
+    private int[] adjStart; // the edges at face f are adjEdge[adjStart[f]] ... adjEdge[adjStart[f + 1] - 1]
+    private int[] adjEdge;
+
+    // the blocks of the Tait graph, found by an iterative depth first search
+    private int[] disc;
+    private int[] low;
+    private int[] nextEntry; // the next entry of the adjacency of each face to look at
+    private int[] parentEdge;
+    private int[] dfsStack;
+    private int[] edgeStack;
+    private int[] blockOf; // blockOf[v] is the block of the Tait graph edge through vertex v
+    private int coreBlock;
+    private int[] coreIndex; // coreIndex[v] is the vertex of the core for vertex v of the map
+    private int[] coreMate; // the half edges of the core, joined as in mate
+
+    private int[] code;
+    private GaussCodeCanonicalizer canonicalizer;
+    private int[] firstPos; // firstPos[k] and secondPos[k] are the positions of letter k in the code
+    private int[] secondPos;
+    private int[] component; // union-find over the letters, for the components of the interlacement graph
+
+    private long tried = 0;
+    private long notOneCurve = 0;
+    private long wrongSize = 0;
+    private long notKept = 0;
+    private long accepted = 0;
+
+    /**
+    * The constructor for RandomShadowSampler objects.
+    * @param crossings the number of crossings
+    * @param option option = 0 samples codes, option = 2 samples prime codes
+    * @param exact true to make every class of codes equally likely, false to draw each class in proportion to the number
+    * of rooted maps giving it
+    * @param seed the seed for the random number generator
+    */
+    public RandomShadowSampler(int crossings, int option, boolean exact, long seed)
+    {
+        numOfCrossings = crossings;
+        mapSize = (option == RANDOM_PRIME) ? 3 * crossings : crossings;
+        this.option = option;
+        this.exact = exact;
+        random = new Random(seed);
+
+        int nodes = 2 * mapSize + 1;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        vertexOf = new int[nodes];
+
+        mate = new int[4 * mapSize];
+        contour = new int[3 * mapSize + 2];
+        isBud = new boolean[3 * mapSize + 2];
+        stack = new int[mapSize + 1];
+
+        if (option == RANDOM_PRIME)
+        {
+            face = new int[4 * mapSize];
+            faceRep = new int[mapSize + 2];
+            colour = new int[mapSize + 2];
+            endA = new int[mapSize];
+            endB = new int[mapSize];
+            adjStart = new int[mapSize + 4];
+            adjEdge = new int[2 * mapSize];
+
+            disc = new int[mapSize + 2];
+            low = new int[mapSize + 2];
+            nextEntry = new int[mapSize + 2];
+            parentEdge = new int[mapSize + 2];
+            dfsStack = new int[mapSize + 2];
+            edgeStack = new int[mapSize];
+            blockOf = new int[mapSize];
+            coreIndex = new int[mapSize];
+            coreMate = new int[4 * crossings];
+        }
+
+        code = new int[2 * crossings];
+        canonicalizer = new GaussCodeCanonicalizer(crossings);
+        firstPos = new int[crossings + 1];
+        secondPos = new int[crossings + 1];
+        component = new int[crossings + 1];
+    }
+
+    /**
+    * The constructor for RandomShadowSampler objects, with a seed taken from the clock.
+    * @param crossings the number of crossings
+    * @param option option = 0 samples codes, option = 2 samples prime codes
+    * @param exact true to make every class of codes equally likely, false to draw each class in proportion to the number
+    * of rooted maps giving it
+    */
+    public RandomShadowSampler(int crossings, int option, boolean exact)
+    {
+        this(crossings, option, exact, System.nanoTime());
+    }
+
+    /**
+    * Draws maps until one gives an acceptable code.
+    * @return int[] the lex min representative of the code, in a new array
+    */
+    public int[] next()
+    {
+        while (true)
+        {
+            tried++;
+            randomMap();
+
+            if (option == RANDOM_PRIME)
+            {
+                if (largestBlock() != numOfCrossings)
+                {
+                    wrongSize++;
+                    continue;
+                }
+
+                if (!walkCore())
+                {
+                    notOneCurve++;
+                    continue;
+                }
+            }
+            else if (!walk())
+            {
+                notOneCurve++;
+                continue;
+            }
+
+            if (exact && !keep())
+            {
+                notKept++;
+                continue;
+            }
+
+            accepted++;
+            return canonicalizer.canonicalCopy(code);
+        }
+    }
+
+    /**
+    * Keeps the code walked with probability s / (4n 2^(c - 1)), where s is its number of symmetries and c is the number
+    * of components of its interlacement graph, so that every class is kept in the same proportion to the maps drawn.
+    * @return boolean true if the code is kept
+    */
+    private boolean keep()
+    {
+        if (random.nextInt(4 * numOfCrossings) >= canonicalizer.symmetryCount(code))
+        {
+            return false;
+        }
+
+        for (int c = interlacementComponents(); c > 1; c--)
+        {
+            if (random.nextBoolean())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+    * Counts the connected components of the interlacement graph of the code walked, in which two letters are joined if
+    * exactly one occurrence of one lies between the occurrences of the other.
+    * @return int the number of components
+    */
+    private int interlacementComponents()
+    {
+        for (int k = 1; k <= numOfCrossings; k++)
+        {
+            firstPos[k] = -1;
+            component[k] = k;
+        }
+
+        for (int i = 0; i < 2 * numOfCrossings; i++)
+        {
+            if (firstPos[code[i]] == -1)
+            {
+                firstPos[code[i]] = i;
+            }
+            else
+            {
+                secondPos[code[i]] = i;
+            }
+        }
+
+        int components = numOfCrossings;
+
+        for (int a = 1; a <= numOfCrossings; a++)
+        {
+            for (int b = a + 1; b <= numOfCrossings; b++)
+            {
+                boolean firstInside = firstPos[a] < firstPos[b] && firstPos[b] < secondPos[a];
+                boolean secondInside = firstPos[a] < secondPos[b] && secondPos[b] < secondPos[a];
+
+                if (firstInside != secondInside)
+                {
+                    int ra = findComponent(a);
+                    int rb = findComponent(b);
+
+                    if (ra != rb)
+                    {
+                        component[ra] = rb;
+                        components--;
+                    }
+                }
+            }
+        }
+
+        return components;
+    }
+
+    private int findComponent(int k)
+    {
+        while (component[k] != k)
+        {
+            component[k] = component[component[k]];
+            k = component[k];
+        }
+
+        return k;
+    }
+
+    /**
+    * Draws a number of codes and passes each to a sink.  The same class may be drawn more than once.
+    * @param count the number of codes to draw
+    * @param sink the sink which receives the codes, it is not closed by the sampler
+    */
+    public void sample(int count, GaussCodeSink sink)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            sink.accept(next());
+        }
+    }
+
+    /**
+    * Grows a uniform random binary tree with n inner nodes by Remy's algorithm, gives each inner node a bud in a random
+    * corner, and closes the tree into a rooted 4-regular planar map.
+    */
+    private void randomMap()
+    {
+        // start from a single leaf, and n times replace a random node x by an inner node with x and a new leaf below it
+        treeRoot = 0;
+        left[0] = -1;
+        right[0] = -1;
+        up[0] = -1;
+
+        for (int k = 0; k < mapSize; k++)
+        {
+            int x = random.nextInt(2 * k + 1);
+            int inner = 2 * k + 1;
+            int leaf = 2 * k + 2;
+
+            left[leaf] = -1;
+            right[leaf] = -1;
+            up[inner] = up[x];
+
+            if (up[x] == -1)
+            {
+                treeRoot = inner;
+            }
+            else if (left[up[x]] == x)
+            {
+                left[up[x]] = inner;
+            }
+            else
+            {
+                right[up[x]] = inner;
+            }
+
+            if (random.nextBoolean())
+            {
+                left[inner] = x;
+                right[inner] = leaf;
+            }
+            else
+            {
+                left[inner] = leaf;
+                right[inner] = x;
+            }
+
+            up[x] = inner;
+            up[leaf] = inner;
+        }
+
+        int v = 0;
+        for (int node = 0; node <= 2 * mapSize; node++)
+        {
+            vertexOf[node] = (left[node] == -1) ? -1 : v++;
+        }
+
+        // the root leaf sits on half edge 0 of the vertex of the root
+        contourLength = 0;
+        addToContour(4 * vertexOf[treeRoot], false);
+        visit(treeRoot);
+
+        close();
+    }
+
+    /**
+    * Lays out the half edges round the vertex of an inner node, with the bud in a random corner, and goes round the
+    * subtree below it adding its buds and leaves to the contour.
+    * @param node an inner node of the tree
+    */
+    private void visit(int node)
+    {
+        int v = vertexOf[node];
+        int bud = 1 + random.nextInt(3);
+        int slot = 1;
+
+        // half edge 0 leads up to the parent, the two children and the bud follow it in planar order
+        for (int s = 1; s <= 3; s++)
+        {
+            int h = 4 * v + s;
+
+            if (s == bud)
+            {
+                addToContour(h, true);
+                continue;
+            }
+
+            int child = (slot == 1) ? left[node] : right[node];
+            slot++;
+
+            if (vertexOf[child] == -1)
+            {
+                addToContour(h, false);
+            }
+            else
+            {
+                int c = 4 * vertexOf[child];
+                mate[h] = c;
+                mate[c] = h;
+                visit(child);
+            }
+        }
+    }
+
+    private void addToContour(int h, boolean bud)
+    {
+        contour[contourLength] = h;
+        isBud[contourLength] = bud;
+        contourLength++;
+    }
+
+    /**
+    * Joins each bud to the next free leaf going round the contour, which may wrap round the end of it, and joins the two
+    * leaves left over to each other to give the root edge.
+    */
+    private void close()
+    {
+        for (int j = 0; j < contourLength; j++)
+        {
+            if (!isBud[j])
+            {
+                mate[contour[j]] = -1;
+            }
+        }
+
+        // the buds are opening brackets and the leaves closing ones, and going round twice matches every bud
+        int top = 0;
+        for (int i = 0; i < 2 * contourLength; i++)
+        {
+            int j = i % contourLength;
+
+            if (isBud[j])
+            {
+                if (i < contourLength)
+                {
+                    stack[top++] = contour[j];
+                }
+            }
+            else if (top > 0 && mate[contour[j]] == -1)
+            {
+                int b = stack[--top];
+                mate[b] = contour[j];
+                mate[contour[j]] = b;
+            }
+        }
+
+        rootHalfEdge = -1;
+        for (int j = 0; j < contourLength; j++)
+        {
+            if (!isBud[j] && mate[contour[j]] == -1)
+            {
+                if (rootHalfEdge == -1)
+                {
+                    rootHalfEdge = contour[j];
+                }
+                else
+                {
+                    mate[rootHalfEdge] = contour[j];
+                    mate[contour[j]] = rootHalfEdge;
+                }
+            }
+        }
+    }
+
+    /**
+    * Walks straight ahead from the root edge, in a random one of its two directions, writing the vertices visited into code.
+    * The map has as many vertices as the codes sampled.
+    * @return boolean true if the walk visits every vertex twice, so the map is a single curve, false otherwise
+    */
+    private boolean walk()
+    {
+        int start = rootHalfEdge;
+        if (random.nextBoolean())
+        {
+            start = mate[start];
+        }
+
+        int h = start;
+        int k = 0;
+
+        do
+        {
+            if (k == code.length)
+            {
+                return false;
+            }
+
+            int arrive = mate[h];
+            int v = arrive >>> 2;
+            code[k++] = v + 1;
+
+            // leave by the opposite half edge
+            h = opposite(arrive);
+        }
+        while (h != start);
+
+        return k == code.length;
+    }
+
+    /**
+    * Finds the blocks of the Tait graph of the map, and keeps the largest as the core.
+    * @return int the number of edges of the largest block, which is the number of vertices of the core
+    */
+    private int largestBlock()
+    {
+        // trace the faces, the face after half edge h turns left into the half edge after the one h arrives at
+        Arrays.fill(face, -1);
+        numOfFaces = 0;
+
+        for (int h = 0; h < 4 * mapSize; h++)
+        {
+            if (face[h] != -1)
+            {
+                continue;
+            }
+
+            faceRep[numOfFaces] = h;
+            int g = h;
+            do
+            {
+                face[g] = numOfFaces;
+                g = turn(mate[g]);
+            }
+            while (g != h);
+
+            numOfFaces++;
+        }
+
+        // the two faces either side of an edge have different colours
+        Arrays.fill(colour, 0, numOfFaces, -1);
+        colour[0] = 0;
+        int top = 0;
+        dfsStack[top++] = 0;
+
+        while (top > 0)
+        {
+            int f = dfsStack[--top];
+            int g = faceRep[f];
+            do
+            {
+                int other = face[mate[g]];
+                if (colour[other] == -1)
+                {
+                    colour[other] = 1 - colour[f];
+                    dfsStack[top++] = other;
+                }
+                g = turn(mate[g]);
+            }
+            while (g != faceRep[f]);
+        }
+
+        // the corner between half edges s and s + 1 of a vertex lies in the face of half edge s + 1
+        Arrays.fill(adjStart, 0, numOfFaces + 2, 0);
+        for (int v = 0; v < mapSize; v++)
+        {
+            int first = (colour[face[4 * v + 1]] == 0) ? 1 : 0;
+            endA[v] = face[4 * v + first];
+            endB[v] = face[4 * v + first + 2];
+
+            if (endA[v] != endB[v])
+            {
+                adjStart[endA[v] + 2]++;
+                adjStart[endB[v] + 2]++;
+            }
+        }
+
+        for (int f = 0; f < numOfFaces; f++)
+        {
+            adjStart[f + 2] += adjStart[f + 1];
+        }
+
+        for (int v = 0; v < mapSize; v++)
+        {
+            if (endA[v] != endB[v])
+            {
+                adjEdge[adjStart[endA[v] + 1]++] = v;
+                adjEdge[adjStart[endB[v] + 1]++] = v;
+            }
+        }
+
+        // a loop of the Tait graph, a kink of the curve, is a block on its own
+        int blocks = 0;
+        int largest = 0;
+        coreBlock = -1;
+
+        for (int v = 0; v < mapSize; v++)
+        {
+            blockOf[v] = -1;
+            if (endA[v] == endB[v])
+            {
+                blockOf[v] = blocks++;
+                if (largest == 0)
+                {
+                    largest = 1;
+                    coreBlock = blockOf[v];
+                }
+            }
+        }
+
+        // Hopcroft-Tarjan, the map is connected so one search from face 0 reaches every face
+        Arrays.fill(disc, 0, numOfFaces, -1);
+        int time = 0;
+        int edgeTop = 0;
+        top = 0;
+
+        disc[0] = low[0] = time++;
+        nextEntry[0] = adjStart[0];
+        parentEdge[0] = -1;
+        dfsStack[top++] = 0;
+
+        while (top > 0)
+        {
+            int u = dfsStack[top - 1];
+
+            if (nextEntry[u] < adjStart[u + 1])
+            {
+                int e = adjEdge[nextEntry[u]++];
+                if (e == parentEdge[u])
+                {
+                    continue;
+                }
+
+                int w = (endA[e] == u) ? endB[e] : endA[e];
+
+                if (disc[w] == -1)
+                {
+                    edgeStack[edgeTop++] = e;
+                    parentEdge[w] = e;
+                    disc[w] = low[w] = time++;
+                    nextEntry[w] = adjStart[w];
+                    dfsStack[top++] = w;
+                }
+                else if (disc[w] < disc[u])
+                {
+                    edgeStack[edgeTop++] = e;
+                    low[u] = Math.min(low[u], disc[w]);
+                }
+
+                continue;
+            }
+
+            top--;
+            if (top == 0)
+            {
+                break;
+            }
+
+            int p = dfsStack[top - 1];
+            low[p] = Math.min(low[p], low[u]);
+
+            // p separates the subtree of u, so the edges pushed since the edge to u make a block
+            if (low[u] >= disc[p])
+            {
+                int size = 0;
+                int e;
+                do
+                {
+                    e = edgeStack[--edgeTop];
+                    blockOf[e] = blocks;
+                    size++;
+                }
+                while (e != parentEdge[u]);
+
+                if (size > largest)
+                {
+                    largest = size;
+                    coreBlock = blocks;
+                }
+
+                blocks++;
+            }
+        }
+
+        return largest;
+    }
+
+    /**
+    * Joins up the half edges of the core, each of the other factors of the map lies on one edge of the core and a walk
+    * into it comes out at its other end, and walks straight ahead from a random half edge of the core writing the
+    * vertices visited into code.
+    * @return boolean true if the walk visits every vertex of the core twice, so the core is a single curve, false otherwise
+    */
+    private boolean walkCore()
+    {
+        int k = 0;
+        for (int v = 0; v < mapSize; v++)
+        {
+            coreIndex[v] = (blockOf[v] == coreBlock) ? k++ : -1;
+        }
+
+        for (int v = 0; v < mapSize; v++)
+        {
+            if (coreIndex[v] == -1)
+            {
+                continue;
+            }
+
+            for (int s = 0; s < 4; s++)
+            {
+                int arrive = mate[4 * v + s];
+                while (coreIndex[arrive >>> 2] == -1)
+                {
+                    arrive = mate[opposite(arrive)];
+                }
+
+                coreMate[4 * coreIndex[v] + s] = 4 * coreIndex[arrive >>> 2] + (arrive & 3);
+            }
+        }
+
+        int start = random.nextInt(4 * numOfCrossings);
+        int h = start;
+        k = 0;
+
+        do
+        {
+            if (k == code.length)
+            {
+                return false;
+            }
+
+            int arrive = coreMate[h];
+            code[k++] = (arrive >>> 2) + 1;
+            h = opposite(arrive);
+        }
+        while (h != start);
+
+        return k == code.length;
+    }
+
+    // the half edge opposite h round its vertex
+    private static int opposite(int h)
+    {
+        return (h & ~3) | ((h + 2) & 3);
+    }
+
+    // the half edge after h round its vertex, in planar order
+    private static int turn(int h)
+    {
+        return (h & ~3) | ((h + 1) & 3);
+    }
+
+    /**
+    * Getter method for the sampling statistics.
+    * @return String the numbers of maps drawn and rejected, and the codes accepted
+    */
+    public String statistics()
+    {
+        return "maps: " + tried + "   core not of size n: " + wrongSize + "   not one curve: " + notOneCurve
+            + "   not kept for exactness: " + notKept + "   accepted: " + accepted + "\n"
+            + "rejection ratio: " + (tried == 0 ? 0 : (double) (tried - accepted) / tried) + "\n";
+    }
+
+    /**
+    * The main method.  This method allows sampling to be run though a command line interface.
+    * @param args command line arguements
+    */
+    public static void main(String[] args)
+    {
+        if (args.length < 3)
+        {
+            System.out.println("\nInput to this program is of the form 'java RandomShadowSampler <number> <option> <count> <option2>'"
+                + "\n \nwhere <number> is the crossing number for the Gauss codes"
+                + "\n \nwhere <option> is given as either:"
+                + "\n   0 to sample codes,"
+                + "\n   2 to sample prime codes."
+                + "\n \nwhere <count> is the number of codes to sample"
+                + "\n \n<option2> is given as 'verbose' to include the sampling rate and rejection ratio, and 'exact' to make every"
+                + "\n class of codes equally likely, rather than drawing each in proportion to the number of rooted maps giving it,"
+                + "\n which is only practical for all codes at low crossing numbers \n");
+            return;
+        }
+
+        int crossings = Integer.parseInt(args[0]);
+        int opt = args[1].equals("2") ? 2 : 0;
+        int count = Integer.parseInt(args[2]);
+        boolean v = false;
+        boolean exact = false;
+
+        for (int i = 3; i < args.length; i++)
+        {
+            if (args[i].equals("exact"))
+            {
+                exact = true;
+            }
+            else
+            {
+                v = true;
+            }
+        }
+
+        GaussCodeSink out = WriterGaussCodeSink.toStandardOut();
+        RandomShadowSampler sampler = new RandomShadowSampler(crossings, opt, exact);
+
+        long start = System.currentTimeMillis();
+        sampler.sample(count, out);
+        long time = System.currentTimeMillis() - start;
+
+        out.close();
+
+        if (v)
+        {
+            System.out.print(sampler.statistics());
+            System.out.println("cpu: " + time + "   codes per second: " + (time == 0 ? "-" : String.valueOf(count * 1000L / time)));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package gaussCodeGenerator;
+
+import java.util.*;
+
+    /**
+    * <h1>A GaussCodeSink which keeps the codes in memory, in lexicographic order</h1>
+    * This sink is used where the codes are wanted as one string, as by the GUI, and to merge the codes found by the
+    * workers of ParallelShadowGaussGenerator.  It holds every code, so for large runs a WriterGaussCodeSink should be
+    * used instead.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class SortedGaussCodeSink implements GaussCodeSink
+{
+    private TreeSet<int[]> codes;
+
+    /**
+    * The constructor for SortedGaussCodeSink objects.
+    */
+    public SortedGaussCodeSink()
+    {
+        codes = new TreeSet<int[]>(new Comparator<int[]>()
+        {
+            public int compare(int[] a, int[] b)
+            {
+                for (int i = 0; i < a.length; i++)
+                {
+                    if (a[i] != b[i])
+                    {
+                        return (a[i] < b[i]) ? -1 : 1;
+                    }
+                }
+                return 0;
+            }
+        });
+    }
+
+    /**
+    * Keeps a copy of the code
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    */
+    public void accept(int[] gaussCode)
+    {
+        codes.add(gaussCode.clone());
+    }
+
+    /**
+    * Adds every code kept by another SortedGaussCodeSink to this one
+    * @param other another sink
+    */
+    public void addAll(SortedGaussCodeSink other)
+    {
+        codes.addAll(other.codes);
+    }
+
+    public void close()
+    {
+        // nothing to do
+    }
+
+    /**
+    * Passes the codes, in lexicographic order, to another sink
+    * @param sink the sink to which the codes are passed
+    */
+    public void writeTo(GaussCodeSink sink)
+    {
+        for (int[] c : codes)
+        {
+            sink.accept(c);
+        }
+    }
+
+    /**
+    * Returns the number of codes kept
+    * @return int the number of codes kept
+    */
+    public int size()
+    {
+        return codes.size();
+    }
+
+    /**
+    * Expresses the codes as a string, each on its own line and in lexicographic order
+    * @return String the codes expressed as a string
+    */
+    public String toString()
+    {
+        StringBuilder s = new StringBuilder();
+        for (int[] c : codes)
+        {
+            s.append(WriterGaussCodeSink.codeToString(c)).append("\n");
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package gaussCodeGenerator;
+
+import java.io.*;
+
+    /**
+    * <h1>A GaussCodeSink which writes each code to a character stream</h1>
+    * Each code is written on its own line as soon as it is received, in the same format as the generators' solution strings.
+    * Use WriterGaussCodeSink.toStandardOut() to write the codes to the terminal.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public class WriterGaussCodeSink implements GaussCodeSink
+{
+    private PrintWriter writer;
+    private boolean closeWriter;
+    private long count = 0;
+
+    /**
+    * The constructor for WriterGaussCodeSink objects.
+    * @param out the stream the codes are written to
+    * @param closeWriter true if the stream is to be closed when the sink is closed
+    */
+    public WriterGaussCodeSink(Writer out, boolean closeWriter)
+    {
+        this.writer = new PrintWriter(new BufferedWriter(out));
+        this.closeWriter = closeWriter;
+    }
+
+    /**
+    * Creates a sink which writes the codes to standard out, which is flushed but not closed when the sink is closed
+    * @return WriterGaussCodeSink a sink writing to standard out
+    */
+    public static WriterGaussCodeSink toStandardOut()
+    {
+        return new WriterGaussCodeSink(new OutputStreamWriter(System.out), false);
+    }
+
+    /**
+    * Writes a code on its own line
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    */
+    public void accept(int[] gaussCode)
+    {
+        writer.println(codeToString(gaussCode));
+        count++;
+    }
+
+    /**
+    * Flushes the codes written so far to the stream
+    * @throws UncheckedIOException if any code couldn't be written, as the PrintWriter doesn't report it itself
+    */
+    public void flush()
+    {
+        writer.flush();
+        checkError();
+    }
+
+    /**
+    * Flushes the stream, and closes it if requested when the sink was created
+    * @throws UncheckedIOException if any code couldn't be written, so the output isn't taken to be complete
+    */
+    public void close()
+    {
+        if (closeWriter)
+        {
+            // checkError() flushes, so the error is looked for before the stream is closed
+            try
+            {
+                checkError();
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+        else
+        {
+            writer.flush();
+            checkError();
+        }
+    }
+
+    /**
+    * Flushes the stream and fails if any write to it has failed
+    * @throws UncheckedIOException if any code couldn't be written
+    */
+    private void checkError()
+    {
+        if (writer.checkError())
+        {
+            throw new UncheckedIOException(new IOException("only some of the " + count + " codes could be written"));
+        }
+    }
+
+    /**
+    * Returns the number of codes written
+    * @return long the number of codes written
+    */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+    * Expresses a shadow Gauss code expressed as an array of integers as a string
+    * @param gaussCode a shadow Gauss code expressed as an array of integers
+    * @return String the code expressed as a string
+    */
+    public static String codeToString(int[] gaussCode)
+    {
+        StringBuilder s = new StringBuilder(gaussCode.length * 4);
+        for (int i = 0; i < gaussCode.length; i++)
+        {
+            s.append(gaussCode[i]).append(", ");
+        }
+        return s.toString();
+    }
+}
@@ -23,7 +23,11 @@ import javax.swing.*;
 import java.util.*;
 import java.io.*;
 
-import java.util.concurrent.TimeUnit;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import knot.*;
 import gaussCodeGenerator.*;
@@ -31,6 +35,10 @@ import gaussCodeGenerator.*;
 	/**
 	* <h1>A GUI to access the generation and colouring functionality</h1>
 	* The KnotGUI class makes avaliable functionality from the gaussCodeGenerator.NaiveShadowGaussGenerator and knot.Colourist class, without the need to work on the command line.
+	* <p>
+	* Generation, colouring and drawing each run as a task on a shared pool of background threads, so the GUI stays responsive
+	* however long they take.  Starting a task cancels the task of the same kind which is still running, and the stop button
+	* cancels every task.  The progress of each task is shown in the status bar at the bottom of the window.
 	*
 	* @author  Craig Reilly
 	* @version 0.1
@@ -56,6 +64,21 @@ public class KnotGUI extends JFrame implements ActionListener {
 	private GaussCodeGenTask gen;
 	private ColouringTask colour;
 
+	// a new task cancels the running task of its kind, but that task may run on until it notices, so a new task is
+	// given a thread of its own rather than waiting behind it, and idle threads end after a minute
+	private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory()
+	{
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "KnotGUI task");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private JLabel statusLabel;
+	private JButton stopButton;
+
 	private int crossings = 0;
 	private int generationOptions = 0;
 
@@ -83,6 +106,8 @@ public class KnotGUI extends JFrame implements ActionListener {
 
 		layoutCenter();
 
+		layoutBottom();
+
 		pack();
 		setVisible(true);
 	}
@@ -165,7 +190,7 @@ public class KnotGUI extends JFrame implements ActionListener {
             	updateGUI = true;
             	generationOptions = 0;
             	crossings = Integer.parseInt(JOptionPane.showInputDialog("Enter crossing number"));
-            	(gen = new GaussCodeGenTask()).execute();
+            	gen = start(gen, new GaussCodeGenTask());
 
             }
         });
@@ -177,7 +202,7 @@ public class KnotGUI extends JFrame implements ActionListener {
             	updateGUI = true;
             	generationOptions = 2;
             	crossings = Integer.parseInt(JOptionPane.showInputDialog("Enter crossing number"));
-            	(gen = new GaussCodeGenTask()).execute();
+            	gen = start(gen, new GaussCodeGenTask());
             }
         });
 
@@ -188,15 +213,16 @@ public class KnotGUI extends JFrame implements ActionListener {
             	JFileChooser fc = new JFileChooser();
 				int returnVal = fc.showSaveDialog(KnotGUI.this);
 
-				if (returnVal == JFileChooser.APPROVE_OPTION)
+				if (returnVal != JFileChooser.APPROVE_OPTION)
 				{
-					outputFile = fc.getSelectedFile();
+					return;
 				}
 
+				outputFile = fc.getSelectedFile();
             	updateGUI = false;
             	generationOptions = 1;
             	crossings = Integer.parseInt(JOptionPane.showInputDialog("Enter crossing number"));
-            	(gen = new GaussCodeGenTask()).execute();
+            	gen = start(gen, new GaussCodeGenTask());
             }
         });
 
@@ -207,15 +233,16 @@ public class KnotGUI extends JFrame implements ActionListener {
             	JFileChooser fc = new JFileChooser();
 				int returnVal = fc.showSaveDialog(KnotGUI.this);
 				
-				if (returnVal == JFileChooser.APPROVE_OPTION)
+				if (returnVal != JFileChooser.APPROVE_OPTION)
 				{
-					outputFile = fc.getSelectedFile();
+					return;
 				}
 
+				outputFile = fc.getSelectedFile();
 				updateGUI = false;
             	generationOptions = 3;
             	crossings = Integer.parseInt(JOptionPane.showInputDialog("Enter crossing number"));
-            	(gen = new GaussCodeGenTask()).execute();
+            	gen = start(gen, new GaussCodeGenTask());
             }
         });
 
@@ -390,112 +417,132 @@ public class KnotGUI extends JFrame implements ActionListener {
 		return invariants;
 	}
 
+	/**
+	 * Constructs the status bar at the bottom of the GUI, where the progress of the running tasks is shown
+	 */
+	public void layoutBottom()
+	{
+		JPanel bottom = new JPanel(new BorderLayout());
+		statusLabel = new JLabel("Ready");
+
+		stopButton = makeButton("Stop");
+		stopButton.addActionListener(this);
+
+		bottom.add(statusLabel, BorderLayout.CENTER);
+		bottom.add(stopButton, BorderLayout.EAST);
+		add(bottom, BorderLayout.SOUTH);
+	}
+
 	/**
 	 * Deals with button presses on the GUI.
 	 * <p>
-	 * If the drawing buttons are pressed an PictureDraw task is started on the event dispatch thread.  However, due to short comings in the drawing scripts, these tasks are joined
-	 * to the main thread, so that they can timed out after 15 seconds.  
+	 * If the drawing buttons are pressed a PictureDraw task is started in the background.  Due to short comings in the drawing scripts,
+	 * a drawing which hasn't finished after 15 seconds is cancelled, which destroys the Mathematica script drawing it.
 	 * <p>
-	 * If the colouring button is pressed a ColouringTask is started on the event dispatch thread.  This task colours the knot with all primes up less than 30.
+	 * If the colouring button is pressed a ColouringTask is started in the background.  This task colours the knot with all primes up less than 30.
+	 * <p>
+	 * If the stop button is pressed every running task is cancelled.
 	 * @param ae An actionevent corresponding to some button on the main panel of the GUI
 	 */
 	public void actionPerformed(ActionEvent ae)
 	{
 		if (ae.getSource() == planarPicButton)
 		{
-			picToBeDrawn = KNOT_DIAGRAM;
-
-			(picDraw = new PictureDraw()).execute();
-			try
-			{
-				picDraw.get(15, TimeUnit.SECONDS); 
-			}
-			catch(Exception e)
-			{
-				// imposing a timeout on picDraw doesn't impose a timeout on the athematica script that it calls
-				// here we kill the WolframKernel to stop the Mathematica script
-				try 
-				{
-					killWolfRamKernel();
-				}
-				catch(Exception ex)
-				{
-					System.out.println("There was an error in killing WolframKernel");
-				}
-				JOptionPane.showMessageDialog(this,
-   					"The Mathematica script used to draw knot\ndiagrams often finds nonprime knots difficult, \nso we've set a 15 second timeout.",
-    				"Drawing Timeout",
-    				JOptionPane.WARNING_MESSAGE);
-			}
+			draw(KNOT_DIAGRAM,
+				"The Mathematica script used to draw knot\ndiagrams often finds nonprime knots difficult, \nso we've set a 15 second timeout.");
 		}
 		else if (ae.getSource() == arcPicButton)
 		{
-			picToBeDrawn = ARC_PRESENTATION;
-			
-			(picDraw = new PictureDraw()).execute();
-			try
-			{
-				picDraw.get(15, TimeUnit.SECONDS); 
-			}
-			catch(Exception e)
+			draw(ARC_PRESENTATION,
+				"The Mathematica script used to draw arc\npresentations often finds nonprime knots difficult, \nso we've set a 15 second timeout.");
+		}
+		else if (ae.getSource() == colouringStartButton)
+		{
+			// reset the colouring label each time the colouring is called
+			colouringLabel.setText("This knot is colourable mod:");
+			colour = start(colour, new ColouringTask());
+		}
+		else if (ae.getSource() == stopButton)
+		{
+			for (SwingWorker<?, ?> task : new SwingWorker<?, ?>[] {picDraw, gen, colour})
 			{
-				// imposing a timeout on picDraw doesn't impose a timeout on the athematica script that it calls
-				// here we kill the WolframKernel to stop the Mathematica script
-				try 
-				{
-					killWolfRamKernel();
-				}
-				catch(Exception ex)
+				if (task != null)
 				{
-					System.out.println("There was an error in killing WolframKernel");
+					task.cancel(true);
 				}
-					
-				JOptionPane.showMessageDialog(this,
-    				"The Mathematica script used to draw arc\npresentations often finds nonprime knots difficult, \nso we've set a 15 second timeout.",
-    				"Drawing Timeout",
-    				JOptionPane.WARNING_MESSAGE);
-
 			}
 		}
-		else if (ae.getSource() == colouringStartButton)
+	}
+
+	/**
+	* Starts a task on the background threads, cancelling the task it replaces if that is still running
+	* @param running the task of the same kind which was started last, or null
+	* @param task the new task
+	* @return the new task
+	*/
+	private <T extends SwingWorker<?, ?>> T start(SwingWorker<?, ?> running, T task)
+	{
+		if (running != null && !running.isDone())
 		{
-			// reset the colouring label each time the colouring is called
-			colouringLabel.setText("This knot is colourable mod:");
-			(colour = new ColouringTask()).execute();
+			running.cancel(true);
 		}
+
+		executor.execute(task);
+		return task;
 	}
-	
+
 	/**
-	* Executes a command to kill all process called WolframKernel
-	* @throws IOException 
+	* Starts drawing the knot, and cancels the drawing if it hasn't finished after 15 seconds
+	* @param kind KNOT_DIAGRAM or ARC_PRESENTATION
+	* @param message the message shown if the drawing times out
 	*/
-	public void killWolfRamKernel() throws IOException
+	private void draw(int kind, final String message)
 	{
-		Runtime runtime = Runtime.getRuntime();
-		Process process = runtime.exec("pkill -9 WolframKernel");
-		System.out.println("Killed the WolframKernel");
+		picToBeDrawn = kind;
+		final PictureDraw task = picDraw = start(picDraw, new PictureDraw());
+
+		javax.swing.Timer timeout = new javax.swing.Timer(15000, new ActionListener()
+		{
+			public void actionPerformed(ActionEvent event)
+			{
+				// cancelling the task destroys the Mathematica script it is waiting for
+				if (!task.isDone() && task.cancel(true))
+				{
+					JOptionPane.showMessageDialog(KnotGUI.this, message, "Drawing Timeout", JOptionPane.WARNING_MESSAGE);
+				}
+			}
+		});
+
+		timeout.setRepeats(false);
+		timeout.start();
 	}
 
    	private class PictureDraw extends SwingWorker<Void, Void> {
+   		// read on the event dispatch thread, when the task is made
+   		private final int kind = picToBeDrawn;
+   		private final String gaussString = gaussInputField.getText();
+
        	@Override
        	public Void doInBackground() 
        	{
 			MathematicaAdapter ma = new MathematicaAdapter();
 
-			String gaussString = gaussInputField.getText();
-
 			try
 			{
-				if (picToBeDrawn == KNOT_DIAGRAM)
+				if (kind == KNOT_DIAGRAM)
 				{
 					System.out.println("Called planar diagram script");
 					ma.drawPlanarDiagram(gaussString);
 				}
-				else if (picToBeDrawn == ARC_PRESENTATION)
+				else if (kind == ARC_PRESENTATION)
 				{
 					ma.drawArcPresentation(gaussString);
 				}
 			}
+			catch (InterruptedException e)
+			{
+				System.out.println("The drawing was cancelled");
+			}
 			catch (Exception e)
 			{
 				System.out.println("Knot diagram picture not found");
@@ -506,14 +553,20 @@ public class KnotGUI extends JFrame implements ActionListener {
 
       	@Override
        	protected void done() {
+       			// a cancelled drawing leaves the last picture
+       			if (isCancelled())
+       			{
+       				return;
+       			}
+
         		try 
         		{
 	        		picture.setIcon(null);
-	        		if (picToBeDrawn == KNOT_DIAGRAM)
+	        		if (kind == KNOT_DIAGRAM)
 	        		{
 						picture.setIcon( new ImageIcon(ImageIO.read( new File("../resources/temp/planarPic.jpg") ) ) );
 	        		}
-	        		else if (picToBeDrawn == ARC_PRESENTATION)
+	        		else if (kind == ARC_PRESENTATION)
 	        		{
 	        			picture.setIcon( new ImageIcon(ImageIO.read( new File("../resources/temp/arcPic.jpg") ) ) );
 	        		}
@@ -527,82 +580,189 @@ public class KnotGUI extends JFrame implements ActionListener {
        	}
    	}
 
-   	private class GaussCodeGenTask extends SwingWorker<Void, Void> {
+   	private class GaussCodeGenTask extends SwingWorker<String, String> {
+   		// read on the event dispatch thread, when the task is made
+   		private final int n = crossings;
+   		private final int option = generationOptions;
+   		private final boolean toGUI = updateGUI;
+   		private final File file = outputFile;
+
+   		private long lastReport = 0;
+
        	@Override
-       	public Void doInBackground() 
+       	public String doInBackground() throws IOException
        	{
-       		// we don't want verbose output --- that's why false
-            BinaryModelShadowGaussGenerator sGG = new BinaryModelShadowGaussGenerator(crossings, generationOptions, false);
+       		publish("Generating codes with " + n + " crossings");
 
-            gaussCode = sGG.solutionToString();
+       		// the codes are reported to the status bar at most ten times a second
+       		GenerationProgress progress = new GenerationProgress()
+       		{
+       			public void progress(int codes, int nodes)
+       			{
+       				long now = System.currentTimeMillis();
 
-       	    return null;
+       				if (now - lastReport >= 100)
+       				{
+       					lastReport = now;
+       					publish("Generating codes with " + n + " crossings: " + codes + " found, " + nodes + " nodes explored");
+       				}
+       			}
+       		};
+
+       		if (toGUI)
+       		{
+       			// we don't want verbose output --- that's why false
+       			SortedGaussCodeSink sink = new SortedGaussCodeSink();
+            	new BinaryModelShadowGaussGenerator(n, option, false, new int[0], sink, false, progress);
+
+            	return sink.toString();
+       		}
+
+       		// every code is written to the file as soon as it is found, rather than being held until the end
+       		FileGaussCodeSink sink = new FileGaussCodeSink(file);
+
+       		try
+       		{
+            	BinaryModelShadowGaussGenerator sGG = new BinaryModelShadowGaussGenerator(n, option, false, new int[0], sink, false, progress);
+            	return sGG.numberOfSolutions() + " codes written to " + file.getName();
+       		}
+       		finally
+       		{
+       			sink.close();
+       		}
        	}	
 
+       	protected void process(List<String> messages)
+       	{
+       		statusLabel.setText(messages.get(messages.size() - 1));
+       	}
+
       	@Override
        	protected void done() 
        	{
-       		if (updateGUI)
+       		if (isCancelled())
        		{
-       			gaussInputField.setText(gaussCode);
+       			statusLabel.setText("Generation stopped");
+       			return;
        		}
-       		else
-       		{
-       			PrintWriter writer = null; 
 
-       			try
-       			{
-       				writer = new PrintWriter(outputFile);
-       				writer.print(gaussCode);
-       			}
-       			catch(IOException e)
-       			{
-					JOptionPane.showMessageDialog(KnotGUI.this,
-    						"There was an error when writing the file.",
-    						"File Error",
-    						JOptionPane.WARNING_MESSAGE);
-				}
-				finally
-				{
-					writer.close();
-				}
+       		try
+       		{
+       			String result = get();
+
+	       		if (toGUI)
+	       		{
+	       			gaussCode = result;
+	       			gaussInputField.setText(gaussCode);
+	       			statusLabel.setText("Generated a code with " + n + " crossings");
+	       		}
+	       		else
+	       		{
+	       			statusLabel.setText(result);
+	       		}
        		}
+       		catch (Exception e)
+       		{
+       			statusLabel.setText("Generation failed");
+				JOptionPane.showMessageDialog(KnotGUI.this,
+    					"There was an error when writing the file.",
+    					"File Error",
+    					JOptionPane.WARNING_MESSAGE);
+			}
        	}
     }
    	
 
    	private class ColouringTask extends SwingWorker<Void, Integer> {
+   		// read on the event dispatch thread, when the task is made
+   		private final String code = gaussInputField.getText();
+
+   		public ColouringTask()
+   		{
+   			// progress events are delivered on the event dispatch thread
+   			addPropertyChangeListener(new PropertyChangeListener()
+   			{
+   				public void propertyChange(PropertyChangeEvent event)
+   				{
+   					if (event.getPropertyName().equals("progress") && !isDone())
+   					{
+   						statusLabel.setText("Colouring: " + event.getNewValue() + "% of the primes done");
+   					}
+   				}
+   			});
+   		}
+
 	    @Override
 	    public Void doInBackground() 
 	    {
-	    	System.out.println("In do in doInBackground");
-
-			gaussCode = gaussInputField.getText();
+			gaussCode = code;
 
-     		for (int i = 0; i < primes.length; i++)
-     		{
-     			System.out.println("colouring mod " + primes[i]);
-     			Colourist colourist = new Colourist(gaussCode, primes[i]);
+			// knots coloured in earlier sessions are looked up rather than coloured again
+			InvariantStore store = null;
+			try
+			{
+				store = new InvariantStore(new File("../resources/temp/invariants.store"));
+			}
+			catch (IOException e)
+			{
+				System.out.println("The invariant store couldn't be opened, so every prime will be coloured");
+			}
 
-     			if (colourist.isColourable())
-     			{
-     				publish(new Integer(primes[i]));
-     			}
-     		}
+			try
+			{
+				// a cancelled colouring stops after the prime it is colouring
+	     		for (int i = 0; i < primes.length && !isCancelled(); i++)
+	     		{
+	     			System.out.println("colouring mod " + primes[i]);
+	     			Colourist colourist = new Colourist(gaussCode, primes[i], store);
+
+	     			if (colourist.isColourable())
+	     			{
+	     				publish(new Integer(primes[i]));
+	     			}
+
+	     			setProgress(100 * (i + 1) / primes.length);
+	     		}
+			}
+			finally
+			{
+				// closed even if the colouring fails, so its lock and mapping aren't left for the garbage collector
+				if (store != null)
+				{
+					try
+					{
+						store.close();
+					}
+					catch (IOException e)
+					{
+						System.out.println("There was an error in closing the invariant store");
+					}
+				}
+			}
 	   	    return null;
 	   	}	
 
-	   	// Every now and then the event dispatch thread will call process
-		// In this example, I get it to set the count text value
+	   	// Every now and then the event dispatch thread will call process with the primes found since it was last called
 		protected void process(List<Integer> colourable) {
-			int lastVal = colourable.get(colourable.size()-1);
-			String alreadyOnLabel = colouringLabel.getText();
-			colouringLabel.setText(alreadyOnLabel + " " + lastVal);
+			StringBuilder label = new StringBuilder(colouringLabel.getText());
+			for (int p : colourable)
+			{
+				label.append(" ").append(p);
+			}
+			colouringLabel.setText(label.toString());
 		}
 
 	  	@Override
 	   	protected void done() 
 	   	{
+	   		if (isCancelled())
+	   		{
+	   			statusLabel.setText("Colouring stopped");
+	   			return;
+	   		}
+
+	   		statusLabel.setText("Colouring finished");
+
 	   		if (colouringLabel.getText().equals("This knot is colourable mod:"))
 	   		{
 	   			colouringLabel.setText("This knot isn't colourable mod 3, 5, or 7");
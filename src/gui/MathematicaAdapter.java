@@ -18,6 +18,9 @@ import java.util.*;
 
 public class MathematicaAdapter
 {
+	// a shell running its arguments in a new process group, and sending that group the SIGTERM the shell is destroyed with
+	private static final String[] PROCESS_GROUP = {"sh", "-c", "setsid \"$@\" & pid=$!; trap \"kill -TERM -$pid\" TERM; wait $pid", "sh"};
+
 	private LinkedList<Integer> gaussList = new LinkedList<Integer>();
 	private PrintWriter writer = null;
 
@@ -55,18 +58,7 @@ public class MathematicaAdapter
 
      	writer.close();
 
-     	Runtime r = Runtime.getRuntime();
-		Process p = r.exec("./planarDraw.m ../resources/temp/tempPlanar.txt");
-
-		p.waitFor();
-		BufferedReader b = new BufferedReader(new InputStreamReader(p.getInputStream()));
-		String line = "";
-
-		while ((line = b.readLine()) != null) {
-		  System.out.println(line);
-		}
-
-		b.close();
+     	runScript("./planarDraw.m", "../resources/temp/tempPlanar.txt");
 	}
 
 	/**
@@ -102,19 +94,36 @@ public class MathematicaAdapter
 
      	writer.close();
 
-     	Runtime r = Runtime.getRuntime();
-		Process p = r.exec("./arcTest.m ../resources/temp/tempArc.txt");
+     	runScript("./arcTest.m", "../resources/temp/tempArc.txt");
 
-		p.waitFor();
-		BufferedReader b = new BufferedReader(new InputStreamReader(p.getInputStream()));
-		String line = "";
+	}
 
-		while ((line = b.readLine()) != null) {
-		  System.out.println(line);
-		}
+	/**
+	* Runs a Mathematica script, with its output going straight to standard out.  If the thread running the script is
+	* interrupted, for example because the drawing was cancelled or timed out, the script's own process and the processes
+	* it started are destroyed, so no other Mathematica kernels are touched.  The script is run by setsid in a process
+	* group of its own, which a shell kills as a whole when the shell is destroyed.
+	* @param command the script and its arguments
+	* @exception IOException if the script can't be started
+	* @exception InterruptedException thrown if the mathematica script is interrupted
+	*/
+	private void runScript(String... command) throws IOException, InterruptedException
+	{
+		List<String> group = new ArrayList<String>(Arrays.asList(PROCESS_GROUP));
+		group.addAll(Arrays.asList(command));
 
-		b.close();
+		Process p = new ProcessBuilder(group).inheritIO().start();
 
+		try
+		{
+			p.waitFor();
+		}
+		finally
+		{
+			// the shell passes this on to the script's group, so the kernel is destroyed too if the script started it
+			// as a process of its own, nothing happens if the script has already finished
+			p.destroy();
+		}
 	}
 
 }
\ No newline at end of file
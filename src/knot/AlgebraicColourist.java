@@ -0,0 +1,651 @@
+package knot;
+
+import java.math.BigInteger;
+import java.util.*;
+
+    /**
+    * <h1>Knot colouring mod p by linear algebra</h1>
+    * The AlgebraicColourist class decides the colourings of a knot without a search.  A colouring mod p labels each arc of
+    * the knot so that 2x - y - z = 0 mod p at every crossing, where x is the over arc and y and z are the under arcs, and
+    * these equations are the rows of the colouring matrix of the knot, with one column per arc.  The matrix is built once
+    * from a walk around the knot, the same walk as Colourist uses.  One row and one column are then deleted, which fixes the
+    * colour of one arc at 0, and the reduced matrix is brought to Smith normal form diag(d_1, ..., d_r).  The knot
+    * determinant is the product of the d_i, and the colourings mod m are in one to one correspondence with the solutions of
+    * d_i y_i = 0 mod m, so
+    * <ul>
+    * <li>the knot has a colouring mod m, other than the m colourings with every arc the same, exactly when gcd(det, m) > 1,
+    * which for a prime p is when p divides the determinant,</li>
+    * <li>the number of colourings mod m, including the m trivial ones, is m times the product of gcd(d_i, m), with a
+    * further factor m for every column beyond the rank,</li>
+    * <li>a nontrivial colouring is found by mapping a solution y back through the column operations of the reduction.</li>
+    * </ul>
+    * The reduction is done in long arithmetic, and is done again with BigInteger only if a long overflows.  Colourist
+    * answers the same question with a constraint model for one p at a time, and can be used as a cross check.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class AlgebraicColourist
+{
+    private int numOfCrossings;
+    private int numOfSegments; // the pieces of the walk between two crossings, numbered as Colourist numbers its arcs
+    private int numOfArcs; // the over arcs of the knot, each made up of one or more segments
+    private int[] arcOf; // arcOf[i] is the arc which segment i belongs to
+    private long[][] matrix; // matrix[c][a] is the coefficient of arc a in the equation of crossing c
+
+    // the reduced matrix in Smith normal form, with the column operations applied to the identity in columnOps
+    private int rank;
+    private boolean big; // true if the long reduction overflowed and the BigInteger fields are used
+    private long[] factors;
+    private long[][] columnOps;
+    private BigInteger[] bigFactors;
+    private BigInteger[][] bigColumnOps;
+    private BigInteger determinant;
+
+    /**
+    * The constructor for AlgebraicColourist objects.  The colouring matrix is built and reduced here, so every question
+    * about the colourings of the knot is answered without further reduction.
+    * @param code the Gauss code of the knot which is to be coloured
+    */
+    public AlgebraicColourist(String code)
+    {
+        this(new KnotFromGaussCode().toKnot(code));
+    }
+
+    /**
+    * The constructor for AlgebraicColourist objects.
+    * @param knot the knot which is to be coloured
+    */
+    public AlgebraicColourist(Knot knot)
+    {
+        numOfCrossings = knot.size();
+        numOfSegments = 2 * numOfCrossings;
+
+        buildMatrix(knot);
+        reduce();
+    }
+
+    /**
+    * Getter method for the determinant of the knot
+    * @return BigInteger the absolute value of the determinant of the reduced colouring matrix
+    */
+    public BigInteger getDeterminant()
+    {
+        return determinant;
+    }
+
+    /**
+    * Getter method for the nonzero entries of the Smith normal form of the reduced colouring matrix, other than ones.
+    * Columns beyond the rank count as a factor of 0 each.
+    * @return BigInteger[] the invariant factors, in increasing order of divisibility
+    */
+    public BigInteger[] getInvariantFactors()
+    {
+        List<BigInteger> list = new ArrayList<BigInteger>();
+
+        for (int i = 0; i < numOfArcs - 1; i++)
+        {
+            BigInteger d = factor(i);
+
+            if (!d.equals(BigInteger.ONE))
+            {
+                list.add(d);
+            }
+        }
+
+        return list.toArray(new BigInteger[list.size()]);
+    }
+
+    /**
+    * Checks if the knot has a colouring mod m in which not every arc has the same colour
+    * @param m the number of colours, at least 2
+    * @return true if the knot is colourable mod m, false otherwise
+    */
+    public boolean isColourable(int m)
+    {
+        return !determinant.gcd(BigInteger.valueOf(m)).equals(BigInteger.ONE);
+    }
+
+    /**
+    * Checks the colourability of the knot for a number of moduli at once
+    * @param moduli the numbers of colours, each at least 2
+    * @return boolean[] the ith entry is true if the knot is colourable mod moduli[i], false otherwise
+    */
+    public boolean[] isColourable(int[] moduli)
+    {
+        boolean[] colourable = new boolean[moduli.length];
+
+        for (int i = 0; i < moduli.length; i++)
+        {
+            colourable[i] = isColourable(moduli[i]);
+        }
+
+        return colourable;
+    }
+
+    /**
+    * Counts the colourings of the knot mod m
+    * @param m the number of colours, at least 2
+    * @return BigInteger the number of colourings, including the m colourings in which every arc has the same colour
+    */
+    public BigInteger countColourings(int m)
+    {
+        BigInteger bm = BigInteger.valueOf(m);
+        BigInteger count = bm;
+
+        for (int i = 0; i < numOfArcs - 1; i++)
+        {
+            count = count.multiply(factor(i).gcd(bm));
+        }
+
+        return count;
+    }
+
+    /**
+    * Counts the colourings mod m of a knot from its invariant factors, as countColourings(int) does
+    * @param invariantFactors the invariant factors of the knot, as given by getInvariantFactors()
+    * @param m the number of colours, at least 2
+    * @return BigInteger the number of colourings, including the m colourings in which every arc has the same colour
+    */
+    public static BigInteger countColourings(BigInteger[] invariantFactors, int m)
+    {
+        BigInteger bm = BigInteger.valueOf(m);
+        BigInteger count = bm;
+
+        for (BigInteger d : invariantFactors)
+        {
+            count = count.multiply(d.gcd(bm));
+        }
+
+        return count;
+    }
+
+    /**
+    * Finds a colouring of the knot mod m in which not every arc has the same colour
+    * @param m the number of colours, at least 2
+    * @return int[] the colour of each segment of the walk around the knot, numbered as by Colourist, or null if the
+    * knot is not colourable mod m
+    */
+    public int[] witness(int m)
+    {
+        // find an entry of the diagonal which has a common factor with m, a column beyond the rank has d = 0
+        int column = -1;
+        BigInteger multiple = null;
+        BigInteger bm = BigInteger.valueOf(m);
+
+        for (int i = 0; i < numOfArcs - 1 && column == -1; i++)
+        {
+            BigInteger g = factor(i).gcd(bm);
+
+            if (!g.equals(BigInteger.ONE))
+            {
+                column = i;
+                multiple = bm.divide(g);
+            }
+        }
+
+        if (column == -1)
+        {
+            return null;
+        }
+
+        // the arc colours are the chosen column of the column operations times m / gcd(d, m), arc 0 keeps colour 0
+        int[] arcColour = new int[numOfArcs];
+
+        for (int a = 1; a < numOfArcs; a++)
+        {
+            BigInteger entry = big ? bigColumnOps[a - 1][column] : BigInteger.valueOf(columnOps[a - 1][column]);
+            arcColour[a] = entry.multiply(multiple).mod(bm).intValue();
+        }
+
+        int[] colour = new int[numOfSegments];
+
+        for (int i = 0; i < numOfSegments; i++)
+        {
+            colour[i] = arcColour[arcOf[i]];
+        }
+
+        return colour;
+    }
+
+    /**
+    * Walks around the knot, finding the segments over and under each crossing, joins the two over segments at each
+    * crossing into one arc, and builds the colouring matrix on the arcs.
+    * @param knot the knot which is to be coloured
+    */
+    private void buildMatrix(Knot knot)
+    {
+        int[][] over = new int[numOfCrossings][2];
+        int[][] under = new int[numOfCrossings][2];
+        int[] overCount = new int[numOfCrossings];
+        int[] underCount = new int[numOfCrossings];
+
+        int[] crossingAt = new int[numOfSegments];
+        int[] incomingOrientAt = new int[numOfSegments];
+
+        Knot.WalkIterator walk = knot.walk();
+        int i = 0;
+
+        while (walk.hasNext() && i < numOfSegments)
+        {
+            crossingAt[i] = ((Knot.Crossing) walk.next()).getOrderAdded() - 1;
+            incomingOrientAt[i] = walk.getIncomingArcOrient();
+            i++;
+        }
+
+        // segment i leaves a crossing with the orientation it arrived with and ends at the next crossing of the walk
+        for (i = 0; i < numOfSegments; i++)
+        {
+            int source = crossingAt[i];
+            int next = (i + 1) % numOfSegments;
+            int target = crossingAt[next];
+
+            if (incomingOrientAt[i] == Knot.OVER)
+            {
+                over[source][overCount[source]++] = i;
+            }
+            else
+            {
+                under[source][underCount[source]++] = i;
+            }
+
+            if (incomingOrientAt[next] == Knot.OVER)
+            {
+                over[target][overCount[target]++] = i;
+            }
+            else
+            {
+                under[target][underCount[target]++] = i;
+            }
+        }
+
+        // the segments on either side of an over crossing are the same arc
+        int[] parent = new int[numOfSegments];
+        for (int s = 0; s < numOfSegments; s++)
+        {
+            parent[s] = s;
+        }
+
+        for (int c = 0; c < numOfCrossings; c++)
+        {
+            parent[root(parent, over[c][0])] = root(parent, over[c][1]);
+        }
+
+        arcOf = new int[numOfSegments];
+        int[] arcOfRoot = new int[numOfSegments];
+        Arrays.fill(arcOfRoot, -1);
+        numOfArcs = 0;
+
+        for (int s = 0; s < numOfSegments; s++)
+        {
+            int r = root(parent, s);
+
+            if (arcOfRoot[r] == -1)
+            {
+                arcOfRoot[r] = numOfArcs++;
+            }
+
+            arcOf[s] = arcOfRoot[r];
+        }
+
+        matrix = new long[numOfCrossings][numOfArcs];
+
+        for (int c = 0; c < numOfCrossings; c++)
+        {
+            matrix[c][arcOf[over[c][0]]] += 2;
+            matrix[c][arcOf[under[c][0]]] -= 1;
+            matrix[c][arcOf[under[c][1]]] -= 1;
+        }
+    }
+
+    private static int root(int[] parent, int s)
+    {
+        while (parent[s] != s)
+        {
+            parent[s] = parent[parent[s]];
+            s = parent[s];
+        }
+
+        return s;
+    }
+
+    /**
+    * Deletes the last row and the first column of the colouring matrix, and brings what is left to Smith normal form,
+    * in long arithmetic if possible.
+    */
+    private void reduce()
+    {
+        int rows = Math.max(0, numOfCrossings - 1);
+        int cols = Math.max(0, numOfArcs - 1);
+
+        try
+        {
+            long[][] a = new long[rows][cols];
+            for (int r = 0; r < rows; r++)
+            {
+                for (int c = 0; c < cols; c++)
+                {
+                    a[r][c] = matrix[r][c + 1];
+                }
+            }
+
+            columnOps = identity(cols);
+            rank = smithNormalForm(a, columnOps);
+
+            factors = new long[cols];
+            determinant = BigInteger.ONE;
+            for (int i = 0; i < cols; i++)
+            {
+                factors[i] = (i < rank) ? Math.abs(a[i][i]) : 0;
+                determinant = determinant.multiply(BigInteger.valueOf(factors[i]));
+            }
+
+            big = false;
+        }
+        catch (ArithmeticException e)
+        {
+            // an entry outgrew a long, so start again with BigInteger
+            BigInteger[][] a = new BigInteger[rows][cols];
+            for (int r = 0; r < rows; r++)
+            {
+                for (int c = 0; c < cols; c++)
+                {
+                    a[r][c] = BigInteger.valueOf(matrix[r][c + 1]);
+                }
+            }
+
+            bigColumnOps = new BigInteger[cols][cols];
+            for (int r = 0; r < cols; r++)
+            {
+                for (int c = 0; c < cols; c++)
+                {
+                    bigColumnOps[r][c] = (r == c) ? BigInteger.ONE : BigInteger.ZERO;
+                }
+            }
+
+            rank = smithNormalForm(a, bigColumnOps);
+
+            bigFactors = new BigInteger[cols];
+            determinant = BigInteger.ONE;
+            for (int i = 0; i < cols; i++)
+            {
+                bigFactors[i] = (i < rank) ? a[i][i].abs() : BigInteger.ZERO;
+                determinant = determinant.multiply(bigFactors[i]);
+            }
+
+            columnOps = null;
+            big = true;
+        }
+    }
+
+    // the ith entry of the diagonal of the Smith normal form, 0 beyond the rank
+    private BigInteger factor(int i)
+    {
+        return big ? bigFactors[i] : BigInteger.valueOf(factors[i]);
+    }
+
+    private static long[][] identity(int n)
+    {
+        long[][] id = new long[n][n];
+        for (int i = 0; i < n; i++)
+        {
+            id[i][i] = 1;
+        }
+        return id;
+    }
+
+    /**
+    * Brings a matrix to Smith normal form in place, applying the same column operations to ops.  Each pivot is the
+    * entry of least absolute value left, the rest of its row and column are reduced to remainders against it until they
+    * are zero, and a row is added to the pivot row whenever the pivot does not divide the rest of the matrix.
+    * @param a the matrix, which is left diagonal
+    * @param ops a square matrix with as many rows as a has columns
+    * @return int the rank of the matrix
+    * @throws ArithmeticException if an entry overflows a long
+    */
+    private static int smithNormalForm(long[][] a, long[][] ops)
+    {
+        int rows = a.length;
+        int cols = (rows == 0) ? 0 : a[0].length;
+        int t = 0;
+
+        while (t < rows && t < cols)
+        {
+            // the least nonzero entry left becomes the pivot
+            int pr = -1;
+            int pc = -1;
+            for (int r = t; r < rows; r++)
+            {
+                for (int c = t; c < cols; c++)
+                {
+                    if (a[r][c] != 0 && (pr == -1 || abs(a[r][c]) < abs(a[pr][pc])))
+                    {
+                        pr = r;
+                        pc = c;
+                    }
+                }
+            }
+
+            if (pr == -1)
+            {
+                break;
+            }
+
+            swapRows(a, t, pr);
+            swapColumns(a, t, pc);
+            swapColumns(ops, t, pc);
+
+            boolean clear = false;
+            while (!clear)
+            {
+                clear = true;
+
+                for (int r = t + 1; r < rows; r++)
+                {
+                    long q = a[r][t] / a[t][t];
+                    if (q != 0)
+                    {
+                        for (int c = t; c < cols; c++)
+                        {
+                            a[r][c] = Math.subtractExact(a[r][c], Math.multiplyExact(q, a[t][c]));
+                        }
+                    }
+
+                    if (a[r][t] != 0)
+                    {
+                        // a remainder is left, it is smaller than the pivot so it becomes the pivot
+                        swapRows(a, t, r);
+                        clear = false;
+                    }
+                }
+
+                for (int c = t + 1; c < cols && clear; c++)
+                {
+                    long q = a[t][c] / a[t][t];
+                    if (q != 0)
+                    {
+                        for (int r = t; r < rows; r++)
+                        {
+                            a[r][c] = Math.subtractExact(a[r][c], Math.multiplyExact(q, a[r][t]));
+                        }
+                        for (int r = 0; r < ops.length; r++)
+                        {
+                            ops[r][c] = Math.subtractExact(ops[r][c], Math.multiplyExact(q, ops[r][t]));
+                        }
+                    }
+
+                    if (a[t][c] != 0)
+                    {
+                        swapColumns(a, t, c);
+                        swapColumns(ops, t, c);
+                        clear = false;
+                    }
+                }
+
+                // the pivot must divide every entry left, otherwise bring an entry it doesn't divide into its row
+                for (int r = t + 1; r < rows && clear; r++)
+                {
+                    for (int c = t + 1; c < cols && clear; c++)
+                    {
+                        if (a[r][c] % a[t][t] != 0)
+                        {
+                            for (int k = t; k < cols; k++)
+                            {
+                                a[t][k] = Math.addExact(a[t][k], a[r][k]);
+                            }
+                            clear = false;
+                        }
+                    }
+                }
+            }
+
+            t++;
+        }
+
+        return t;
+    }
+
+    /**
+    * Brings a matrix to Smith normal form in place, as smithNormalForm(long[][], long[][]) does, with BigInteger entries.
+    * @param a the matrix, which is left diagonal
+    * @param ops a square matrix with as many rows as a has columns
+    * @return int the rank of the matrix
+    */
+    private static int smithNormalForm(BigInteger[][] a, BigInteger[][] ops)
+    {
+        int rows = a.length;
+        int cols = (rows == 0) ? 0 : a[0].length;
+        int t = 0;
+
+        while (t < rows && t < cols)
+        {
+            int pr = -1;
+            int pc = -1;
+            for (int r = t; r < rows; r++)
+            {
+                for (int c = t; c < cols; c++)
+                {
+                    if (a[r][c].signum() != 0 && (pr == -1 || a[r][c].abs().compareTo(a[pr][pc].abs()) < 0))
+                    {
+                        pr = r;
+                        pc = c;
+                    }
+                }
+            }
+
+            if (pr == -1)
+            {
+                break;
+            }
+
+            swapRows(a, t, pr);
+            swapColumns(a, t, pc);
+            swapColumns(ops, t, pc);
+
+            boolean clear = false;
+            while (!clear)
+            {
+                clear = true;
+
+                for (int r = t + 1; r < rows; r++)
+                {
+                    BigInteger q = a[r][t].divide(a[t][t]);
+                    if (q.signum() != 0)
+                    {
+                        for (int c = t; c < cols; c++)
+                        {
+                            a[r][c] = a[r][c].subtract(q.multiply(a[t][c]));
+                        }
+                    }
+
+                    if (a[r][t].signum() != 0)
+                    {
+                        swapRows(a, t, r);
+                        clear = false;
+                    }
+                }
+
+                for (int c = t + 1; c < cols && clear; c++)
+                {
+                    BigInteger q = a[t][c].divide(a[t][t]);
+                    if (q.signum() != 0)
+                    {
+                        for (int r = t; r < rows; r++)
+                        {
+                            a[r][c] = a[r][c].subtract(q.multiply(a[r][t]));
+                        }
+                        for (int r = 0; r < ops.length; r++)
+                        {
+                            ops[r][c] = ops[r][c].subtract(q.multiply(ops[r][t]));
+                        }
+                    }
+
+                    if (a[t][c].signum() != 0)
+                    {
+                        swapColumns(a, t, c);
+                        swapColumns(ops, t, c);
+                        clear = false;
+                    }
+                }
+
+                for (int r = t + 1; r < rows && clear; r++)
+                {
+                    for (int c = t + 1; c < cols && clear; c++)
+                    {
+                        if (a[r][c].mod(a[t][t].abs()).signum() != 0)
+                        {
+                            for (int k = t; k < cols; k++)
+                            {
+                                a[t][k] = a[t][k].add(a[r][k]);
+                            }
+                            clear = false;
+                        }
+                    }
+                }
+            }
+
+            t++;
+        }
+
+        return t;
+    }
+
+    private static long abs(long x)
+    {
+        if (x == Long.MIN_VALUE)
+        {
+            throw new ArithmeticException("long overflow");
+        }
+
+        return Math.abs(x);
+    }
+
+    private static <T> void swapRows(T[] a, int i, int j)
+    {
+        T temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    private static void swapColumns(long[][] a, int i, int j)
+    {
+        for (long[] row : a)
+        {
+            long temp = row[i];
+            row[i] = row[j];
+            row[j] = temp;
+        }
+    }
+
+    private static void swapColumns(BigInteger[][] a, int i, int j)
+    {
+        for (BigInteger[] row : a)
+        {
+            BigInteger temp = row[i];
+            row[i] = row[j];
+            row[j] = temp;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package knot;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+    /**
+    * <h1>An implementation of the Knot interface using primitive arrays</h1>
+    *
+    * This knot is represented as follows.
+    * <ul>
+    *    <li> the crossings are numbered 1, 2, 3, ... in the order they were added, and a crossing is found by its number
+    *       without a search.
+    *    <li> the two outgoing arcs of crossing c are packed into arcs[2c] (the outgoing over crossing) and arcs[2c + 1]
+    *       (the outgoing under crossing).  Each holds twice the number of the arc's target crossing plus the arc's
+    *       orientation at its target, or -1 if there is no such arc.
+    *    <li> as in AdjSetKnot the first crossing is the crossing added last.
+    * </ul>
+    * Knot.Crossing and Knot.Arc objects are only made when they are asked for.  The Cursor returned by walk() reuses
+    * one Knot.Crossing object for each crossing, and nextIndex() walks the knot without making any objects at all, so a
+    * knot of hundreds of crossings is built and walked in linear time.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class ArrayKnot implements Knot
+{
+    private static final int NO_ARC = -1;
+
+    private int size;
+    private int[] arcs;
+    private String[] names; // null until a crossing is added with a name
+    private ArrayKnot.Crossing[] crossings; // the Knot.Crossing object of each crossing, made when first asked for
+
+    /**
+    * The constructor for ArrayKnot objects, with no crossings.
+    */
+    public ArrayKnot()
+    {
+        this(8);
+    }
+
+    /**
+    * The constructor for ArrayKnot objects, with no crossings and room for a number of crossings.
+    * @param capacity the number of crossings the knot will have, more may still be added
+    */
+    public ArrayKnot(int capacity)
+    {
+        arcs = new int[2 * (capacity + 1)];
+        Arrays.fill(arcs, NO_ARC);
+        size = 0;
+    }
+
+    ///////////////////////// Accessors /////////////////////////
+
+    /**
+    * Getter method for the size of the knot (the number of crossings)
+    * @return the number of crossings in the knot
+    */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+    * Getter method for the target of an outgoing arc
+    * @param crossing the number of the source crossing, by the order it was added
+    * @param orient the orientation of the arc at its source, OVER or UNDER
+    * @return the number of the target crossing, or 0 if there is no such arc
+    */
+    public int getTarget(int crossing, int orient)
+    {
+        int packed = arcs[slot(crossing, orient)];
+        return (packed == NO_ARC) ? 0 : (packed >> 1);
+    }
+
+    /**
+    * Getter method for the orientation of an outgoing arc at its target
+    * @param crossing the number of the source crossing, by the order it was added
+    * @param orient the orientation of the arc at its source, OVER or UNDER
+    * @return the orientation of the arc at its target, or -1 if there is no such arc
+    */
+    public int getTargetOrientation(int crossing, int orient)
+    {
+        int packed = arcs[slot(crossing, orient)];
+        return (packed == NO_ARC) ? -1 : (packed & 1);
+    }
+
+    ///////////////////////// Transformers /////////////////////////
+
+    /**
+    * Resets the knot object to its state after the constuctor is called
+    */
+    public void clear()
+    {
+        Arrays.fill(arcs, NO_ARC);
+        names = null;
+        crossings = null;
+        size = 0;
+    }
+
+    /**
+    * Adds crossings to the knot.
+    * @return the crossing just added to the knot
+    */
+    public Knot.Crossing addCrossing()
+    {
+        return crossing(addCrossingIndex());
+    }
+
+    /**
+    * Adds crossings to the knot, together with a string which is the name given to the crossing
+    * @param n the name to be given to the crossing
+    * @return the crossing just added to the knot
+    */
+    public Knot.Crossing addCrossing(String n)
+    {
+        int c = addCrossingIndex();
+
+        if (names == null)
+        {
+            names = new String[arcs.length / 2];
+        }
+        names[c] = n;
+
+        return crossing(c);
+    }
+
+    /**
+    * Adds a crossing to the knot without making a Knot.Crossing object
+    * @return the number of the crossing just added, by the order it was added
+    */
+    public int addCrossingIndex()
+    {
+        size++;
+
+        if (2 * size + 1 >= arcs.length)
+        {
+            int oldLength = arcs.length;
+            arcs = Arrays.copyOf(arcs, 2 * oldLength);
+            Arrays.fill(arcs, oldLength, arcs.length, NO_ARC);
+
+            if (names != null)
+            {
+                names = Arrays.copyOf(names, arcs.length / 2);
+            }
+            if (crossings != null)
+            {
+                crossings = Arrays.copyOf(crossings, arcs.length / 2);
+            }
+        }
+
+        return size;
+    }
+
+    /**
+    * Adds arcs to the knot, between crossings source and target, and sets their orientations
+    * @param source the source crossing for the arc
+    * @param target the target crossing for the arc
+    * @param sourceOrient the orientation of the arc at the source crossing
+    * @param targetOrient the orientation of the arc at the target crossing
+    * @return the arc just added to the knot
+    */
+    public Knot.Arc addArc(Knot.Crossing source, Knot.Crossing target, int sourceOrient, int targetOrient)
+    {
+        if (source == null || target == null)
+        {
+            throw new IllegalArgumentException("Tried adding an arc to a crossing which is not in the knot");
+        }
+
+        addArc(source.getOrderAdded(), target.getOrderAdded(), sourceOrient, targetOrient);
+
+        return new ArrayKnot.Arc(source.getOrderAdded(), sourceOrient);
+    }
+
+    /**
+    * Adds arcs to the knot, between crossings source and target given by their numbers, and sets their orientations
+    * @param source the number of the source crossing, by the order it was added
+    * @param target the number of the target crossing, by the order it was added
+    * @param sourceOrient the orientation of the arc at the source crossing
+    * @param targetOrient the orientation of the arc at the target crossing
+    */
+    public void addArc(int source, int target, int sourceOrient, int targetOrient)
+    {
+        if (target < 1 || target > size || (targetOrient != OVER && targetOrient != UNDER))
+        {
+            throw new IllegalArgumentException("Tried adding an arc to crossing " + target + " with orientation "
+                + targetOrient + " but the knot has " + size + " crossings");
+        }
+
+        arcs[slot(source, sourceOrient)] = (target << 1) | targetOrient;
+    }
+
+    /**
+    * Removes a crossing from the knot - NOT CURRENTLY IMPLEMENTED
+    * @param cross the crossing to be removed
+    */
+    public void removeCrossing(Knot.Crossing cross)
+    {
+        // not implemented, the crossings after it would have to be renumbered
+    }
+
+    /**
+    * Removes an arc from the knot
+    * @param arc the arc to be removed
+    */
+    public void removeArc(Knot.Arc arc)
+    {
+        ArrayKnot.Arc a = (ArrayKnot.Arc) arc;
+        arcs[slot(a.source, a.sourceOrient)] = NO_ARC;
+    }
+
+    /**
+    * Getter method for firstCrossing
+    * @return the crossing added last, or null if the knot has no crossings
+    */
+    public Knot.Crossing getFirstCrossing()
+    {
+        return (size == 0) ? null : crossing(size);
+    }
+
+    /**
+    * Getter method for the crossings, found by the order in which they were added to the knot
+    * @param i 1 if gettng 1st added, 2 if getting 2nd added, and so on
+    * @return ith crossing added, or null if there is no such crossing
+    */
+    public Knot.Crossing getByOrderAdded(int i)
+    {
+        return (i < 1 || i > size) ? null : crossing(i);
+    }
+
+    ///////////////////////// Iterators /////////////////////////
+
+    /**
+    * Iterator to traverse the knot in the order of a walk around it
+    * @return ArrayKnot.Cursor
+    */
+    public Knot.WalkIterator walk()
+    {
+        return new ArrayKnot.Cursor();
+    }
+
+    /**
+    * A cursor to walk around the knot, which can be reset and walked again
+    * @return ArrayKnot.Cursor
+    */
+    public ArrayKnot.Cursor cursor()
+    {
+        return new ArrayKnot.Cursor();
+    }
+
+    ///////////////////////// Helpers /////////////////////////
+
+    // the index in arcs of the outgoing arc of crossing c with source orientation orient
+    private int slot(int c, int orient)
+    {
+        if (c < 1 || c > size || (orient != OVER && orient != UNDER))
+        {
+            throw new IllegalArgumentException("There is no arc leaving crossing " + c + " with orientation " + orient
+                + " in a knot with " + size + " crossings");
+        }
+
+        return 2 * c + orient;
+    }
+
+    // the Knot.Crossing object of crossing c, made the first time it is asked for
+    private ArrayKnot.Crossing crossing(int c)
+    {
+        if (crossings == null)
+        {
+            crossings = new ArrayKnot.Crossing[arcs.length / 2];
+        }
+
+        if (crossings[c] == null)
+        {
+            crossings[c] = new ArrayKnot.Crossing(c);
+        }
+
+        return crossings[c];
+    }
+
+    ///////////////////////// Inner Classes for Crossings and Arcs - and iterators /////////////////////////
+
+    private class Crossing implements Knot.Crossing
+    {
+        // each Crossing object is a view of a crossing of the knot, by its number
+        private int index;
+
+        private Crossing(int index)
+        {
+            this.index = index;
+        }
+
+        public String getName()
+        {
+            return (names == null) ? null : names[index];
+        }
+
+        //get the array of outgoing arcs from this crossing, null where there is no arc
+        public Knot.Arc[] getOutArcs()
+        {
+            Knot.Arc[] outArcs = new Knot.Arc[2];
+
+            for (int orient = OVER; orient <= UNDER; orient++)
+            {
+                if (arcs[2 * index + orient] != NO_ARC)
+                {
+                    outArcs[orient] = new ArrayKnot.Arc(index, orient);
+                }
+            }
+
+            return outArcs;
+        }
+
+        public int getOrderAdded()
+        {
+            return index;
+        }
+    }
+
+    //////////////////////////////////////////////////
+
+    private class Arc implements Knot.Arc
+    {
+        // each Arc object is a view of an outgoing arc of the knot, by its source crossing and source orientation
+        private int source;
+        private int sourceOrient;
+
+        private Arc(int source, int sourceOrient)
+        {
+            this.source = source;
+            this.sourceOrient = sourceOrient;
+        }
+
+        public Knot.Crossing getTarget()
+        {
+            return getByOrderAdded(ArrayKnot.this.getTarget(source, sourceOrient));
+        }
+
+        public int getSourceOrientation()
+        {
+            return sourceOrient;
+        }
+
+        public int getTargetOrientation()
+        {
+            return ArrayKnot.this.getTargetOrientation(source, sourceOrient);
+        }
+    }
+
+    //////////////////////////////////////////////////
+
+    /**
+    * The cursor walks around the knot from the first crossing, leaving it on its over arc, until it has passed through
+    * each crossing twice.  next() gives the Knot.Crossing of each crossing it reaches, and nextIndex() just its number.
+    */
+    public class Cursor implements Knot.WalkIterator
+    {
+        private int currentCrossing;
+        private int incomingArcOrient;
+        private int steps;
+
+        private Cursor()
+        {
+            reset();
+        }
+
+        /**
+        * Moves the cursor back to the start of the walk
+        */
+        public void reset()
+        {
+            currentCrossing = size;
+            incomingArcOrient = -1;
+            steps = 0;
+        }
+
+        public boolean hasNext()
+        {
+            return steps < 2 * size;
+        }
+
+        public Knot.Crossing next()
+        {
+            return crossing(nextIndex());
+        }
+
+        /**
+        * Moves the cursor to the next crossing of the walk
+        * @return the number of the crossing reached, by the order it was added
+        */
+        public int nextIndex()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            // leave the first crossing on its over arc, and every other crossing on the arc we arrived on
+            int packed = arcs[2 * currentCrossing + ((steps == 0) ? OVER : incomingArcOrient)];
+
+            if (packed == NO_ARC)
+            {
+                throw new IllegalStateException("Failed to walk around the knot because it was not closed.");
+            }
+
+            currentCrossing = packed >> 1;
+            incomingArcOrient = packed & 1;
+            steps++;
+
+            return currentCrossing;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public int getIncomingArcOrient()
+        {
+            return incomingArcOrient;
+        }
+    }
+}
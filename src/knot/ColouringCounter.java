@@ -0,0 +1,237 @@
+package knot;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+    /**
+    * <h1>Counts of the colourings of knots, cached by canonical Gauss code</h1>
+    * The number of colourings of a knot mod m, including the m colourings with every arc the same, is m times the
+    * number of solutions of the reduced colouring matrix, and is read from the invariant factors found by an
+    * AlgebraicColourist without listing any colouring.  For a prime p it is p to the power of the dimension of the
+    * space of colourings mod p.
+    * <p>
+    * The invariant factors of each knot are cached under the canonical form of its Gauss code, so that a knot which is
+    * read again, from any starting letter, in either direction, as its mirror image or with its crossings numbered
+    * differently, is not reduced again.  The canonical form is the least, letter by letter, of the codes given by
+    * starting the code at each letter, reading it forwards or backwards, and changing the sign of every letter or not,
+    * each with its crossings numbered in the order they first occur.  None of these change the colourings of the knot.
+    * The least recently used entries are dropped once the cache is full.  A ColouringCounter must not be used by more
+    * than one thread at once.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class ColouringCounter
+{
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private Map<String, BigInteger[]> cache;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+    * The constructor for ColouringCounter objects, caching the invariant factors of up to 65536 knots
+    */
+    public ColouringCounter()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+    * The constructor for ColouringCounter objects
+    * @param capacity the number of knots whose invariant factors are cached
+    */
+    public ColouringCounter(final int capacity)
+    {
+        cache = new LinkedHashMap<String, BigInteger[]>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<String, BigInteger[]> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+    * Counts the colourings of a knot for a number of moduli
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param moduli the numbers of colours, each at least 2
+    * @return BigInteger[] the ith entry is the number of colourings mod moduli[i], including the trivial ones
+    * @throws RuntimeException if the code is not the Gauss code of a knot
+    */
+    public BigInteger[] countColourings(int[] gaussCode, int length, int[] moduli)
+    {
+        BigInteger[] factors = getInvariantFactors(gaussCode, length);
+        BigInteger[] counts = new BigInteger[moduli.length];
+
+        for (int i = 0; i < moduli.length; i++)
+        {
+            counts[i] = AlgebraicColourist.countColourings(factors, moduli[i]);
+        }
+
+        return counts;
+    }
+
+    /**
+    * Counts the colourings of a knot mod m
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param m the number of colours, at least 2
+    * @return BigInteger the number of colourings, including the m colourings in which every arc has the same colour
+    * @throws RuntimeException if the code is not the Gauss code of a knot
+    */
+    public BigInteger countColourings(int[] gaussCode, int length, int m)
+    {
+        return AlgebraicColourist.countColourings(getInvariantFactors(gaussCode, length), m);
+    }
+
+    /**
+    * Getter method for the invariant factors of a knot, from the cache if the knot has been seen before
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @return BigInteger[] the invariant factors, as given by AlgebraicColourist.getInvariantFactors()
+    * @throws RuntimeException if the code is not the Gauss code of a knot
+    */
+    public BigInteger[] getInvariantFactors(int[] gaussCode, int length)
+    {
+        String key = GaussCodeReader.toString(canonical(gaussCode, length), length);
+        BigInteger[] factors = cache.get(key);
+
+        if (factors == null)
+        {
+            misses++;
+            factors = new AlgebraicColourist(new KnotFromGaussCode().toKnot(gaussCode, length)).getInvariantFactors();
+            cache.put(key, factors);
+        }
+        else
+        {
+            hits++;
+        }
+
+        return factors;
+    }
+
+    /**
+    * Getter method for the determinant of a knot, from the cache if the knot has been seen before
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @return BigInteger the determinant, the product of the invariant factors
+    * @throws RuntimeException if the code is not the Gauss code of a knot
+    */
+    public BigInteger getDeterminant(int[] gaussCode, int length)
+    {
+        BigInteger determinant = BigInteger.ONE;
+
+        for (BigInteger d : getInvariantFactors(gaussCode, length))
+        {
+            determinant = determinant.multiply(d);
+        }
+
+        return determinant;
+    }
+
+    /**
+    * Returns the number of knots whose invariant factors were found in the cache
+    * @return long the number of cache hits
+    */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+    * Returns the number of knots whose colouring matrix had to be reduced
+    * @return long the number of cache misses
+    */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+    * Finds the canonical form of a Gauss code.  A code with no negative letters is read as the alternating knot with
+    * that shadow, as KnotFromGaussCode reads it.
+    * @param gaussCode the letters of the Gauss code, which are not changed
+    * @param length the number of letters
+    * @return int[] the canonical form of the code
+    */
+    public static int[] canonical(int[] gaussCode, int length)
+    {
+        return canonical(gaussCode, length, true);
+    }
+
+    /**
+    * Finds the canonical form of a Gauss code, with or without its mirror image.  Invariants which change under
+    * mirroring, such as the Khovanov polynomial, need the canonical form without it.
+    * @param gaussCode the letters of the Gauss code, which are not changed
+    * @param length the number of letters
+    * @param mirrorImages true if the code and its mirror image have the same canonical form
+    * @return int[] the canonical form of the code
+    */
+    public static int[] canonical(int[] gaussCode, int length, boolean mirrorImages)
+    {
+        boolean signed = false;
+        for (int i = 0; i < length; i++)
+        {
+            signed = signed || (gaussCode[i] < 0);
+        }
+
+        int[] code = new int[length];
+        int maxLetter = 0;
+        for (int i = 0; i < length; i++)
+        {
+            code[i] = (signed || i % 2 == 0) ? gaussCode[i] : -Math.abs(gaussCode[i]);
+            maxLetter = Math.max(maxLetter, Math.abs(code[i]));
+        }
+
+        int[] best = null;
+        int[] candidate = new int[length];
+        int[] label = new int[maxLetter + 1];
+
+        for (int start = 0; start < length; start++)
+        {
+            for (int step = -1; step <= 1; step += 2)
+            {
+                for (int sign = (mirrorImages ? -1 : 1); sign <= 1; sign += 2)
+                {
+                    // number the crossings in the order they first occur, keeping each letter's sign
+                    Arrays.fill(label, 0);
+                    int next = 1;
+                    boolean less = (best == null);
+                    boolean greater = false;
+
+                    for (int i = 0; i < length && !greater; i++)
+                    {
+                        int x = sign * code[((start + step * i) % length + length) % length];
+                        int c = Math.abs(x);
+
+                        if (label[c] == 0)
+                        {
+                            label[c] = next++;
+                        }
+
+                        candidate[i] = (x < 0) ? -label[c] : label[c];
+
+                        if (!less)
+                        {
+                            less = candidate[i] < best[i];
+                            greater = candidate[i] > best[i];
+                        }
+                    }
+
+                    if (less)
+                    {
+                        best = candidate.clone();
+                    }
+                }
+            }
+        }
+
+        return (best == null) ? new int[0] : best;
+    }
+}
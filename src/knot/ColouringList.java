@@ -16,6 +16,8 @@ import java.util.NoSuchElementException;
 public class ColouringList
 {
 	private ColouringList.Node[] list;
+	private int[] slotOf; // slotOf[c] is one more than the index of crossing c in the list, or 0 if it isn't in the list
+	private int added;
 	private Knot knot;
 	private int size;
 
@@ -28,6 +30,8 @@ public class ColouringList
 		this.knot = k;
 		size = knot.size();
 		this.list = new Node[size];
+		this.slotOf = new int[size + 1];
+		this.added = 0;
 
 		//add all the crossings from the knot to the list
 		addCrossings();
@@ -54,41 +58,11 @@ public class ColouringList
     */
 	public void addCrossing(int cross)
 	{
-		boolean alreadyInList = false;
-		boolean success = false;
-
-		int crossing;
-
-		for(int i = 0; i < size; i++) 
-		{
-			if (list[i] == null)
-			{
-					list[i] = new Node();
-			}
-
-			crossing = list[i].getCrossing();
-
-			if (crossing == cross)
-			{
-				alreadyInList = true;
-				i = size;
-			}
-		}
-
-		int c = cross;
-
-		if (!alreadyInList)
+		if (cross >= 0 && cross <= size && slotOf[cross] == 0 && added < size)
 		{
-			for (int i = 0; i < size; i++)
-			{
-				crossing = list[i].getCrossing();
-
-				if (crossing == -1 && !success)
-				{
-					list[i].setCrossing(c);
-					success = true;
-				}
-			}
+			list[added] = new Node();
+			list[added].setCrossing(cross);
+			slotOf[cross] = ++added;
 		}
 	}
 
@@ -99,17 +73,9 @@ public class ColouringList
     */
 	public void pushUnder(int cross, int walkPos)
 	{
-		int crossingFromList;
-
-		for (int i = 0; i < size; i++)
+		if (cross >= 0 && cross <= size && slotOf[cross] != 0)
 		{
-			crossingFromList = list[i].getCrossing();
-
-			if (cross == crossingFromList)
-			{
-				list[i].addUnder(walkPos);
-				i = size;
-			}
+			list[slotOf[cross] - 1].addUnder(walkPos);
 		}
 	}
 
@@ -120,17 +86,9 @@ public class ColouringList
     */	
     public void pushOver(int cross, int walkPos)
 	{
-		int crossingFromList;
-
-		for (int i = 0; i < size; i++)
+		if (cross >= 0 && cross <= size && slotOf[cross] != 0)
 		{
-			crossingFromList = list[i].getCrossing();
-
-			if (cross == crossingFromList)
-			{
-				list[i].addOver(walkPos);
-				i = size;
-			}
+			list[slotOf[cross] - 1].addOver(walkPos);
 		}
 	}
 
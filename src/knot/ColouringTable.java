@@ -0,0 +1,165 @@
+package knot;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+
+    /**
+    * <h1>A table of the colourability of a number of knots for a number of moduli</h1>
+    * Each row of the table is a knot, given by its Gauss code, with its determinant and whether it is colourable mod
+    * each of the moduli of the table.  The table is written with one row per line and its columns separated by tabs.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class ColouringTable
+{
+    private int[] moduli;
+    private List<String> codes = new ArrayList<String>();
+    private List<BigInteger> determinants = new ArrayList<BigInteger>();
+    private List<boolean[]> colourable = new ArrayList<boolean[]>();
+
+    /**
+    * The constructor for ColouringTable objects, with no rows.
+    * @param moduli the moduli of the columns of the table
+    */
+    public ColouringTable(int[] moduli)
+    {
+        this.moduli = moduli.clone();
+    }
+
+    /**
+    * Adds a row to the table
+    * @param code the Gauss code of the knot
+    * @param determinant the determinant of the knot
+    * @param row the ith entry is true if the knot is colourable mod the ith modulus of the table
+    */
+    public void add(String code, BigInteger determinant, boolean[] row)
+    {
+        codes.add(code);
+        determinants.add(determinant);
+        colourable.add(row);
+    }
+
+    /**
+    * Returns the number of knots in the table
+    * @return int the number of rows
+    */
+    public int size()
+    {
+        return codes.size();
+    }
+
+    /**
+    * Getter method for the moduli of the table
+    * @return int[] the moduli, in the order of the columns
+    */
+    public int[] getModuli()
+    {
+        return moduli.clone();
+    }
+
+    /**
+    * Checks an entry of the table
+    * @param row the index of the knot
+    * @param column the index of the modulus
+    * @return true if the knot is colourable mod the modulus, false otherwise
+    */
+    public boolean isColourable(int row, int column)
+    {
+        return colourable.get(row)[column];
+    }
+
+    /**
+    * Getter method for the determinant of a knot of the table
+    * @param row the index of the knot
+    * @return BigInteger the determinant of the knot
+    */
+    public BigInteger getDeterminant(int row)
+    {
+        return determinants.get(row);
+    }
+
+    /**
+    * Expresses the heading of the table as a string
+    * @return String the names of the columns, separated by tabs
+    */
+    public String header()
+    {
+        StringBuilder sb = new StringBuilder("code\tdet");
+
+        for (int p : moduli)
+        {
+            sb.append("\t").append(p);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+    * Expresses a row of a table as a string
+    * @param code the Gauss code of the knot
+    * @param determinant the determinant of the knot
+    * @param row the ith entry is true if the knot is colourable mod the ith modulus of the table
+    * @return String the code, the determinant and the colourability for each modulus, separated by tabs
+    */
+    public static String rowToString(String code, BigInteger determinant, boolean[] row)
+    {
+        StringBuilder sb = new StringBuilder(code).append("\t").append(determinant);
+
+        for (boolean b : row)
+        {
+            sb.append("\t").append(b);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+    * Expresses a row of a table of the numbers of colourings as a string
+    * @param code the Gauss code of the knot
+    * @param determinant the determinant of the knot
+    * @param counts the ith entry is the number of colourings of the knot mod the ith modulus of the table
+    * @return String the code, the determinant and the number of colourings for each modulus, separated by tabs
+    */
+    public static String rowToString(String code, BigInteger determinant, BigInteger[] counts)
+    {
+        StringBuilder sb = new StringBuilder(code).append("\t").append(determinant);
+
+        for (BigInteger count : counts)
+        {
+            sb.append("\t").append(count);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+    * Writes the table, its heading first
+    * @param out the stream the table is written to
+    */
+    public void writeTo(PrintStream out)
+    {
+        out.println(header());
+
+        for (int i = 0; i < codes.size(); i++)
+        {
+            out.println(rowToString(codes.get(i), determinants.get(i), colourable.get(i)));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(header()).append("\n");
+
+        for (int i = 0; i < codes.size(); i++)
+        {
+            sb.append(rowToString(codes.get(i), determinants.get(i), colourable.get(i))).append("\n");
+        }
+
+        return sb.toString();
+    }
+}
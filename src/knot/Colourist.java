@@ -2,6 +2,7 @@ package knot;
 
 import java.util.*;
 import java.io.*;
+import java.nio.channels.OverlappingFileLockException;
 import static choco.Choco.*;
 import choco.cp.model.CPModel;
 import choco.cp.solver.CPSolver;
@@ -11,11 +12,15 @@ import choco.kernel.model.variables.integer.IntegerVariable;
 import choco.kernel.model.variables.integer.IntegerExpressionVariable;
 import choco.kernel.model.constraints.Constraint;
 import choco.kernel.solver.variables.integer.IntDomainVar;
+import choco.kernel.solver.constraints.integer.extension.LargeRelation;
 import choco.cp.solver.search.integer.varselector.MinDomain;
 import choco.cp.solver.search.integer.varselector.StaticVarOrder;
 
     /**
     * <h1>An implementation of the knot colouring mod p using Choco</h1>
+    * The model has a variable for each strand of the knot, the arcs of the walk which are joined by passing over
+    * crossings, and a table constraint for each crossing.  The colourings are only searched up to adding a colour to
+    * every strand and multiplying every strand by a unit, which don't change whether the knot is colourable.
     *
     * @author  Craig Reilly
     * @version 0.1
@@ -42,8 +47,10 @@ public class Colourist
     private int numOfCrossings;
     private Knot.Arc[] arcAtPosition;
     private ColouringList colouringPositions; 	
-    private IntegerVariable[] arc; //arc[i] is an integer variable with domain [0, p - 1]
-    private IntegerVariable[] notAllSame;
+    private int[] strandOf; //strandOf[i] is the strand which the ith arc of the walk is part of
+    private IntegerVariable[] strand; //strand[i] is an integer variable with domain [0, p - 1]
+    private int[] gaussCode; // the letters of the code, kept to look the knot up in the store
+    private InvariantStore store; // null if the knot is always coloured
 
     /**
     * The constructor for ColouringList objects. The constructor takes the knot and describes it as a ColouringList
@@ -52,9 +59,45 @@ public class Colourist
     */
     public Colourist(String code, int colours)
     {
-        KnotFromGaussCode knotToGC = new KnotFromGaussCode();
+        this(new KnotFromGaussCode().toKnot(code), colours);
+    }
+
+    /**
+    * The constructor for Colourist objects which look the knot up in an InvariantStore before colouring it, and add
+    * it to the store once it has been coloured
+    * @param code the Gauss code of the knot which is to be coloured
+    * @param colours the number of colours which it is to be coloured by
+    * @param store the store of invariants, or null to always colour the knot
+    */
+    public Colourist(String code, int colours, InvariantStore store)
+    {
+        this(new KnotFromGaussCode().toKnot(code), colours);
+        this.gaussCode = GaussCodeReader.parse(code);
+        this.store = store;
+    }
+
+    /**
+    * The constructor for Colourist objects which look the knot up in an InvariantStore before colouring it
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param colours the number of colours which it is to be coloured by
+    * @param store the store of invariants, or null to always colour the knot
+    */
+    public Colourist(int[] gaussCode, int length, int colours, InvariantStore store)
+    {
+        this(new KnotFromGaussCode().toKnot(gaussCode, length), colours);
+        this.gaussCode = Arrays.copyOf(gaussCode, length);
+        this.store = store;
+    }
 
-    	this.knot = knotToGC.toKnot(code);
+    /**
+    * The constructor for Colourist objects, for a knot which has already been built
+    * @param knot the knot which is to be coloured
+    * @param colours the number of colours which it is to be coloured by
+    */
+    public Colourist(Knot knot, int colours)
+    {
+    	this.knot = knot;
     	this.numOfCrossings = knot.size();
     	this.numOfArcs = (this.numOfCrossings) * 2;
     	this.pColours = colours;
@@ -75,9 +118,6 @@ public class Colourist
 
     	this.arcAtPosition = new Knot.Arc[numOfArcs];
 
-    	arc = makeIntVarArray("arc ", numOfArcs, 0, pColours - 1);
-    	notAllSame = makeIntVarArray("notAllSame", numOfArcs - 1, 0, 1);
-
     	model = new CPModel();
         solver = new CPSolver();
 
@@ -98,96 +138,178 @@ public class Colourist
     * @return true if the knot is colourable mod p ,false otherwise
     */
     public boolean isColourable(boolean print)
+    {
+        return isColourable(print, System.out);
+    }
+
+    /**
+    * Colours the knot, reporting the solution to the given stream rather than to standard out
+    * @param print true if full solution to be reported, false if just success to be reported
+    * @param out the stream the solution is reported to
+    * @return true if the knot is colourable mod p ,false otherwise
+    */
+    public boolean isColourable(boolean print, PrintStream out)
     {
         boolean verbose = print;
+
+        // a knot which has been coloured before needs no search, unless the solution is to be reported
+        Boolean stored = verbose ? null : lookUp();
+
+        if (stored != null)
+        {
+            //feasible -- nodes -- cpu
+            out.println("" + stored + " 0 0");
+            return stored;
+        }
+
     	Knot.WalkIterator walk = knot.walk();
 
         //counter for how many arcs we've seen
     	int i = 0; 
 
-    	Knot.Crossing crossing;
-    	Knot.Crossing target;
-    	int crossingNum;
-    	int incomingOrient;
-    	int targetNum;
-    	int targetOrient;
-    	Knot.Arc[] outArcs = new Knot.Arc[2]; 
+    	int[] crossingAt = new int[numOfArcs];
+    	int[] incomingOrientAt = new int[numOfArcs];
     	colouringPositions = new ColouringList(knot);
 
+    	// the ith crossing of the walk is left on the arc it was arrived on, which is the ith arc, so the ith arc
+    	// ends at the next crossing of the walk with the orientation that crossing is arrived on
+    	while (walk.hasNext() && i < numOfArcs)
+    	{
+    		crossingAt[i] = ((Knot.Crossing) walk.next()).getOrderAdded();
+    		incomingOrientAt[i] = walk.getIncomingArcOrient();
+    		i++;
+    	}
+
     	// get the positions of the arcs in the walk associated with the crossings and add them to the stacks associated
     	// with the crossings in the colouringPosistions
-    	while(walk.hasNext())
+    	for (i = 0; i < numOfArcs; i++)
     	{
-    		crossing = (Knot.Crossing) walk.next();
-    		outArcs = crossing.getOutArcs();
-    		crossingNum = crossing.getOrderAdded();
-    		incomingOrient = walk.getIncomingArcOrient();
-
     		//if the incoming orientation of the ith arc is is over then add i to the over stack for this crossing
-    		if (incomingOrient == Knot.OVER)
+    		if (incomingOrientAt[i] == Knot.OVER)
     		{
-    			colouringPositions.pushOver(crossingNum, i);
+    			colouringPositions.pushOver(crossingAt[i], i);
     		}
     		else // if the incoming orientation is under, then add i to the under stack for this crossing
     		{
-    			colouringPositions.pushUnder(crossingNum, i);
+    			colouringPositions.pushUnder(crossingAt[i], i);
     		}
 
-    		// retrieve the target crossing of this arc, the number associated with the target
-    		// and the arc's orientation at the target
-    		target = outArcs[incomingOrient].getTarget();
-    		targetNum = target.getOrderAdded();
-    		targetOrient = outArcs[incomingOrient].getTargetOrientation();
+    		// the target crossing of this arc and the arc's orientation at the target
+    		int next = (i + 1) % numOfArcs;
 
     		// if the target orientation of the ith arc is over then add i to the over stack of the target crossing
-    		if (targetOrient == Knot.OVER) 
+    		if (incomingOrientAt[next] == Knot.OVER) 
     		{
-    			colouringPositions.pushOver(targetNum, i);
+    			colouringPositions.pushOver(crossingAt[next], i);
     		}
     		else // if the target orientation of the arc is under then add i to the under stack of the target crossing
     		{
-    			colouringPositions.pushUnder(targetNum, i);
+    			colouringPositions.pushUnder(crossingAt[next], i);
     		}
-
-    		i++;
      	}
 
     	////////////////////////////////////////////
 
-     	//retrieve the arcs involved in each crossing, then apply constraints
-     	for (int j = 0; j < colouringPositions.size(); j++)
+     	// retrieve the arcs involved in each crossing, the two over arcs of a crossing are parts of the same strand
+     	int crossings = colouringPositions.size();
+     	int[][] at = new int[crossings][];
+     	int[] parent = new int[numOfArcs];
+     	for (int k = 0; k < numOfArcs; k++)
      	{
-     		int over1, over2;
-     		int under1, under2;
-
-     		over1 = colouringPositions.popOver(j);
-     		over2 = colouringPositions.popOver(j);
-     		under1 = colouringPositions.popUnder(j);
-     		under2 = colouringPositions.popUnder(j);
-
-     		// overarcs at a crossing must take the same value
-     		model.addConstraint(eq(arc[over1], arc[over2]));
-
-     		// labels on arcs have to conform at crossings to the equation
-     		//		2x - y - z = 0 mod p
-     		//
-     		// where x is an over crossing and y and z are the undercrossings
-     		// WLOG we can choose either overcrossing
-     		Constraint negP = eq(minus(minus(mult(arc[over1], 2), arc[under1]), arc[under2]), ((-1) * pColours));
-     		Constraint zero = eq(minus(minus(mult(arc[over1], 2), arc[under1]), arc[under2]), 0);
-     		Constraint p = eq(minus(minus(mult(arc[over1], 2), arc[under1]), arc[under2]), pColours);
-     		model.addConstraint(or(negP, zero, p));
+     		parent[k] = k;
+     	}
+
+     	for (int j = 0; j < crossings; j++)
+     	{
+     		int over1 = colouringPositions.popOver(j);
+     		int over2 = colouringPositions.popOver(j);
+     		int under1 = colouringPositions.popUnder(j);
+     		int under2 = colouringPositions.popUnder(j);
+
+     		at[j] = new int[] {over1, under1, under2};
+     		parent[find(parent, over1)] = find(parent, over2);
+     	}
+
+     	// number the strands in the order the walk reaches them, the first strand holds arc 0
+     	strandOf = new int[numOfArcs];
+     	int[] number = new int[numOfArcs];
+     	Arrays.fill(number, -1);
+     	int numOfStrands = 0;
+
+     	for (int k = 0; k < numOfArcs; k++)
+     	{
+     		int root = find(parent, k);
+
+     		if (number[root] == -1)
+     		{
+     			number[root] = numOfStrands++;
+     		}
+
+     		strandOf[k] = number[root];
+     	}
+
+     	strand = makeIntVarArray("strand ", numOfStrands, 0, pColours - 1);
+
+     	// labels on strands have to conform at crossings to the equation
+     	//		2x - y - z = 0 mod p
+     	//
+     	// where x is the over strand and y and z are the under strands, given as the table of its solutions
+     	LargeRelation relation = crossingRelation();
+
+     	for (int j = 0; j < crossings; j++)
+     	{
+     		int x = strandOf[at[j][0]];
+     		int y = strandOf[at[j][1]];
+     		int z = strandOf[at[j][2]];
+
+     		if (x != y && x != z && y != z)
+     		{
+     			model.addConstraint(relationTupleAC(new IntegerVariable[] {strand[x], strand[y], strand[z]}, relation));
+     		}
+     		else
+     		{
+     			// a kink, which passes under its own strand, so the table can't be given the same variable twice
+     			IntegerExpressionVariable sum = minus(minus(mult(strand[x], 2), strand[y]), strand[z]);
+     			model.addConstraint(or(eq(sum, -pColours), eq(sum, 0), eq(sum, pColours)));
+     		}
      	}
 
         ///////////////////////////////////////////
 
-     	// we must also set the constraint that some arc value is not the same as the rest
-     	for (int k = 0; k < numOfArcs - 1; k++)
+     	// adding a colour to every strand, or multiplying every strand by a unit, gives another colouring, so the first
+     	// strand is coloured 0 and the first strand which isn't 0 is coloured by a divisor of p.  Every unit multiple of a
+     	// divisor d is only reached from d, so no colouring is lost.  Some strand must not be 0, or every strand is the same.
+     	List<Integer> first = new ArrayList<Integer>();
+     	for (int d = 1; d < pColours; d++)
+     	{
+     		if (pColours % d == 0)
+     		{
+     			first.add(d);
+     		}
+     	}
+
+     	// coloured[i] is 1 if one of the first i + 1 strands isn't 0
+     	IntegerVariable[] coloured = new IntegerVariable[numOfStrands];
+     	coloured[0] = makeIntVar("coloured 0", 0, 0);
+     	model.addConstraint(eq(strand[0], 0));
+
+     	for (i = 1; i < numOfStrands; i++)
      	{
-     		model.addConstraint(ifOnlyIf(eq(arc[k], arc[k + 1]), eq(notAllSame[k], 0)));
+     		coloured[i] = makeIntVar("coloured " + i, 0, 1);
+
+     		Constraint[] allowed = new Constraint[first.size() + 2];
+     		allowed[0] = eq(coloured[i - 1], 1);
+     		allowed[1] = eq(strand[i], 0);
+     		for (int d = 0; d < first.size(); d++)
+     		{
+     			allowed[d + 2] = eq(strand[i], first.get(d));
+     		}
+
+     		model.addConstraint(or(allowed));
+     		model.addConstraint(ifOnlyIf(eq(coloured[i], 1), or(eq(coloured[i - 1], 1), neq(strand[i], 0))));
      	}
 
-     	model.addConstraint(geq(sum(notAllSame), 1));
+     	model.addConstraint(eq(coloured[numOfStrands - 1], 1));
 
      	solver.read(model);
 
@@ -202,7 +324,7 @@ public class Colourist
     	{
 	    	for (int k = 0; k < numOfArcs; k++)
 	    	{
-	    		solution = solver.getVar(arc[k]).getVal();
+	    		solution = solver.getVar(strand[strandOf[k]]).getVal();
 
 	    		switch (solution)
 	    		{
@@ -222,16 +344,87 @@ public class Colourist
 	    					break;
 	    		}
 
-				System.out.println(colour + "arc " + k + " colour " + solution + ANSI_RESET);
+				out.println(colour + "arc " + k + " colour " + solution + ANSI_RESET);
 
 	    	}
-            System.out.println();
+            out.println();
     	}
 
         //feasible -- nodes -- cpu
-    	System.out.println("" + solver.isFeasible() + " " + solver.getNodeCount() + " " + solver.getTimeCount());
+    	out.println("" + solver.isFeasible() + " " + solver.getNodeCount() + " " + solver.getTimeCount());
+
+        save(success);
 
     	return success;
     }
+
+    // the triples (x, y, z) of colours with 2x - y - z = 0 mod p
+    private LargeRelation crossingRelation()
+    {
+        List<int[]> tuples = new ArrayList<int[]>(pColours * pColours);
+
+        for (int x = 0; x < pColours; x++)
+        {
+            for (int y = 0; y < pColours; y++)
+            {
+                tuples.add(new int[] {x, y, ((2 * x - y) % pColours + pColours) % pColours});
+            }
+        }
+
+        int[] min = {0, 0, 0};
+        int[] max = {pColours - 1, pColours - 1, pColours - 1};
+        return makeLargeRelation(min, max, tuples, true);
+    }
+
+    // the root of the set of arcs which arc k is in
+    private static int find(int[] parent, int k)
+    {
+        while (parent[k] != k)
+        {
+            parent[k] = parent[parent[k]];
+            k = parent[k];
+        }
+
+        return k;
+    }
+
+    // the colourability of the knot from the store, or null if it isn't there
+    private Boolean lookUp()
+    {
+        if (store == null || gaussCode == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return store.getColourable(gaussCode, gaussCode.length, pColours);
+        }
+        catch (IOException | OverlappingFileLockException e)
+        {
+            // the store is only a cache, so carry on without it
+            System.err.println("Can't read the invariant store: " + e.getMessage());
+            store = null;
+            return null;
+        }
+    }
+
+    private void save(boolean colourable)
+    {
+        if (store == null || gaussCode == null)
+        {
+            return;
+        }
+
+        try
+        {
+            store.putColourable(gaussCode, gaussCode.length, pColours, colourable);
+        }
+        catch (IOException | OverlappingFileLockException e)
+        {
+            System.err.println("Can't write to the invariant store: " + e.getMessage());
+            store = null;
+        }
+    }
 }
 
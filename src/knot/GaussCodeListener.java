@@ -0,0 +1,22 @@
+package knot;
+
+    /**
+    * <h1>An interface setting the contract for a consumer of the Gauss codes read by a GaussCodeReader</h1>
+    *
+    * The reader passes each code to the listener as soon as its line has been read.  The array passed is reused for
+    * the next line, so a listener which keeps codes must copy them.  A knot is named if its line starts with a name, as
+    * the lines of R-H-T-table/up-to-11.txt do, or if it is read from a file of a directory, when it takes the name of
+    * the file without its extension, followed by the number of the line for lines after the first.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+public interface GaussCodeListener
+{
+	public void code(String name, int[] gaussCode, int length);
+	// Receive the Gauss code of one line, its letters are gaussCode[0] to gaussCode[length - 1], name may be null
+
+	public void malformed(String file, long line);
+	// Called for a line of file which is not blank but can't be read as a Gauss code, the line is counted from 1
+}
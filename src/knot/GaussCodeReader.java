@@ -0,0 +1,361 @@
+package knot;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+
+    /**
+    * <h1>A streaming reader of files of Gauss codes</h1>
+    * The file is read through a byte channel into a fixed buffer, and the letters of each line are decoded straight
+    * from the bytes into an int array which is reused for every line, so no String is made for a line unless it is
+    * named.  Each code is passed to a GaussCodeListener as soon as its line ends, so files of any length can be read.
+    * <p>
+    * The letters of a line may be separated by commas, spaces or tabs, and the line may start with a name, such as
+    * 3_1, separated from the code by a space or tab.  A line with anything else on it is passed to the listener as
+    * malformed, and blank lines are skipped.  A directory is read file by file, in the order of their names, and its
+    * subdirectories in the same way, which reads the per-knot files of the tables in resources/.  Only the files of a
+    * directory which match a glob are read, *_*.txt unless another is given, so the whole-table files alongside the
+    * per-knot ones, such as up-to-11.txt, aren't read as well.
+    * <p>
+    * A GaussCodeReader reads one file at a time, it must not be used by more than one thread at once.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class GaussCodeReader
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_NAME_LENGTH = 256;
+
+    /**
+    * The files of a directory read unless another glob is given, those named after a knot such as 3_1.txt
+    */
+    public static final String DEFAULT_GLOB = "*_*.txt";
+
+    private File file;
+    private PathMatcher matcher;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // the state of the line being read
+    private int[] code = new int[64];
+    private int length;
+    private int tokens;
+    private boolean blank;
+    private boolean malformed;
+    private String name;
+
+    // the state of the letter, or name, being read
+    private boolean inToken;
+    private boolean numeric;
+    private boolean negative;
+    private boolean signed;
+    private long value;
+    private int digits;
+    private byte[] nameBytes = new byte[MAX_NAME_LENGTH];
+    private int nameLength;
+
+    /**
+    * The constructor for GaussCodeReader objects, reading the per-knot files of a directory
+    * @param file a file of Gauss codes, or a directory of them
+    */
+    public GaussCodeReader(File file)
+    {
+        this(file, DEFAULT_GLOB);
+    }
+
+    /**
+    * The constructor for GaussCodeReader objects
+    * @param file a file of Gauss codes, or a directory of them
+    * @param glob the files of a directory which are read, such as *.txt for every text file
+    */
+    public GaussCodeReader(File file, String glob)
+    {
+        this.file = file;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    }
+
+    /**
+    * Reads every code of the file, or of every file of the directory
+    * @param listener the listener which is passed each code
+    * @throws IOException if a file can't be read
+    */
+    public void read(GaussCodeListener listener) throws IOException
+    {
+        if (file.isDirectory())
+        {
+            readDirectory(file, listener);
+        }
+        else
+        {
+            readFile(file, false, listener);
+        }
+    }
+
+    /**
+    * Reads every code from a channel, such as that of standard in
+    * @param channel the channel the codes are read from, which is not closed
+    * @param source the name of the channel for the listener's malformed lines
+    * @param listener the listener which is passed each code
+    * @throws IOException if the channel can't be read
+    */
+    public void read(ReadableByteChannel channel, String source, GaussCodeListener listener) throws IOException
+    {
+        read(channel, source, null, listener);
+    }
+
+    /**
+    * Reads the letters of a single Gauss code, such as one typed into the GUI
+    * @param text the Gauss code, which may start with a name
+    * @return int[] the letters of the code, or null if it is blank or is not a Gauss code
+    */
+    public static int[] parse(String text)
+    {
+        final int[][] letters = new int[1][];
+
+        GaussCodeListener listener = new GaussCodeListener()
+        {
+            public void code(String name, int[] gaussCode, int length)
+            {
+                letters[0] = (letters[0] == null) ? Arrays.copyOf(gaussCode, length) : letters[0];
+            }
+
+            public void malformed(String file, long line)
+            {
+                // no letters
+            }
+        };
+
+        try
+        {
+            byte[] bytes = text.replace('\n', ' ').getBytes(StandardCharsets.UTF_8);
+            new GaussCodeReader(null).read(Channels.newChannel(new ByteArrayInputStream(bytes)), "", listener);
+        }
+        catch (IOException e)
+        {
+            // a byte array can always be read
+        }
+
+        return letters[0];
+    }
+
+    /**
+    * Expresses a Gauss code as a string, in the form the tables are written in
+    * @param gaussCode the letters of the code
+    * @param length the number of letters
+    * @return String the letters separated by a comma and a space
+    */
+    public static String toString(int[] gaussCode, int length)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(gaussCode[i]);
+        }
+
+        return sb.toString();
+    }
+
+    private void readDirectory(File dir, GaussCodeListener listener) throws IOException
+    {
+        File[] files = dir.listFiles();
+
+        if (files == null)
+        {
+            throw new IOException("Can't list the files of " + dir);
+        }
+
+        Arrays.sort(files);
+
+        for (File f : files)
+        {
+            if (f.isDirectory())
+            {
+                readDirectory(f, listener);
+            }
+            else if (matcher.matches(f.toPath().getFileName()))
+            {
+                readFile(f, true, listener);
+            }
+        }
+    }
+
+    private void readFile(File f, boolean named, GaussCodeListener listener) throws IOException
+    {
+        String fileName = null;
+
+        if (named)
+        {
+            fileName = f.getName();
+            int dot = fileName.lastIndexOf('.');
+            fileName = (dot > 0) ? fileName.substring(0, dot) : fileName;
+        }
+
+        FileInputStream in = new FileInputStream(f);
+
+        try
+        {
+            read(in.getChannel(), f.getPath(), fileName, listener);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private void read(ReadableByteChannel channel, String source, String fileName, GaussCodeListener listener)
+        throws IOException
+    {
+        long line = 1;
+        startLine();
+
+        buffer.clear();
+        byte[] bytes = buffer.array();
+
+        while (channel.read(buffer) != -1)
+        {
+            int n = buffer.position();
+
+            for (int i = 0; i < n; i++)
+            {
+                byte b = bytes[i];
+
+                if (b == '\n')
+                {
+                    endLine(listener, source, fileName, line++);
+                }
+                else if (b == ',' || b == ' ' || b == '\t' || b == '\r')
+                {
+                    endToken();
+                }
+                else
+                {
+                    addByte(b);
+                }
+            }
+
+            buffer.clear();
+        }
+
+        // the last line of a file may have no newline, the per-knot files don't
+        endLine(listener, source, fileName, line);
+    }
+
+    private void startLine()
+    {
+        length = 0;
+        tokens = 0;
+        blank = true;
+        malformed = false;
+        name = null;
+        startToken();
+    }
+
+    private void startToken()
+    {
+        inToken = false;
+        numeric = true;
+        negative = false;
+        signed = false;
+        value = 0;
+        digits = 0;
+        nameLength = 0;
+    }
+
+    private void addByte(byte b)
+    {
+        inToken = true;
+        blank = false;
+
+        // the first token of a line may be a name, so keep its bytes
+        if (tokens == 0 && nameLength < MAX_NAME_LENGTH)
+        {
+            nameBytes[nameLength++] = b;
+        }
+
+        if (!numeric)
+        {
+            return;
+        }
+
+        if (b >= '0' && b <= '9')
+        {
+            value = 10 * value + (b - '0');
+            digits++;
+            numeric = (value <= Integer.MAX_VALUE);
+        }
+        else if ((b == '-' || b == '+') && digits == 0 && !signed)
+        {
+            negative = (b == '-');
+            signed = true;
+        }
+        else
+        {
+            numeric = false;
+        }
+    }
+
+    private void endToken()
+    {
+        if (!inToken)
+        {
+            return;
+        }
+
+        if (numeric && digits > 0)
+        {
+            if (length == code.length)
+            {
+                code = Arrays.copyOf(code, 2 * length);
+            }
+
+            code[length++] = negative ? (int) -value : (int) value;
+        }
+        else if (tokens == 0 && nameLength < MAX_NAME_LENGTH)
+        {
+            name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+        }
+        else
+        {
+            malformed = true;
+        }
+
+        tokens++;
+        startToken();
+    }
+
+    private void endLine(GaussCodeListener listener, String source, String fileName, long line)
+    {
+        endToken();
+
+        if (!blank)
+        {
+            if (malformed || length == 0)
+            {
+                listener.malformed(source, line);
+            }
+            else
+            {
+                if (name == null && fileName != null)
+                {
+                    name = (line == 1) ? fileName : fileName + ":" + line;
+                }
+
+                listener.code(name, code, length);
+            }
+        }
+
+        startLine();
+    }
+}
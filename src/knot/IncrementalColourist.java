@@ -0,0 +1,320 @@
+package knot;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+    /**
+    * <h1>Knot colouring mod a prime for a sequence of related Gauss codes</h1>
+    * The colouring equations of a knot are linear, so mod a prime p a knot is colourable exactly when the colouring
+    * matrix has a kernel of dimension at least 2 over the integers mod p, the constant colourings being one dimension.
+    * An IncrementalColourist keeps the matrix of the last code it was given in row echelon form, built up one letter of
+    * the code at a time, and for the next code it takes back only the rows of the letters after the prefix the two codes
+    * share.  Consecutive codes of the sorted output of the generators share long prefixes, so most of the elimination is
+    * kept from one code to the next.
+    * <p>
+    * The matrix is written on the segments between consecutive letters of the code, rather than on the segments of the
+    * walk Colourist uses, so that the rows of a crossing depend only on the letters up to its second occurrence.
+    * Segment k runs from letter k to letter k + 1, and the segment before the first letter is a variable of its own
+    * which is only made equal to the last segment once the whole code is known.  As in KnotFromGaussCode a code with no
+    * negative letters is read as the alternating knot with that shadow.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class IncrementalColourist
+{
+    private int p;
+    private int[] inverse; // inverse[x] is the inverse of x mod p
+
+    // the letters of the code pushed so far, with the signs they are read with
+    private int[] letters = new int[0];
+    private int pushed;
+    private int length; // the length of the codes the fields are sized for
+
+    // the positions of the occurrences of each crossing, -1 if it hasn't occurred yet
+    private int[] firstPos;
+    private int[] secondPos;
+
+    // the rows of the matrix in row echelon form, each with a leading 1 in column leading[r]
+    private int[][] rows;
+    private int[] leading;
+    private int rank;
+    private int[] rankBefore; // rankBefore[k] is the rank before letter k was pushed
+    private boolean closed; // true if the row closing the code has been added
+    private int rankBeforeClosing;
+    private int[] scratch;
+
+    private int kernelDimension = -1;
+    private int shared;
+
+    /**
+    * The constructor for IncrementalColourist objects
+    * @param p the number of colours, which must be prime
+    */
+    public IncrementalColourist(int p)
+    {
+        if (p < 2 || !BigInteger.valueOf(p).isProbablePrime(30))
+        {
+            throw new IllegalArgumentException("The number of colours must be prime, " + p + " is not");
+        }
+
+        this.p = p;
+
+        inverse = new int[p];
+        for (int x = 1; x < p; x++)
+        {
+            inverse[x] = BigInteger.valueOf(x).modInverse(BigInteger.valueOf(p)).intValue();
+        }
+    }
+
+    /**
+    * Colours a knot, keeping the elimination of the prefix it shares with the last knot coloured
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @return true if the knot is colourable mod p, false otherwise
+    * @throws IllegalArgumentException if the code is not the Gauss code of a knot
+    */
+    public boolean isColourable(int[] gaussCode, int length)
+    {
+        if (length < 2)
+        {
+            throw new IllegalArgumentException("A Gauss code of a knot has at least two letters");
+        }
+
+        if (length != this.length)
+        {
+            resize(length);
+        }
+
+        // a shadow code has no negative letters, so read it as alternating
+        boolean signed = false;
+        for (int i = 0; i < length; i++)
+        {
+            signed = signed || (gaussCode[i] < 0);
+        }
+
+        // take back the letters after the shared prefix, and the row closing the last code
+        shared = 0;
+        while (shared < pushed && letter(gaussCode, shared, signed) == letters[shared])
+        {
+            shared++;
+        }
+        popTo(shared);
+
+        try
+        {
+            while (pushed < length)
+            {
+                push(letter(gaussCode, pushed, signed));
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            popTo(0);
+            throw e;
+        }
+
+        // the segment before the first letter is the last segment, this row is taken back before any letter
+        rankBeforeClosing = rank;
+        closed = true;
+
+        int[] row = newRow();
+        row[0] = 1;
+        row[length] = p - 1;
+        addRow(row);
+
+        kernelDimension = (length + 1) - rank;
+
+        return kernelDimension >= 2;
+    }
+
+    /**
+    * Getter method for the dimension of the space of colourings of the last knot coloured, including the constant ones
+    * @return int the dimension of the kernel of the colouring matrix mod p, or -1 if no knot has been coloured
+    */
+    public int getKernelDimension()
+    {
+        return kernelDimension;
+    }
+
+    /**
+    * Getter method for the number of letters of the last knot coloured which were kept from the knot before it
+    * @return int the length of the prefix the last two codes shared
+    */
+    public int getSharedPrefix()
+    {
+        return shared;
+    }
+
+    /**
+    * Getter method for the number of colours
+    * @return int p
+    */
+    public int getModulus()
+    {
+        return p;
+    }
+
+    // the letter i of the code, with the sign it is read with
+    private static int letter(int[] gaussCode, int i, boolean signed)
+    {
+        return (signed || i % 2 == 0) ? gaussCode[i] : -Math.abs(gaussCode[i]);
+    }
+
+    private void resize(int length)
+    {
+        this.length = length;
+
+        letters = new int[length];
+        pushed = 0;
+
+        firstPos = new int[length / 2 + 1];
+        secondPos = new int[length / 2 + 1];
+        Arrays.fill(firstPos, -1);
+        Arrays.fill(secondPos, -1);
+
+        // one variable for each segment, and one for the segment before the first letter
+        rows = new int[length + 2][];
+        leading = new int[length + 2];
+        rank = 0;
+        closed = false;
+        rankBefore = new int[length + 1];
+        scratch = new int[length + 1];
+    }
+
+    // pushes letter x at the next position, adding the rows of its crossing if this is its second occurrence
+    private void push(int x)
+    {
+        int k = pushed;
+        int c = Math.abs(x);
+
+        if (c < 1 || c > length / 2 || secondPos[c] != -1)
+        {
+            throw new IllegalArgumentException("Letter " + x + " at position " + k + " is not the first or second "
+                + "occurrence of a crossing of a knot with " + (length / 2) + " crossings");
+        }
+
+        if (firstPos[c] != -1 && (letters[firstPos[c]] > 0) == (x > 0))
+        {
+            throw new IllegalArgumentException("Crossing " + c + " is passed " + ((x > 0) ? "over" : "under")
+                + " both times");
+        }
+
+        rankBefore[k] = rank;
+        letters[k] = x;
+        pushed++;
+
+        if (firstPos[c] == -1)
+        {
+            firstPos[c] = k;
+            return;
+        }
+
+        secondPos[c] = k;
+
+        int over = (x > 0) ? k : firstPos[c];
+        int under = (x > 0) ? firstPos[c] : k;
+
+        // the segments before and after the over letter are the same arc, the column of the segment before letter i
+        // is i and of the segment after it is i + 1
+        int[] row = newRow();
+        row[over] = 1;
+        row[over + 1] = (row[over + 1] + p - 1) % p;
+        addRow(row);
+
+        // twice the over arc less the two under segments is 0 mod p
+        row = newRow();
+        row[over] = 2 % p;
+        row[under] = (row[under] + p - 1) % p;
+        row[under + 1] = (row[under + 1] + p - 1) % p;
+        addRow(row);
+    }
+
+    // takes back the letters from position k on, and the row closing the code
+    private void popTo(int k)
+    {
+        if (closed)
+        {
+            removeRowsTo(rankBeforeClosing);
+            closed = false;
+        }
+
+        while (pushed > k)
+        {
+            pushed--;
+            int c = Math.abs(letters[pushed]);
+
+            if (secondPos[c] == pushed)
+            {
+                secondPos[c] = -1;
+            }
+            else
+            {
+                firstPos[c] = -1;
+            }
+
+            removeRowsTo(rankBefore[pushed]);
+        }
+    }
+
+    // takes back the rows added after the matrix had rank r
+    private void removeRowsTo(int r)
+    {
+        rank = Math.min(rank, r);
+    }
+
+    private int[] newRow()
+    {
+        Arrays.fill(scratch, 0);
+        return scratch;
+    }
+
+    // reduces a row by the rows of the matrix and adds it if it isn't in their span
+    private void addRow(int[] row)
+    {
+        // the rows are reduced in the order they were added, each has 0 in the leading columns of the rows before it
+        for (int r = 0; r < rank; r++)
+        {
+            int col = leading[r];
+            int factor = row[col];
+
+            if (factor != 0)
+            {
+                int[] pivot = rows[r];
+                for (int j = col; j < row.length; j++)
+                {
+                    row[j] = (int) ((row[j] + (long) (p - factor) * pivot[j]) % p);
+                }
+            }
+        }
+
+        int col = 0;
+        while (col < row.length && row[col] == 0)
+        {
+            col++;
+        }
+
+        if (col == row.length)
+        {
+            return;
+        }
+
+        int scale = inverse[row[col]];
+
+        if (rows[rank] == null)
+        {
+            rows[rank] = new int[row.length];
+        }
+
+        int[] pivot = rows[rank];
+        for (int j = 0; j < row.length; j++)
+        {
+            pivot[j] = (int) (((long) row[j] * scale) % p);
+        }
+
+        leading[rank] = col;
+        rank++;
+    }
+}
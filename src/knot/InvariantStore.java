@@ -0,0 +1,404 @@
+package knot;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+    /**
+    * <h1>A persistent store of the invariants of knots, shared between runs</h1>
+    * The store keeps the colourability of a knot for each modulus it has been tested with, its determinant and its
+    * Khovanov polynomial as given by Kh[] in KnotTheory, under the canonical form of its Gauss code.  The canonical form
+    * is that of ColouringCounter without mirror images, which change the Khovanov polynomial, so a knot given from any
+    * starting letter, in either direction or with its crossings numbered differently is found.
+    * <p>
+    * The file is append only.  It starts with a magic number, and each record is its length, the kind of invariant, the
+    * canonical code, the value and a CRC32 of all but the length.  A later record for the same knot and invariant
+    * replaces an earlier one.  When the store is opened the file is mapped into memory and every record is read into a
+    * hash map, so a lookup is a hash of the canonical code and costs no I/O.  A lookup which misses first reads any
+    * records other processes have appended since.
+    * <p>
+    * Records are appended under an exclusive lock on the file, so any number of processes, and threads of one process,
+    * may write to the same store.  A file lock is held for the whole JVM, so the stores of one JVM which share a file
+    * also take a lock for that file within the JVM before locking it, and never ask for the file lock twice at once.  A
+    * record which was cut off, by a writer which died while appending it, fails its check and is dropped by the next
+    * writer, and a reader never reads past a record which fails its check.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class InvariantStore implements Closeable
+{
+    private static final long MAGIC = 0x4b4e4f54494e5631L; // "KNOTINV1"
+    private static final int HEADER_LENGTH = 8;
+
+    private static final byte COLOURABLE = 1;
+    private static final byte DETERMINANT = 2;
+    private static final byte KHOVANOV = 3;
+
+    // the locks within this JVM of the files of open stores, by canonical path
+    private static final ConcurrentMap<String, Object> FILE_LOCKS = new ConcurrentHashMap<String, Object>();
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private Object fileLock;
+    private long indexed; // the length of the file which has been read into the index
+    private Map<String, Entry> index = new HashMap<String, Entry>();
+
+    /**
+    * The constructor for InvariantStore objects.  The file is made if it doesn't exist, and read if it does.
+    * @param f the file of the store
+    * @throws IOException if the file can't be opened, or is not a store
+    */
+    public InvariantStore(File f) throws IOException
+    {
+        fileLock = lockFor(f);
+        file = new RandomAccessFile(f, "rw");
+        channel = file.getChannel();
+
+        synchronized (fileLock)
+        {
+            open(f);
+        }
+    }
+
+    // writes the header of a new store, or checks that of an old one, and reads its records
+    private void open(File f) throws IOException
+    {
+        FileLock lock = channel.lock();
+
+        try
+        {
+            if (channel.size() < HEADER_LENGTH)
+            {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                header.putLong(MAGIC).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            channel.read(header, 0);
+
+            if (header.getLong(0) != MAGIC)
+            {
+                throw new IOException(f + " is not an invariant store");
+            }
+
+            indexed = HEADER_LENGTH;
+            refresh();
+        }
+        catch (IOException e)
+        {
+            lock.release();
+            file.close();
+            throw e;
+        }
+
+        lock.release();
+    }
+
+    ///////////////////////// Lookups /////////////////////////
+
+    /**
+    * Looks up the colourability of a knot mod m
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param m the number of colours
+    * @return Boolean true or false if the knot is in the store for m, or null if it isn't
+    * @throws IOException if the store can't be read
+    */
+    public synchronized Boolean getColourable(int[] gaussCode, int length, int m) throws IOException
+    {
+        Entry entry = lookup(key(gaussCode, length));
+
+        if (entry != null && entry.colourable.containsKey(m))
+        {
+            return entry.colourable.get(m);
+        }
+
+        // the determinant decides every modulus
+        BigInteger determinant = (entry == null) ? null : entry.determinant;
+        return (determinant == null) ? null : !determinant.gcd(BigInteger.valueOf(m)).equals(BigInteger.ONE);
+    }
+
+    /**
+    * Looks up the determinant of a knot
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @return BigInteger the determinant, or null if it isn't in the store
+    * @throws IOException if the store can't be read
+    */
+    public synchronized BigInteger getDeterminant(int[] gaussCode, int length) throws IOException
+    {
+        Entry entry = lookup(key(gaussCode, length));
+        return (entry == null) ? null : entry.determinant;
+    }
+
+    /**
+    * Looks up the Khovanov polynomial of a knot
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @return String the polynomial as written by Kh[], or null if it isn't in the store
+    * @throws IOException if the store can't be read
+    */
+    public synchronized String getKhovanov(int[] gaussCode, int length) throws IOException
+    {
+        Entry entry = lookup(key(gaussCode, length));
+        return (entry == null) ? null : entry.khovanov;
+    }
+
+    ///////////////////////// Additions /////////////////////////
+
+    /**
+    * Stores the colourability of a knot mod m
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param m the number of colours
+    * @param colourable true if the knot is colourable mod m
+    * @throws IOException if the store can't be written
+    */
+    public synchronized void putColourable(int[] gaussCode, int length, int m, boolean colourable) throws IOException
+    {
+        ByteBuffer value = ByteBuffer.allocate(5);
+        value.putInt(m).put((byte) (colourable ? 1 : 0)).flip();
+        append(COLOURABLE, key(gaussCode, length), value);
+    }
+
+    /**
+    * Stores the determinant of a knot
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param determinant the determinant
+    * @throws IOException if the store can't be written
+    */
+    public synchronized void putDeterminant(int[] gaussCode, int length, BigInteger determinant) throws IOException
+    {
+        byte[] bytes = determinant.toByteArray();
+        ByteBuffer value = ByteBuffer.allocate(4 + bytes.length);
+        value.putInt(bytes.length).put(bytes).flip();
+        append(DETERMINANT, key(gaussCode, length), value);
+    }
+
+    /**
+    * Stores the Khovanov polynomial of a knot
+    * @param gaussCode the letters of the Gauss code of the knot, which are not changed
+    * @param length the number of letters
+    * @param khovanov the polynomial as written by Kh[]
+    * @throws IOException if the store can't be written
+    */
+    public synchronized void putKhovanov(int[] gaussCode, int length, String khovanov) throws IOException
+    {
+        byte[] bytes = khovanov.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer value = ByteBuffer.allocate(4 + bytes.length);
+        value.putInt(bytes.length).put(bytes).flip();
+        append(KHOVANOV, key(gaussCode, length), value);
+    }
+
+    /**
+    * Returns the number of knots in the store
+    * @return int the number of knots with at least one invariant stored
+    */
+    public synchronized int size()
+    {
+        return index.size();
+    }
+
+    /**
+    * Closes the file of the store
+    * @throws IOException if the file can't be closed
+    */
+    public synchronized void close() throws IOException
+    {
+        file.close();
+    }
+
+    ///////////////////////// Helpers /////////////////////////
+
+    private static Object lockFor(File f) throws IOException
+    {
+        String path = f.getCanonicalPath();
+        Object lock = FILE_LOCKS.get(path);
+
+        if (lock == null)
+        {
+            Object newLock = new Object();
+            lock = FILE_LOCKS.putIfAbsent(path, newLock);
+            lock = (lock == null) ? newLock : lock;
+        }
+
+        return lock;
+    }
+
+    private static int[] key(int[] gaussCode, int length)
+    {
+        return ColouringCounter.canonical(gaussCode, length, false);
+    }
+
+    // finds the invariants of a knot, reading the records appended by others if it isn't in the index
+    private Entry lookup(int[] key) throws IOException
+    {
+        String k = GaussCodeReader.toString(key, key.length);
+        Entry entry = index.get(k);
+
+        if (entry == null && channel.size() > indexed)
+        {
+            refresh();
+            entry = index.get(k);
+        }
+
+        return entry;
+    }
+
+    // appends a record under the lock, after reading the records others have appended and dropping a torn one
+    private void append(byte kind, int[] key, ByteBuffer value) throws IOException
+    {
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + 4 * key.length + value.remaining());
+        body.put(kind).putInt(key.length);
+        for (int letter : key)
+        {
+            body.putInt(letter);
+        }
+        body.put(value).flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, body.limit());
+
+        ByteBuffer record = ByteBuffer.allocate(4 + body.limit() + 4);
+        record.putInt(body.limit()).put(body).putInt((int) crc.getValue()).flip();
+
+        synchronized (fileLock)
+        {
+            appendLocked(record);
+        }
+    }
+
+    // appends a record while no other store of this JVM can hold the lock on the file
+    private void appendLocked(ByteBuffer record) throws IOException
+    {
+        FileLock lock = channel.lock();
+
+        try
+        {
+            refresh();
+
+            if (channel.size() > indexed)
+            {
+                // a writer died part way through a record
+                channel.truncate(indexed);
+            }
+
+            long position = indexed;
+            while (record.hasRemaining())
+            {
+                position += channel.write(record, position);
+            }
+
+            record.rewind();
+            refresh();
+        }
+        finally
+        {
+            lock.release();
+        }
+    }
+
+    // reads every whole record from the end of the index to the end of the file into the index
+    private void refresh() throws IOException
+    {
+        long size = channel.size();
+
+        if (size <= indexed)
+        {
+            return;
+        }
+
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, indexed, size - indexed);
+        CRC32 crc = new CRC32();
+        byte[] body = new byte[0];
+
+        while (map.remaining() >= 4)
+        {
+            int start = map.position();
+            int bodyLength = map.getInt();
+
+            if (bodyLength < 5 || bodyLength + 4 > map.remaining())
+            {
+                break;
+            }
+
+            if (body.length < bodyLength)
+            {
+                body = new byte[bodyLength];
+            }
+
+            map.get(body, 0, bodyLength);
+            crc.reset();
+            crc.update(body, 0, bodyLength);
+
+            if ((int) crc.getValue() != map.getInt())
+            {
+                break;
+            }
+
+            read(ByteBuffer.wrap(body, 0, bodyLength));
+            indexed += map.position() - start;
+        }
+    }
+
+    // adds the invariant of one record to the index
+    private void read(ByteBuffer body)
+    {
+        byte kind = body.get();
+        int[] key = new int[body.getInt()];
+        for (int i = 0; i < key.length; i++)
+        {
+            key[i] = body.getInt();
+        }
+
+        String k = GaussCodeReader.toString(key, key.length);
+        Entry entry = index.get(k);
+
+        if (entry == null)
+        {
+            entry = new Entry();
+            index.put(k, entry);
+        }
+
+        if (kind == COLOURABLE)
+        {
+            int m = body.getInt();
+            entry.colourable.put(m, body.get() != 0);
+        }
+        else if (kind == DETERMINANT)
+        {
+            byte[] bytes = new byte[body.getInt()];
+            body.get(bytes);
+            entry.determinant = new BigInteger(bytes);
+        }
+        else if (kind == KHOVANOV)
+        {
+            byte[] bytes = new byte[body.getInt()];
+            body.get(bytes);
+            entry.khovanov = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // the invariants of one knot
+    private static class Entry
+    {
+        private Map<Integer, Boolean> colourable = new HashMap<Integer, Boolean>();
+        private BigInteger determinant;
+        private String khovanov;
+    }
+}
@@ -2,10 +2,16 @@ package knot;
 
 import java.util.*;
 import java.io.*;
+import java.nio.channels.OverlappingFileLockException;
+import java.math.BigInteger;
 
 
     /**
     * <h1>The command line interface for knot colouring</h1>
+    * A single modulus is tested with a Colourist for each code, which reports the search for each.  A list or range of
+    * moduli is tested with one AlgebraicColourist for each code, which answers every modulus, and the results are written
+    * as a table with a row for each code and a column for each modulus.  The codes are read by a GaussCodeReader, so the
+    * input may be a file of any length or a directory of per-knot files.
     *
     * @author  Craig Reilly
     * @version 0.1
@@ -15,29 +21,354 @@ import java.io.*;
 public class KnotColouring
 {
     private static boolean verbose = false;
-	private Scanner sc;
 	
     /**
     * The constructor for KnotColouring objects. 
-    * @param fname a file name (which should be a text file containing Gauss code(s) 
+    * @param fname a file name (which should be a text file containing Gauss code(s), or a directory of them)
     * @param modP the number of colours which it is to be coloured by
     * @param verbose true if full solutions are to be printed, false if just success
     * @throws IOException if the file name isn't found 
     */
 	public KnotColouring(String fname, int modP, boolean verbose) throws IOException 
 	{
-		sc = new Scanner(new File(fname));
+		this(fname, modP, verbose, null);
+	}
+
+	/**
+    * The constructor for KnotColouring objects which look each knot up in an InvariantStore before colouring it
+    * @param fname a file name (which should be a text file containing Gauss code(s), or a directory of them)
+    * @param modP the number of colours which it is to be coloured by
+    * @param verbose true if full solutions are to be printed, false if just success
+    * @param store the store of invariants, or null to colour every knot
+    * @throws IOException if the file name isn't found 
+    */
+	public KnotColouring(String fname, int modP, boolean verbose, InvariantStore store) throws IOException 
+	{
+		this(fname, GaussCodeReader.DEFAULT_GLOB, modP, verbose, store);
+	}
+
+	/**
+    * The constructor for KnotColouring objects which read only the files of a directory matching a glob
+    * @param fname a file name (which should be a text file containing Gauss code(s), or a directory of them)
+    * @param glob the files of a directory which are read
+    * @param modP the number of colours which it is to be coloured by
+    * @param verbose true if full solutions are to be printed, false if just success
+    * @param store the store of invariants, or null to colour every knot
+    * @throws IOException if the file name isn't found 
+    */
+	public KnotColouring(String fname, String glob, int modP, boolean verbose, InvariantStore store) throws IOException 
+	{
+		final int p = modP;
+		final boolean print = verbose;
+		final InvariantStore invariants = store;
+
+		new GaussCodeReader(new File(fname), glob).read(new GaussCodeListener()
+		{
+			public void code(String name, int[] gaussCode, int length)
+			{
+				try
+				{
+		     		Colourist colourist = new Colourist(gaussCode, length, p, invariants);
+
+		     		colourist.isColourable(print);
+				}
+				catch (RuntimeException e)
+				{
+					// a code which isn't a closed knot, such as one with a letter missing, is skipped
+					System.err.println(notAKnot(name, gaussCode, length));
+				}
+			}
+
+			public void malformed(String file, long line)
+			{
+				System.err.println(notACode(file, line));
+			}
+		});
+	}
+
+	/**
+    * Tests the colourability of a number of knots for a number of moduli.  Each code is parsed and its colouring matrix
+    * reduced once, and every modulus is answered from the reduction.  Blank lines, and codes which
+    * can't be read as a knot, are skipped.
+    * @param codes the Gauss codes of the knots
+    * @param moduli the numbers of colours, each at least 2
+    * @return ColouringTable a row for each code, in the order given, and a column for each modulus
+    */
+	public static ColouringTable colourAll(Iterable<String> codes, int[] moduli)
+	{
+		ColouringTable table = new ColouringTable(moduli);
+
+		for (String code : codes)
+		{
+			if (code.trim().isEmpty())
+			{
+				continue;
+			}
+
+			AlgebraicColourist colourist;
+
+			try
+			{
+				colourist = new AlgebraicColourist(code);
+			}
+			catch (RuntimeException e)
+			{
+				// a code which isn't a closed knot, such as one with a letter missing, is left out of the table
+				System.err.println("Skipped " + code.trim() + ", it is not the Gauss code of a knot");
+				continue;
+			}
+
+			table.add(code.trim(), colourist.getDeterminant(), colourist.isColourable(moduli));
+		}
+
+		return table;
+	}
+
+	/**
+    * Writes a table of the colourability of every knot read for a number of moduli, a row at a time as each code is
+    * read, so the codes are never all held at once.  A named knot is given by its name rather than its code.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param moduli the numbers of colours, each at least 2
+    * @param out the stream the table is written to
+    * @throws IOException if the codes can't be read
+    */
+	public static void writeTable(GaussCodeReader in, int[] moduli, PrintStream out) throws IOException
+	{
+		writeTable(in, moduli, out, null);
+	}
+
+	/**
+    * Writes a table of the colourability of every knot read for a number of moduli, taking the determinant of each
+    * knot from an InvariantStore if it is there, and adding it to the store if it isn't
+    * @param in the reader of the file or directory of Gauss codes
+    * @param moduli the numbers of colours, each at least 2
+    * @param out the stream the table is written to
+    * @param store the store of invariants, or null to reduce every knot
+    * @throws IOException if the codes can't be read
+    */
+	public static void writeTable(GaussCodeReader in, final int[] moduli, final PrintStream out,
+		final InvariantStore store) throws IOException
+	{
+		out.println(new ColouringTable(moduli).header());
+
+		in.read(new GaussCodeListener()
+		{
+			public void code(String name, int[] gaussCode, int length)
+			{
+				String row = tableRow(name, gaussCode, length, moduli, store);
+
+				if (row == null)
+				{
+					System.err.println(notAKnot(name, gaussCode, length));
+				}
+				else
+				{
+					out.println(row);
+				}
+			}
+
+			public void malformed(String file, long line)
+			{
+				System.err.println(notACode(file, line));
+			}
+		});
+	}
+
+	/**
+    * Writes a table of the number of colourings of every knot read for a number of moduli, including the trivial
+    * colourings, a row at a time.  The invariant factors of each knot are kept by a ColouringCounter, so a knot which
+    * is read again in another form is not reduced again.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param moduli the numbers of colours, each at least 2
+    * @param out the stream the table is written to
+    * @throws IOException if the codes can't be read
+    */
+	public static void writeCountTable(GaussCodeReader in, final int[] moduli, final PrintStream out) throws IOException
+	{
+		final ColouringCounter counter = new ColouringCounter();
+
+		out.println(new ColouringTable(moduli).header());
+
+		in.read(new GaussCodeListener()
+		{
+			public void code(String name, int[] gaussCode, int length)
+			{
+				String knot = (name != null) ? name : GaussCodeReader.toString(gaussCode, length);
+
+				try
+				{
+					BigInteger[] counts = counter.countColourings(gaussCode, length, moduli);
+					out.println(ColouringTable.rowToString(knot, counter.getDeterminant(gaussCode, length), counts));
+				}
+				catch (RuntimeException e)
+				{
+					System.err.println(notAKnot(name, gaussCode, length));
+				}
+			}
+
+			public void malformed(String file, long line)
+			{
+				System.err.println(notACode(file, line));
+			}
+		});
+	}
+
+	/**
+    * Tests the colourability of every knot read mod a prime with one IncrementalColourist, which keeps the elimination
+    * of the prefix each code shares with the one before it, and writes true or false for each knot.
+    * @param in the reader of the file or directory of Gauss codes, best sorted as the generators write them
+    * @param p the number of colours, which must be prime
+    * @param out the stream the results are written to
+    * @throws IOException if the codes can't be read
+    */
+	public static void colourIncrementally(GaussCodeReader in, int p, final PrintStream out) throws IOException
+	{
+		final IncrementalColourist colourist = new IncrementalColourist(p);
+
+		in.read(new GaussCodeListener()
+		{
+			public void code(String name, int[] gaussCode, int length)
+			{
+				try
+				{
+					out.println(colourist.isColourable(gaussCode, length));
+				}
+				catch (IllegalArgumentException e)
+				{
+					System.err.println(notAKnot(name, gaussCode, length));
+				}
+			}
+
+			public void malformed(String file, long line)
+			{
+				System.err.println(notACode(file, line));
+			}
+		});
+	}
 
-		String guassString;
+	/**
+    * Expresses the colourability of one knot for a number of moduli as a row of a table
+    * @param name the name of the knot, or null if it has none
+    * @param gaussCode the letters of its Gauss code
+    * @param length the number of letters
+    * @param moduli the numbers of colours, each at least 2
+    * @return String the row, or null if the code is not the Gauss code of a knot
+    */
+	static String tableRow(String name, int[] gaussCode, int length, int[] moduli)
+	{
+		return tableRow(name, gaussCode, length, moduli, null);
+	}
 
-		while (sc.hasNextLine())
+	/**
+    * Expresses the colourability of one knot for a number of moduli as a row of a table, from the determinant in an
+    * InvariantStore if the knot is there.  A knot is colourable mod m exactly when its determinant and m share a factor.
+    * @param name the name of the knot, or null if it has none
+    * @param gaussCode the letters of its Gauss code
+    * @param length the number of letters
+    * @param moduli the numbers of colours, each at least 2
+    * @param store the store of invariants, or null to reduce the knot
+    * @return String the row, or null if the code is not the Gauss code of a knot
+    */
+	static String tableRow(String name, int[] gaussCode, int length, int[] moduli, InvariantStore store)
+	{
+		String knot = (name != null) ? name : GaussCodeReader.toString(gaussCode, length);
+		BigInteger determinant = null;
+
+		try
 		{
-			guassString = sc.nextLine();
+			determinant = (store == null) ? null : store.getDeterminant(gaussCode, length);
+		}
+		catch (IOException | OverlappingFileLockException e)
+		{
+			System.err.println("Can't read the invariant store: " + e.getMessage());
+		}
+		catch (RuntimeException e)
+		{
+			return null;
+		}
+
+		if (determinant != null)
+		{
+			boolean[] row = new boolean[moduli.length];
+			for (int i = 0; i < moduli.length; i++)
+			{
+				row[i] = !determinant.gcd(BigInteger.valueOf(moduli[i])).equals(BigInteger.ONE);
+			}
+
+			return ColouringTable.rowToString(knot, determinant, row);
+		}
 
-     		Colourist colourist = new Colourist(guassString, modP);
+		AlgebraicColourist colourist;
 
-     		colourist.isColourable(verbose);
-    	}
+		try
+		{
+			colourist = new AlgebraicColourist(new KnotFromGaussCode().toKnot(gaussCode, length));
+		}
+		catch (RuntimeException e)
+		{
+			return null;
+		}
+
+		if (store != null)
+		{
+			try
+			{
+				store.putDeterminant(gaussCode, length, colourist.getDeterminant());
+			}
+			catch (IOException | OverlappingFileLockException e)
+			{
+				System.err.println("Can't write to the invariant store: " + e.getMessage());
+			}
+		}
+
+		return ColouringTable.rowToString(knot, colourist.getDeterminant(), colourist.isColourable(moduli));
+	}
+
+	// the message for a code which can't be read as a knot, such as one with a letter missing
+	static String notAKnot(String name, int[] gaussCode, int length)
+	{
+		String knot = (name != null) ? name : GaussCodeReader.toString(gaussCode, length);
+		return "Skipped " + knot + ", it is not the Gauss code of a knot";
+	}
+
+	// the message for a line which isn't a Gauss code
+	static String notACode(String file, long line)
+	{
+		return "Skipped line " + line + " of " + file + ", it is not a Gauss code";
+	}
+
+	/**
+    * Reads the moduli given on the command line
+    * @param arg a single modulus such as 3, a list such as 3,5,7 or a range such as 3-97, or a list of ranges
+    * @param primesOnly true to keep only the primes
+    * @return int[] the moduli, in the order given
+    */
+	public static int[] parseModuli(String arg, boolean primesOnly)
+	{
+		List<Integer> moduli = new ArrayList<Integer>();
+
+		for (String part : arg.split(","))
+		{
+			String[] ends = part.trim().split("-");
+			int from = Integer.parseInt(ends[0].trim());
+			int to = (ends.length > 1) ? Integer.parseInt(ends[1].trim()) : from;
+
+			for (int m = from; m <= to; m++)
+			{
+				if (m >= 2 && (!primesOnly || BigInteger.valueOf(m).isProbablePrime(30)))
+				{
+					moduli.add(m);
+				}
+			}
+		}
+
+		int[] result = new int[moduli.size()];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = moduli.get(i);
+		}
+
+		return result;
 	}
 
 	/**
@@ -52,18 +383,120 @@ public class KnotColouring
         if (args.length < 2)
         {
             System.out.println("\nInput to this program is of the form 'java KnotColouring <file> <number> <option1>'"
-                + "\n \nwhere <file> is the name of a text file containing Gauss code(s)"
-                + "\n \nwhere <number> is the number by which the Gauss code(s) should be coloured"
-                + "\n \n<option1> is given as 'verbose' to include information about the solution, or omitted to leave this information out by defult \n");
+                + "\n \nwhere <file> is the name of a text file containing Gauss code(s), or of a directory of such files"
+                + "\n \nwhere <number> is the number by which the Gauss code(s) should be coloured, or a list such as 3,5,7"
+                + "\n or a range such as 3-97 to write a table of the colourability of each code for each number"
+                + "\n \n<option1> is given as 'verbose' to include information about the solution, or omitted to leave this information out by defult"
+                + "\n \n'primes' may also be given to keep only the prime numbers of a list or range"
+                + "\n \n'parallel' may also be given to colour the codes on every processor, the output is in the same order"
+                + "\n \n'incremental' may also be given with a prime number to colour each code from the elimination of the one before it,"
+                + "\n but not with a list or range, 'parallel' or 'count'"
+                + "\n \n'count' may also be given to write a table of the number of colourings of each code for each number"
+                + "\n \n'store <file>' may also be given to keep the invariants of each code in <file>, and look them up there in later runs,"
+                + "\n but not with 'incremental' or 'count'"
+                + "\n \n'glob <pattern>' may also be given to read only the files of a directory matching <pattern>, by default "
+                + GaussCodeReader.DEFAULT_GLOB + ",\n the per-knot files of the tables rather than their whole-table files\n");
         }
         else
         {
-	        if (args.length > 2)
+            boolean primesOnly = false;
+            boolean parallel = false;
+            boolean incremental = false;
+            boolean count = false;
+            InvariantStore store = null;
+            String glob = GaussCodeReader.DEFAULT_GLOB;
+
+	        for (int i = 2; i < args.length; i++)
+	        {
+	            if (args[i].equals("primes"))
+	            {
+	                primesOnly = true;
+	            }
+	            else if (args[i].equals("parallel"))
+	            {
+	                parallel = true;
+	            }
+	            else if (args[i].equals("incremental"))
+	            {
+	                incremental = true;
+	            }
+	            else if (args[i].equals("count"))
+	            {
+	                count = true;
+	            }
+	            else if (args[i].equals("glob") && i + 1 < args.length)
+	            {
+	                glob = args[++i];
+	            }
+	            else if (args[i].equals("store") && i + 1 < args.length)
+	            {
+	                store = new InvariantStore(new File(args[++i]));
+	            }
+	            else
+	            {
+	                verbose = true;
+	            }
+	        }
+
+	        if (store != null && (incremental || count))
+	        {
+	            // neither keeps the invariants a store holds
+	            System.out.println("'store' can't be given with 'incremental' or 'count'");
+	            store.close();
+	            return;
+	        }
+
+	        if (incremental && (!args[1].matches("\\d+") || parallel || count))
+	        {
+	            // each code is coloured from the elimination of the one before it, for a single prime only
+	            System.out.println("'incremental' must be given with a single prime, and not with 'parallel' or 'count'");
+	            return;
+	        }
+
+	        // a single number keeps the search of the original interface, more than one gives a table
+	        if (incremental)
+	        {
+	            try
+	            {
+	                colourIncrementally(new GaussCodeReader(new File(args[0]), glob), Integer.parseInt(args[1]), System.out);
+	            }
+	            catch (IllegalArgumentException e)
+	            {
+	                // the number isn't prime
+	                System.out.println(e.getMessage());
+	            }
+	        }
+	        else if (count)
+	        {
+	            writeCountTable(new GaussCodeReader(new File(args[0]), glob), parseModuli(args[1], primesOnly), System.out);
+	        }
+	        else if (parallel)
+	        {
+	            int threads = Runtime.getRuntime().availableProcessors();
+	            GaussCodeReader in = new GaussCodeReader(new File(args[0]), glob);
+
+	            if (args[1].matches("\\d+"))
+	            {
+	                new ParallelKnotColouring(in, System.out, Integer.parseInt(args[1]), verbose, threads, store);
+	            }
+	            else
+	            {
+	                new ParallelKnotColouring(in, System.out, parseModuli(args[1], primesOnly), threads, store);
+	            }
+	        }
+	        else if (args[1].matches("\\d+"))
 	        {
-	            verbose = true;
+				KnotColouring catk = new KnotColouring(args[0], glob, Integer.parseInt(args[1]), verbose, store);
+	        }
+	        else
+	        {
+	            writeTable(new GaussCodeReader(new File(args[0]), glob), parseModuli(args[1], primesOnly), System.out, store);
 	        }
 
-			KnotColouring catk = new KnotColouring(args[0], Integer.parseInt(args[1]), verbose);
+	        if (store != null)
+	        {
+	            store.close();
+	        }
 		}
     }
 
@@ -4,6 +4,13 @@ import java.util.*;
 
     /**
     * <h1>From Gauss codes to Knot objects</h1>
+    * A letter of a Gauss code is positive where the walk goes over the crossing and negative where it goes under.  A code
+    * with no negative letters, such as a shadow Gauss code written by the generators, is read as the alternating knot
+    * with that shadow, going over at the even positions and under at the odd ones.  This is only a knot if the code is
+    * evenly spaced, which every planar shadow code is.
+    * <p>
+    * The knot is an ArrayKnot whose crossing i is the letter i of the code, so it is built in time linear in the length
+    * of the code.
     *
     * @author  Craig Reilly
     * @version 0.1
@@ -19,57 +26,63 @@ public class KnotFromGaussCode
     */
 	public Knot toKnot(String guassString)
 	{
-		LinkedList<Integer> gaussList = new LinkedList<Integer>();
-		Knot knot; 
+		String[] letters = guassString.split("[, ]+");
+		int[] gauss = new int[letters.length];
 		int num = 0;
-		int size;
+		int size = letters.length;
 
-        // split the string up and get the numbers contained in it
-		for (String s: guassString.split("[, ]+"))
+        // get the numbers contained in the string, a token which isn't a number repeats the one before it
+		for (int i = 0; i < size; i++)
 		{
 			try
             {
-                num = Integer.parseInt(s.trim());
+                num = Integer.parseInt(letters[i].trim());
             }
             catch(NumberFormatException e) 
             {
                 // do nothing
             }
 
-			gaussList.addLast(num);
+			gauss[i] = num;
  		}
 
- 		knot = new AdjSetKnot();
-		size = gaussList.size();
+		return toKnot(gauss, size);
+	}
+
+    /**
+    * Creates a knot object from the letters of a Gauss code, such as those passed by a GaussCodeReader
+    * @param gauss the letters of the Gauss code, which are not changed
+    * @param size the number of letters
+    * @return the Knot represented by the Gauss code
+    */
+	public Knot toKnot(int[] gauss, int size)
+	{
+        // a shadow code has no negative letters, so read it as alternating
+        boolean signed = false;
+        for (int i = 0; i < size; i++)
+        {
+            signed = signed || (gauss[i] < 0);
+        }
 
-        // add half as many crossings to the knot as the Gauss code is long
+ 		ArrayKnot knot = new ArrayKnot(size / 2);
+
+        // add half as many crossings to the knot as the Gauss code is long, crossing i is the letter i
  		for (int i = 0; i < (size / 2); i++)
  		{
-			knot.addCrossing("" + i);
+			knot.addCrossingIndex();
  		}
 
  		for (int i = 0 ; i < size; i++ ) 
  		{
- 			int n = gaussList.get(i);
- 			int m;
- 			if (i == (size -1))
- 			{
- 				m = gaussList.get(0);
- 			}
- 			else
- 			{
- 				m = gaussList.get(i + 1);
- 			}
- 			
- 			Knot.Crossing source = knot.getByOrderAdded(Math.abs(n));
- 			Knot.Crossing target = knot.getByOrderAdded(Math.abs(m));
+ 			int n = gauss[i];
+ 			int m = gauss[(i + 1) % size];
+ 			int nOrient = (signed || i % 2 == 0) ? orient(n) : Knot.UNDER;
+ 			int mOrient = (signed || (i + 1) % size % 2 == 0) ? orient(m) : Knot.UNDER;
 
             //add the arcs to the knot with repect to their source and target orientations
- 			knot.addArc(source, target, orient(n), orient(m));
+ 			knot.addArc(Math.abs(n), Math.abs(m), nOrient, mOrient);
  		}
 
-        gaussList.clear();
-
  		return knot;
 
 	}
@@ -0,0 +1,388 @@
+package knot;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+    /**
+    * <h1>A multi-threaded pipeline for colouring the knots of a large file of Gauss codes</h1>
+    * The codes are read by a GaussCodeReader on a reader thread into a bounded queue, coloured by a number of worker threads, and written out by
+    * the calling thread in the order they were read, so the output is the same as that of the single threaded interface.
+    * Each code is coloured independently, either by its own Colourist, which builds its own model and solver, for a
+    * single modulus, or by its own AlgebraicColourist giving a row of a ColouringTable for a list of moduli.  Either may
+    * look each knot up in an InvariantStore, which the workers share, before colouring it.
+    * <p>
+    * At most a fixed number of codes per worker are between the reader and the writer at any time, so a slow code holds
+    * up the output but not the workers, and the memory used does not grow with the size of the file.  The output files of
+    * the Gauss code generators, whose shadow codes are read as alternating knots, can be coloured directly, as can the
+    * directories of the tables in resources/.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class ParallelKnotColouring
+{
+    // the number of codes per worker which may be read but not yet written
+    private static final int WINDOW_PER_WORKER = 64;
+
+    private int modP;
+    private boolean verbose;
+    private int[] moduli; // null when colouring with a Colourist for modP
+    private int threads;
+    private InvariantStore store; // null to colour every knot
+
+    private int window;
+    private Line[] done; // done[i % window] is the coloured line i, or null if it is not yet coloured
+    private Semaphore free;
+    private BlockingQueue<Line> queue;
+    private final Object lock = new Object();
+    private boolean readerFinished = false;
+    private long linesRead = 0;
+    private IOException readError = null;
+    private long count = 0;
+
+    /**
+    * The constructor for ParallelKnotColouring objects which colour each knot mod p with a Colourist, writing the
+    * same output as KnotColouring.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param out the stream the colourings are written to
+    * @param modP the number of colours
+    * @param verbose true if full solutions are to be printed, false if just success
+    * @param threads the number of worker threads
+    * @throws IOException if the codes can't be read
+    */
+    public ParallelKnotColouring(GaussCodeReader in, PrintStream out, int modP, boolean verbose, int threads) throws IOException
+    {
+        this(in, out, modP, verbose, threads, null);
+    }
+
+    /**
+    * The constructor for ParallelKnotColouring objects which colour each knot mod p with a Colourist, looking it up in an
+    * InvariantStore first, writing the same output as KnotColouring.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param out the stream the colourings are written to
+    * @param modP the number of colours
+    * @param verbose true if full solutions are to be printed, false if just success
+    * @param threads the number of worker threads
+    * @param store the store of invariants, or null to colour every knot
+    * @throws IOException if the codes can't be read
+    */
+    public ParallelKnotColouring(GaussCodeReader in, PrintStream out, int modP, boolean verbose, int threads,
+        InvariantStore store) throws IOException
+    {
+        this.modP = modP;
+        this.verbose = verbose;
+        this.moduli = null;
+        this.threads = threads;
+        this.store = store;
+
+        run(in, out);
+    }
+
+    /**
+    * The constructor for ParallelKnotColouring objects which write a ColouringTable of each knot against a list of moduli.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param out the stream the table is written to
+    * @param moduli the numbers of colours, each at least 2
+    * @param threads the number of worker threads
+    * @throws IOException if the codes can't be read
+    */
+    public ParallelKnotColouring(GaussCodeReader in, PrintStream out, int[] moduli, int threads) throws IOException
+    {
+        this(in, out, moduli, threads, null);
+    }
+
+    /**
+    * The constructor for ParallelKnotColouring objects which write a ColouringTable of each knot against a list of moduli,
+    * looking the determinant of each knot up in an InvariantStore first.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param out the stream the table is written to
+    * @param moduli the numbers of colours, each at least 2
+    * @param threads the number of worker threads
+    * @param store the store of invariants, or null to reduce every knot
+    * @throws IOException if the codes can't be read
+    */
+    public ParallelKnotColouring(GaussCodeReader in, PrintStream out, int[] moduli, int threads, InvariantStore store)
+        throws IOException
+    {
+        this.moduli = moduli.clone();
+        this.threads = threads;
+        this.store = store;
+
+        out.println(new ColouringTable(moduli).header());
+        run(in, out);
+    }
+
+    /**
+    * Returns the number of knots coloured
+    * @return long the number of codes written out
+    */
+    public long numberColoured()
+    {
+        return count;
+    }
+
+    /**
+    * Runs the reader and the workers, and writes each line out as soon as it and every line before it are coloured.
+    * @param in the reader of the file or directory of Gauss codes
+    * @param out the stream the colourings are written to
+    * @throws IOException if the codes can't be read
+    */
+    private void run(GaussCodeReader in, PrintStream out) throws IOException
+    {
+        window = threads * WINDOW_PER_WORKER;
+        done = new Line[window];
+        free = new Semaphore(window);
+        queue = new ArrayBlockingQueue<Line>(window);
+
+        Thread reader = new Thread(new LineReader(in), "colouring-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++)
+        {
+            workers.execute(new Worker());
+        }
+
+        try
+        {
+            for (long next = 0; ; next++)
+            {
+                Line line;
+
+                synchronized (lock)
+                {
+                    while (done[(int) (next % window)] == null && !(readerFinished && next == linesRead))
+                    {
+                        lock.wait();
+                    }
+
+                    if (readerFinished && next == linesRead)
+                    {
+                        break;
+                    }
+
+                    line = done[(int) (next % window)];
+                    done[(int) (next % window)] = null;
+                }
+
+                if (line.error != null)
+                {
+                    System.err.println(line.error);
+                }
+                else if (line.text != null)
+                {
+                    out.print(line.text);
+                    count++;
+                }
+
+                free.release();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while colouring");
+        }
+        finally
+        {
+            workers.shutdownNow();
+            out.flush();
+        }
+
+        if (readError != null)
+        {
+            throw readError;
+        }
+    }
+
+    /**
+    * Colours one line of the input
+    * @param line the line, whose text or error is set
+    */
+    private void colour(Line line)
+    {
+        if (moduli == null)
+        {
+            try
+            {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                PrintStream ps = new PrintStream(buffer);
+                new Colourist(line.code, line.code.length, modP, store).isColourable(verbose, ps);
+                ps.flush();
+                line.text = buffer.toString();
+            }
+            catch (RuntimeException e)
+            {
+                line.error = KnotColouring.notAKnot(line.name, line.code, line.code.length);
+            }
+        }
+        else
+        {
+            String row = KnotColouring.tableRow(line.name, line.code, line.code.length, moduli, store);
+
+            if (row == null)
+            {
+                line.error = KnotColouring.notAKnot(line.name, line.code, line.code.length);
+            }
+            else
+            {
+                line.text = row + "\n";
+            }
+        }
+    }
+
+    // a code of the input, or a malformed line, and its colouring once a worker has coloured it
+    private static class Line
+    {
+        private long index;
+        private String name;
+        private int[] code;
+        private String text;
+        private String error;
+
+        private Line(long index, String name, int[] code)
+        {
+            this.index = index;
+            this.name = name;
+            this.code = code;
+        }
+    }
+
+    // the end of the input, one is queued for each worker
+    private static final Line END = new Line(-1, null, null);
+
+    private class LineReader implements Runnable, GaussCodeListener
+    {
+        private GaussCodeReader in;
+        private long index = 0;
+
+        private LineReader(GaussCodeReader in)
+        {
+            this.in = in;
+        }
+
+        public void run()
+        {
+            try
+            {
+                in.read(this);
+            }
+            catch (IOException e)
+            {
+                readError = e;
+            }
+            catch (ReaderInterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                synchronized (lock)
+                {
+                    readerFinished = true;
+                    linesRead = index;
+                    lock.notifyAll();
+                }
+
+                for (int t = 0; t < threads; t++)
+                {
+                    queue.offer(END);
+                }
+            }
+        }
+
+        public void code(String name, int[] gaussCode, int length)
+        {
+            put(new Line(index, name, Arrays.copyOf(gaussCode, length)));
+        }
+
+        public void malformed(String file, long line)
+        {
+            Line malformedLine = new Line(index, null, null);
+            malformedLine.error = KnotColouring.notACode(file, line);
+            put(malformedLine);
+        }
+
+        private void put(Line line)
+        {
+            try
+            {
+                // wait until the line index - window has been written, so that its slot is free
+                free.acquire();
+                index++;
+
+                if (line.error != null)
+                {
+                    // a malformed line needs no worker
+                    synchronized (lock)
+                    {
+                        done[(int) (line.index % window)] = line;
+                        lock.notifyAll();
+                    }
+                }
+                else
+                {
+                    queue.put(line);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new ReaderInterruptedException();
+            }
+        }
+    }
+
+    // thrown through the GaussCodeReader to stop reading when the reader thread is interrupted
+    private static class ReaderInterruptedException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private class Worker implements Runnable
+    {
+        public void run()
+        {
+            try
+            {
+                while (true)
+                {
+                    Line line = queue.take();
+
+                    if (line == END)
+                    {
+                        return;
+                    }
+
+                    try
+                    {
+                        colour(line);
+                    }
+                    catch (Throwable e)
+                    {
+                        // such as an OutOfMemoryError in the solver, the line is reported and the others go on
+                        line.text = null;
+                        String knot = (line.name != null) ? line.name : GaussCodeReader.toString(line.code, line.code.length);
+                        line.error = "Couldn't colour " + knot + ": " + e;
+                    }
+                    finally
+                    {
+                        // the writer waits for every line, so one must always be published
+                        synchronized (lock)
+                        {
+                            done[(int) (line.index % window)] = line;
+                            lock.notifyAll();
+                        }
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // the writer has stopped
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import gaussCodeGenerator.GaussCodeSink;
+import gaussCodeGenerator.OrderlyShadowGaussGenerator;
+import gaussCodeGenerator.RandomShadowSampler;
+
+    /**
+    * <h1>Tests that RandomShadowSampler draws every class equally often when it is exact</h1>
+    * The classes are listed by OrderlyShadowGaussGenerator, a fixed number of codes is drawn with a fixed seed, and
+    * the number of times each class is drawn is compared with a uniform distribution by a chi-squared test.
+    *
+    * @author  Craig Reilly
+    * @version 0.1
+    * @since   2015-09-07
+    */
+
+public class RandomShadowSamplerTest
+{
+    private static final int SAMPLES = 15000;
+    private static final int PRIME_SAMPLES = 3000; // prime maps are rarer, so they take longer to draw
+    private static final long SEED = 20151001L;
+
+    /**
+    * Samples codes of 5 crossings, which have 15 classes, so the statistic has 14 degrees of freedom.
+    */
+    @Test
+    public void exactCodesAreUniform()
+    {
+        assertTrue(chiSquared(5, 0, true, SAMPLES) < 36.12); // p = 0.001
+    }
+
+    /**
+    * Samples prime codes of 6 crossings.
+    */
+    @Test
+    public void exactPrimeCodesAreUniform()
+    {
+        int classes = classesOf(6, 3).size();
+        assertTrue(chiSquared(6, 2, true, PRIME_SAMPLES) < criticalValue(classes - 1));
+    }
+
+    /**
+    * Without exact the composite codes are drawn far more often, which the test should see.
+    */
+    @Test
+    public void inexactCodesAreNotUniform()
+    {
+        assertTrue(chiSquared(5, 0, false, SAMPLES) > 36.12);
+    }
+
+    /**
+    * Draws a number of codes and returns the chi-squared statistic of their class counts against a uniform distribution.
+    * @param crossings the number of crossings
+    * @param option option = 0 samples codes, option = 2 samples prime codes
+    * @param exact whether every class should be equally likely
+    * @param samples the number of codes to draw
+    * @return double the chi-squared statistic
+    */
+    private static double chiSquared(int crossings, int option, boolean exact, int samples)
+    {
+        Map<String, Integer> classes = classesOf(crossings, option + 1);
+        int[] counts = new int[classes.size()];
+        RandomShadowSampler sampler = new RandomShadowSampler(crossings, option, exact, SEED);
+
+        for (int i = 0; i < samples; i++)
+        {
+            Integer index = classes.get(Arrays.toString(sampler.next()));
+            assertTrue("a sampled code is not the lex min code of any class", index != null);
+            counts[index]++;
+        }
+
+        double expected = (double) samples / counts.length;
+        double statistic = 0;
+
+        for (int count : counts)
+        {
+            statistic += (count - expected) * (count - expected) / expected;
+        }
+
+        return statistic;
+    }
+
+    /**
+    * Lists the classes of codes, numbering them in lexicographic order.
+    * @param crossings the number of crossings
+    * @param option option = 1 lists all codes, option = 3 lists the prime codes
+    * @return Map the number of each class, keyed on its lex min code
+    */
+    private static Map<String, Integer> classesOf(int crossings, int option)
+    {
+        final Map<String, Integer> classes = new HashMap<String, Integer>();
+
+        new OrderlyShadowGaussGenerator(crossings, option, false, new GaussCodeSink()
+        {
+            public void accept(int[] gaussCode)
+            {
+                classes.put(Arrays.toString(gaussCode), classes.size());
+            }
+
+            public void close()
+            {
+                // nothing to do
+            }
+        });
+
+        return classes;
+    }
+
+    /**
+    * An upper bound on the chi-squared critical value at p = 0.001, from the Wilson-Hilferty approximation.
+    * @param df the degrees of freedom
+    * @return double the critical value
+    */
+    private static double criticalValue(int df)
+    {
+        double c = 2.0 / (9 * df);
+        double cube = 1 - c + 3.1 * Math.sqrt(c);
+        return df * cube * cube * cube;
+    }
+}